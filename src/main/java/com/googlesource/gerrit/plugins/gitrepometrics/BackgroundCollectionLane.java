@@ -0,0 +1,108 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lane for the collections that are not triggered by a repository update, such as the forced
+ * collection and the collection of all the repositories at startup.
+ *
+ * <p>Each background thread waits for its collection to complete before picking up the next
+ * project. The number of background collections in flight is therefore bounded by the background
+ * pool size, and the collections triggered by repository updates never wait behind a full sweep.
+ */
+@Singleton
+public class BackgroundCollectionLane implements GitRepoMetricsConfigListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final ScheduledExecutorService backgroundExecutor;
+  private final UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory;
+  private final ProjectCollectionCostTracker collectionCostTracker;
+  private volatile long collectionTimeoutMs;
+  private final Set<String> queuedProjects = ConcurrentHashMap.newKeySet();
+
+  @Inject
+  BackgroundCollectionLane(
+      @BackgroundGitMetricsExecutor ScheduledExecutorService backgroundExecutor,
+      UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory,
+      ProjectCollectionCostTracker collectionCostTracker,
+      GitRepoMetricsConfig config) {
+    this.backgroundExecutor = backgroundExecutor;
+    this.updateGitMetricsTaskFactory = updateGitMetricsTaskFactory;
+    this.collectionCostTracker = collectionCostTracker;
+    this.collectionTimeoutMs = config.getBackgroundCollectionTimeoutMs();
+  }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    this.collectionTimeoutMs = config.getBackgroundCollectionTimeoutMs();
+  }
+
+  /**
+   * Submits the collection of the given projects, skipping the ones that are already queued.
+   *
+   * @param projectNames projects to collect metrics for
+   */
+  public void submit(Collection<String> projectNames) {
+    collectionCostTracker.cheapestFirst(projectNames).stream()
+        .filter(queuedProjects::add)
+        .map(BackgroundCollection::new)
+        .forEach(backgroundExecutor::execute);
+  }
+
+  private class BackgroundCollection implements Runnable {
+    private final String projectName;
+
+    BackgroundCollection(String projectName) {
+      this.projectName = projectName;
+    }
+
+    @Override
+    public void run() {
+      queuedProjects.remove(projectName);
+      UpdateGitMetricsTask updateGitMetricsTask = updateGitMetricsTaskFactory.create(projectName);
+      updateGitMetricsTask.runIfChanged();
+      try {
+        updateGitMetricsTask.collected().get(collectionTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        logger.atWarning().log(
+            "Collection of metrics for project %s did not complete within %d ms",
+            projectName, collectionTimeoutMs);
+        // The collection took at least as long as the timeout, which weighs the project down
+        // even when its collectors never report
+        collectionCostTracker.record(projectName, collectionTimeoutMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        logger.atSevere().withCause(e).log("Collection of metrics for %s failed", projectName);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "Background UpdateGitMetricsTask " + projectName;
+    }
+  }
+}
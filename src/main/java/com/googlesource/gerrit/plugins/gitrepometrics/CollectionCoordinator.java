@@ -0,0 +1,54 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Coordinates the collection of the metrics among the nodes sharing the same repositories.
+ *
+ * <p>By default, this interface is implemented by {@link StandaloneCollectionCoordinator}, which
+ * always collects the metrics locally.
+ */
+@ImplementedBy(StandaloneCollectionCoordinator.class)
+public interface CollectionCoordinator {
+  /**
+   * Decides whether this node is in charge of collecting the metrics of any project.
+   *
+   * <p>This method must never block or access any repository.
+   *
+   * @return {@code true} if some metrics are to be collected by this node
+   */
+  boolean isCollecting();
+
+  /**
+   * Decides whether this node is in charge of collecting the metrics of the project.
+   *
+   * <p>This method is invoked before every collection, hence it must never block or access any
+   * repository.
+   *
+   * @param projectName the name of the project
+   * @return {@code true} if the metrics of the project are to be collected by this node
+   */
+  boolean isCollecting(String projectName);
+
+  /**
+   * Tells whether the nodes coordinate their collections, in which case the repository updates
+   * made on any node are to be considered, instead of the local ones only.
+   *
+   * @return {@code true} if the collections are coordinated among the nodes
+   */
+  boolean isCoordinated();
+}
@@ -0,0 +1,111 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a collector is due to run for a project.
+ *
+ * <p>Each collector and each project pattern can define a minimum interval between two runs. A
+ * collector runs for a project only when both the collector interval and the interval of the first
+ * project pattern matching the project have elapsed since its previous run. The previous runs of
+ * a project are forgotten along with its cached metrics.
+ */
+@Singleton
+public class CollectorIntervals implements GitRepoMetricsConfigListener, DroppedProjectListener {
+  private volatile Map<String, Long> collectorIntervalsMs;
+  private volatile Map<ProjectPattern, Long> projectIntervalsMs;
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, Long>> lastRunsMs =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  CollectorIntervals(GitRepoMetricsConfig config) {
+    onConfigReloaded(config);
+  }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    this.collectorIntervalsMs = config.getCollectorIntervalsMs();
+    this.projectIntervalsMs = config.getProjectIntervalsMs();
+  }
+
+  @Override
+  public void onProjectDropped(String projectName) {
+    lastRunsMs.remove(projectName);
+  }
+
+  /**
+   * Checks whether the collector is due to run for the project.
+   *
+   * <p>The run is not recorded, so that a collector failing or never reporting its metrics is
+   * retried at the next collection instead of after a whole interval.
+   *
+   * @param projectName name of the project
+   * @param collectorName name of the collector, as returned by {@code getMetricsCollectorName()}
+   * @return {@code true} if the collector is due to run
+   */
+  public boolean isDue(String projectName, String collectorName) {
+    return isDue(projectName, collectorName, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  boolean isDue(String projectName, String collectorName, long nowMs) {
+    long intervalMs = intervalMs(projectName, collectorName);
+    if (intervalMs <= 0) {
+      return true;
+    }
+
+    Map<String, Long> projectLastRunsMs = lastRunsMs.get(projectName);
+    Long lastRunMs = projectLastRunsMs == null ? null : projectLastRunsMs.get(collectorName);
+    return lastRunMs == null || nowMs - lastRunMs >= intervalMs;
+  }
+
+  /**
+   * Records a successful run of the collector for the project, which starts its next interval.
+   *
+   * @param projectName name of the project
+   * @param collectorName name of the collector, as returned by {@code getMetricsCollectorName()}
+   */
+  public void recordRun(String projectName, String collectorName) {
+    recordRun(projectName, collectorName, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  void recordRun(String projectName, String collectorName, long nowMs) {
+    if (intervalMs(projectName, collectorName) > 0) {
+      lastRunsMs
+          .computeIfAbsent(projectName, p -> new ConcurrentHashMap<>())
+          .put(collectorName, nowMs);
+    }
+  }
+
+  private long intervalMs(String projectName, String collectorName) {
+    return Math.max(
+        collectorIntervalsMs.getOrDefault(collectorName, 0L), projectIntervalMs(projectName));
+  }
+
+  private long projectIntervalMs(String projectName) {
+    return projectIntervalsMs.entrySet().stream()
+        .filter(e -> e.getKey().matches(projectName))
+        .findFirst()
+        .map(Map.Entry::getValue)
+        .orElse(0L);
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.flogger.FluentLogger;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A run of a metrics collector for a project, timed within its own execution.
+ *
+ * <p>Collectors report their metrics from a task they submit to the {@link
+ * UpdateGitMetricsExecutor}. While a collector is dispatched, its run is bound to the dispatching
+ * thread, so that the executor wraps the first task submitted by the collector. The run is then
+ * timed from the start of that task, excluding its wait in the queue, and completed at its end,
+ * even when the collector failed without reporting any metrics. Collectors running on their own
+ * executor are timed from their dispatch to their report instead.
+ */
+class CollectorRun {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final ThreadLocal<CollectorRun> dispatchingRun = new ThreadLocal<>();
+
+  private final String collectorName;
+  private final Consumer<HashMap<GitRepoMetric, Long>> onMetrics;
+  private final LongConsumer onCompleted;
+  private final AtomicBoolean completed = new AtomicBoolean();
+  private volatile boolean timedByExecutor;
+  private volatile boolean reported;
+  private long dispatchNanos;
+
+  /**
+   * @param collectorName name of the collector, for logging
+   * @param onMetrics receives the metrics reported by the collector
+   * @param onCompleted receives the duration of the run in nanoseconds, once and whatever its
+   *     outcome
+   */
+  CollectorRun(
+      String collectorName,
+      Consumer<HashMap<GitRepoMetric, Long>> onMetrics,
+      LongConsumer onCompleted) {
+    this.collectorName = collectorName;
+    this.onMetrics = onMetrics;
+    this.onCompleted = onCompleted;
+  }
+
+  /**
+   * Wraps a task submitted to the {@link UpdateGitMetricsExecutor}, timing it when submitted by a
+   * collector being dispatched.
+   *
+   * @param task the submitted task
+   * @return the task to execute
+   */
+  static Runnable wrap(Runnable task) {
+    CollectorRun run = dispatchingRun.get();
+    return run == null ? task : run.timed(task);
+  }
+
+  /**
+   * Dispatches the collector, passing it the callback to report its metrics with.
+   *
+   * @param collect dispatches the collector with the given callback
+   */
+  void dispatch(Consumer<Consumer<HashMap<GitRepoMetric, Long>>> collect) {
+    dispatchNanos = System.nanoTime();
+    dispatchingRun.set(this);
+    try {
+      collect.accept(this::report);
+    } catch (RuntimeException e) {
+      logger.atSevere().withCause(e).log("Collector %s failed", collectorName);
+      complete(System.nanoTime() - dispatchNanos);
+    } finally {
+      dispatchingRun.remove();
+    }
+  }
+
+  private Runnable timed(Runnable task) {
+    if (timedByExecutor) {
+      // Only the first task submitted by the collector is timed
+      return task;
+    }
+    timedByExecutor = true;
+    return new Runnable() {
+      @Override
+      public void run() {
+        long startNanos = System.nanoTime();
+        try {
+          task.run();
+        } finally {
+          if (!reported) {
+            logger.atFine().log("Collector %s did not report any metrics", collectorName);
+          }
+          complete(System.nanoTime() - startNanos);
+        }
+      }
+
+      @Override
+      public String toString() {
+        return task.toString();
+      }
+    };
+  }
+
+  private void report(HashMap<GitRepoMetric, Long> metrics) {
+    reported = true;
+    onMetrics.accept(metrics);
+    if (!timedByExecutor) {
+      complete(System.nanoTime() - dispatchNanos);
+    }
+  }
+
+  private void complete(long durationNanos) {
+    if (completed.compareAndSet(false, true)) {
+      onCompleted.accept(durationNanos);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Assigns keys to nodes with consistent hashing.
+ *
+ * <p>Every node is placed at several points of a hash ring, its virtual nodes, and owns the keys
+ * hashed between the previous point and each of its own. Adding or removing a node therefore only
+ * moves the keys of the ring portions taken or left by that node, while the keys are evenly spread
+ * over the nodes thanks to the virtual nodes. The assignment only depends on the set of nodes, so
+ * that all the nodes agree on it regardless of the order they are configured in.
+ */
+class ConsistentHashRing {
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final ImmutableSortedSet<String> nodes;
+  private final TreeMap<Long, String> ring = new TreeMap<>();
+
+  ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+    this.nodes = ImmutableSortedSet.copyOf(nodes);
+    for (String node : this.nodes) {
+      for (int i = 0; i < virtualNodes; i++) {
+        ring.putIfAbsent(hash(node + "#" + i), node);
+      }
+    }
+  }
+
+  ImmutableSortedSet<String> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the node owning the key.
+   *
+   * @param key the key to assign
+   * @return the owner of the key, or empty if there are no nodes
+   */
+  Optional<String> getNode(String key) {
+    if (ring.isEmpty()) {
+      return Optional.empty();
+    }
+    Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+    return Optional.of(owner != null ? owner.getValue() : ring.firstEntry().getValue());
+  }
+
+  private static long hash(String key) {
+    return HASH_FUNCTION.hashString(key, UTF_8).asLong();
+  }
+}
@@ -0,0 +1,47 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.gerrit.common.data.GlobalCapability;
+import com.google.gerrit.extensions.annotations.RequiresCapability;
+import com.google.gerrit.extensions.common.Input;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/** REST view cancelling the queued or running scan for the largest blobs of a project. */
+@Singleton
+@RequiresCapability(GlobalCapability.MAINTAIN_SERVER)
+class DeleteLargestBlobs implements RestModifyView<ProjectResource, Input> {
+  private final LargestBlobsScans largestBlobsScans;
+
+  @Inject
+  DeleteLargestBlobs(LargestBlobsScans largestBlobsScans) {
+    this.largestBlobsScans = largestBlobsScans;
+  }
+
+  @Override
+  public Response<GetLargestBlobs.LargestBlobsInfo> apply(ProjectResource resource, Input input)
+      throws ResourceNotFoundException {
+    return Response.ok(
+        largestBlobsScans
+            .cancel(resource.getName())
+            .map(GetLargestBlobs.LargestBlobsInfo::new)
+            .orElseThrow(() -> new ResourceNotFoundException("largest-blobs")));
+  }
+}
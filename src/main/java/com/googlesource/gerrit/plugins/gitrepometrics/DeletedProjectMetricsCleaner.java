@@ -0,0 +1,43 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.gerrit.extensions.events.ProjectDeletedListener;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Drops the cached metrics of the deleted projects, along with their derived state, and stops
+ * watching their objects directory.
+ */
+@Singleton
+public class DeletedProjectMetricsCleaner implements ProjectDeletedListener {
+  private final GitRepoMetricsCache gitRepoMetricsCache;
+  private final ObjectsDirectoryWatcher objectsDirectoryWatcher;
+
+  @Inject
+  DeletedProjectMetricsCleaner(
+      GitRepoMetricsCache gitRepoMetricsCache, ObjectsDirectoryWatcher objectsDirectoryWatcher) {
+    this.gitRepoMetricsCache = gitRepoMetricsCache;
+    this.objectsDirectoryWatcher = objectsDirectoryWatcher;
+  }
+
+  @Override
+  public void onProjectDeleted(Event event) {
+    String projectName = event.getProjectName();
+    gitRepoMetricsCache.dropMetrics(projectName::equals);
+    objectsDirectoryWatcher.forget(projectName);
+  }
+}
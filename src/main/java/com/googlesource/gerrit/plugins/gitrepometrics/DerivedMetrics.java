@@ -0,0 +1,46 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.Map;
+
+/**
+ * This interface is meant to be implemented by the stages computing additional metrics out of the
+ * ones collected for a project.
+ *
+ * <p>Every stage is invoked with the metrics reported by each collector, before they are stored,
+ * hence it must not block or access the repository.
+ */
+public interface DerivedMetrics {
+
+  /**
+   * Derives additional metrics from the collected ones.
+   *
+   * @param projectName name of the project the metrics were collected for
+   * @param collectedMetrics the metrics reported by a collector
+   * @param timestampMs time of the collection in milliseconds since the epoch
+   * @return the derived metrics, possibly empty
+   */
+  Map<GitRepoMetric, Long> derive(
+      String projectName, Map<GitRepoMetric, Long> collectedMetrics, long timestampMs);
+
+  /**
+   * Drops any state kept for the project, invoked once its cached metrics have been dropped.
+   *
+   * @param projectName name of the project
+   */
+  default void onProjectDropped(String projectName) {}
+}
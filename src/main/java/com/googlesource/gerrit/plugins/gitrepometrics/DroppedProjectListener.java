@@ -0,0 +1,30 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+/**
+ * Listener notified whenever the cached metrics of a project are dropped, because the project was
+ * deleted or is no longer collected by this node.
+ *
+ * <p>Implementations drop any state they keep for the project, so that it does not outlive it.
+ */
+public interface DroppedProjectListener {
+  /**
+   * Invoked after the cached metrics of the project have been dropped.
+   *
+   * @param projectName name of the project
+   */
+  void onProjectDropped(String projectName);
+}
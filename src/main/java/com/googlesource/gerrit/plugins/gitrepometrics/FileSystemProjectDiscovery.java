@@ -0,0 +1,214 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.config.GerritServerConfig;
+import com.google.gerrit.server.config.SitePaths;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
+
+/**
+ * Discovers the projects by walking the Git base path, looking for bare repositories, without
+ * relying on any Gerrit project metadata.
+ *
+ * <p>A directory is a repository when it contains a {@code HEAD} file and both the {@code objects}
+ * and {@code refs} directories. The name of the project is the path of the repository relative to
+ * the base path, without the {@code .git} suffix. The {@code .git} directories of non-bare
+ * repositories are not projects, hence skipped. The symbolic links are followed, except the ones
+ * pointing to a directory being walked, so that the walk does not loop.
+ *
+ * <p>The directories are walked in parallel and indexed with their modification time. The
+ * subsequent walks list again only the directories that have been modified since, i.e. where
+ * repositories or intermediate directories have been added or removed, and reuse the indexed
+ * entries of all the others.
+ */
+@Singleton
+public class FileSystemProjectDiscovery implements ProjectDiscovery, LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final String GIT_SUFFIX = Constants.DOT_GIT_EXT;
+  // Modifications within this interval may not change the timestamp on coarse-grained file systems
+  private static final long RACY_INTERVAL_MS = TimeUnit.SECONDS.toMillis(2);
+
+  private final Path basePath;
+  private final ForkJoinPool walkerPool;
+  private final Map<Path, DirectoryEntry> index = new ConcurrentHashMap<>();
+
+  @Inject
+  FileSystemProjectDiscovery(
+      @GerritServerConfig Config gerritConfig, SitePaths sitePaths, GitRepoMetricsConfig config) {
+    this(
+        sitePaths.resolve(gerritConfig.getString("gerrit", null, "basePath")),
+        config.getDiscoveryParallelism());
+  }
+
+  @VisibleForTesting
+  FileSystemProjectDiscovery(Path basePath, int parallelism) {
+    this.basePath = basePath;
+    this.walkerPool = new ForkJoinPool(parallelism);
+  }
+
+  @Override
+  public void start() {}
+
+  @Override
+  public void stop() {
+    walkerPool.shutdownNow();
+  }
+
+  @Override
+  public synchronized List<String> listProjectNames() {
+    Set<Path> visited = ConcurrentHashMap.newKeySet();
+    Set<Path> repositories = ConcurrentHashMap.newKeySet();
+    walkerPool.invoke(new DirectoryWalk(null, basePath, visited, repositories));
+    index.keySet().retainAll(visited);
+
+    logger.atFine().log("Discovered %d repositories under %s", repositories.size(), basePath);
+    return repositories.stream().map(this::projectName).sorted().collect(toList());
+  }
+
+  private String projectName(Path repository) {
+    String name = basePath.relativize(repository).toString().replace('\\', '/');
+    return name.endsWith(GIT_SUFFIX)
+        ? name.substring(0, name.length() - GIT_SUFFIX.length())
+        : name;
+  }
+
+  private static boolean isRepository(Path dir) {
+    return Files.isRegularFile(dir.resolve(Constants.HEAD))
+        && Files.isDirectory(dir.resolve(Constants.OBJECTS))
+        && Files.isDirectory(dir.resolve("refs"));
+  }
+
+  private static DirectoryEntry list(Path dir, FileTime lastModifiedTime) throws IOException {
+    boolean racy = System.currentTimeMillis() - lastModifiedTime.toMillis() < RACY_INTERVAL_MS;
+    if (isRepository(dir)) {
+      return new DirectoryEntry(lastModifiedTime, racy, true, List.of());
+    }
+
+    List<Path> subdirectories = new ArrayList<>();
+    try (DirectoryStream<Path> entries =
+        Files.newDirectoryStream(dir, FileSystemProjectDiscovery::isWalkable)) {
+      entries.forEach(subdirectories::add);
+    }
+    return new DirectoryEntry(lastModifiedTime, racy, false, subdirectories);
+  }
+
+  private static boolean isWalkable(Path entry) {
+    // The .git directory of a non-bare repository would be named after its parent directory
+    return Files.isDirectory(entry) && !entry.getFileName().toString().equals(Constants.DOT_GIT);
+  }
+
+  private static class DirectoryEntry {
+    final FileTime lastModifiedTime;
+    // Listed too close to its last modification, hence to be listed again at the next walk
+    final boolean racy;
+    final boolean repository;
+    final List<Path> subdirectories;
+
+    DirectoryEntry(
+        FileTime lastModifiedTime, boolean racy, boolean repository, List<Path> subdirectories) {
+      this.lastModifiedTime = lastModifiedTime;
+      this.racy = racy;
+      this.repository = repository;
+      this.subdirectories = subdirectories;
+    }
+  }
+
+  private class DirectoryWalk extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final DirectoryWalk parent;
+    private final Path dir;
+    private final Set<Path> visited;
+    private final Set<Path> repositories;
+    private Path realPath;
+
+    DirectoryWalk(DirectoryWalk parent, Path dir, Set<Path> visited, Set<Path> repositories) {
+      this.parent = parent;
+      this.dir = dir;
+      this.visited = visited;
+      this.repositories = repositories;
+    }
+
+    @Override
+    protected void compute() {
+      DirectoryEntry entry;
+      try {
+        realPath = dir.toRealPath();
+        if (isAncestor(realPath)) {
+          logger.atFine().log("Skipping %s, linked to one of its parent directories", dir);
+          return;
+        }
+        FileTime lastModifiedTime =
+            Files.readAttributes(dir, BasicFileAttributes.class).lastModifiedTime();
+        entry = index.get(dir);
+        if (entry == null || entry.racy || !entry.lastModifiedTime.equals(lastModifiedTime)) {
+          entry = list(dir, lastModifiedTime);
+          index.put(dir, entry);
+        }
+      } catch (NoSuchFileException e) {
+        // Concurrently removed, will be dropped from the index
+        return;
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Unable to walk directory %s", dir);
+        return;
+      }
+
+      visited.add(dir);
+      if (entry.repository) {
+        repositories.add(dir);
+        return;
+      }
+
+      List<DirectoryWalk> subdirectoryWalks = new ArrayList<>(entry.subdirectories.size());
+      for (Path subdirectory : entry.subdirectories) {
+        subdirectoryWalks.add(new DirectoryWalk(this, subdirectory, visited, repositories));
+      }
+      ForkJoinTask.invokeAll(subdirectoryWalks);
+    }
+
+    private boolean isAncestor(Path path) {
+      for (DirectoryWalk walk = parent; walk != null; walk = walk.parent) {
+        if (walk.realPath.equals(path)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scores how much every project needs a garbage collection, out of its pack, loose object, bitmap
+ * and keep file metrics.
+ *
+ * <p>The score is the weighted sum of the latest values of the input metrics, recomputed at
+ * collection time whenever any of them is collected.
+ */
+@Singleton
+public class GcPressureScore implements DerivedMetrics {
+  static final GitRepoMetric GC_PRESSURE_SCORE =
+      new GitRepoMetric(
+          "gcPressureScore", "Weighted score of the need for a garbage collection", "Score");
+
+  private static final ImmutableMap<String, Long> DEFAULT_WEIGHTS =
+      ImmutableMap.of(
+          "numberOfPackFiles", 1000L,
+          "numberOfLooseObjects", 1L,
+          "numberOfObjectsSinceBitmap", 1L,
+          "numberOfPackFilesSinceBitmap", 1000L,
+          "numberOfKeepFiles", 500L);
+
+  private final List<String> inputMetrics = new ArrayList<>();
+  private final long[] weights;
+  private final ConcurrentHashMap<String, long[]> inputValues = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Long> scores = new ConcurrentHashMap<>();
+
+  @Inject
+  GcPressureScore(GitRepoMetricsConfig config) {
+    weights = new long[DEFAULT_WEIGHTS.size()];
+    DEFAULT_WEIGHTS.forEach(
+        (metricName, defaultWeight) -> {
+          weights[inputMetrics.size()] = config.getGcScoreWeight(metricName, defaultWeight);
+          inputMetrics.add(metricName.toLowerCase(Locale.ROOT));
+        });
+  }
+
+  @Override
+  public Map<GitRepoMetric, Long> derive(
+      String projectName, Map<GitRepoMetric, Long> collectedMetrics, long timestampMs) {
+    long[] values = inputValues.computeIfAbsent(projectName, p -> new long[weights.length]);
+    synchronized (values) {
+      boolean updated = false;
+      for (Map.Entry<GitRepoMetric, Long> metric : collectedMetrics.entrySet()) {
+        int input = inputMetrics.indexOf(metric.getKey().getName().toLowerCase(Locale.ROOT));
+        if (input >= 0) {
+          values[input] = metric.getValue();
+          updated = true;
+        }
+      }
+      if (!updated) {
+        return ImmutableMap.of();
+      }
+
+      long score = 0;
+      for (int i = 0; i < weights.length; i++) {
+        score += weights[i] * values[i];
+      }
+      scores.put(projectName, score);
+      return ImmutableMap.of(GC_PRESSURE_SCORE, score);
+    }
+  }
+
+  @Override
+  public void onProjectDropped(String projectName) {
+    inputValues.remove(projectName);
+    scores.remove(projectName);
+  }
+
+  /**
+   * Returns the projects with the highest scores.
+   *
+   * @param limit maximum number of projects to return
+   * @return the projects and their scores, from the highest score to the lowest
+   */
+  public ImmutableList<Map.Entry<String, Long>> topProjects(int limit) {
+    if (limit <= 0) {
+      return ImmutableList.of();
+    }
+
+    Comparator<Map.Entry<String, Long>> byScore = comparingLong(Map.Entry::getValue);
+    PriorityQueue<Map.Entry<String, Long>> lowestFirst = new PriorityQueue<>(limit + 1, byScore);
+    for (Map.Entry<String, Long> score : scores.entrySet()) {
+      lowestFirst.add(Map.entry(score.getKey(), score.getValue()));
+      if (lowestFirst.size() > limit) {
+        lowestFirst.poll();
+      }
+    }
+    return lowestFirst.stream().sorted(byScore.reversed()).collect(ImmutableList.toImmutableList());
+  }
+}
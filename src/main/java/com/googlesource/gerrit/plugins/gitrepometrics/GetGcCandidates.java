@@ -0,0 +1,66 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.common.data.GlobalCapability;
+import com.google.gerrit.extensions.annotations.RequiresCapability;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.inject.Inject;
+import org.kohsuke.args4j.Option;
+
+/** REST view returning the projects most in need of a garbage collection. */
+@RequiresCapability(GlobalCapability.MAINTAIN_SERVER)
+class GetGcCandidates implements RestReadView<ConfigResource> {
+  private final GcPressureScore gcPressureScore;
+  private int limit;
+
+  @Option(
+      name = "--limit",
+      aliases = {"-n"},
+      metaVar = "CNT",
+      usage = "maximum number of projects to return")
+  void setLimit(int limit) {
+    this.limit = limit;
+  }
+
+  @Inject
+  GetGcCandidates(GcPressureScore gcPressureScore, GitRepoMetricsConfig config) {
+    this.gcPressureScore = gcPressureScore;
+    this.limit = config.getGcCandidatesLimit();
+  }
+
+  @Override
+  public Response<ImmutableList<GcCandidateInfo>> apply(ConfigResource resource) {
+    return Response.ok(
+        gcPressureScore.topProjects(limit).stream()
+            .map(score -> new GcCandidateInfo(score.getKey(), score.getValue()))
+            .collect(toImmutableList()));
+  }
+
+  static class GcCandidateInfo {
+    String project;
+    long score;
+
+    GcCandidateInfo(String project, long score) {
+      this.project = project;
+      this.score = score;
+    }
+  }
+}
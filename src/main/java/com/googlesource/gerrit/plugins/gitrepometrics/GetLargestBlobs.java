@@ -0,0 +1,77 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.common.data.GlobalCapability;
+import com.google.gerrit.extensions.annotations.RequiresCapability;
+import com.google.gerrit.extensions.restapi.ResourceNotFoundException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.LargestBlobsScan;
+
+/** REST view returning the progress and the outcome of the scan for the largest blobs. */
+@Singleton
+@RequiresCapability(GlobalCapability.MAINTAIN_SERVER)
+class GetLargestBlobs implements RestReadView<ProjectResource> {
+  private final LargestBlobsScans largestBlobsScans;
+
+  @Inject
+  GetLargestBlobs(LargestBlobsScans largestBlobsScans) {
+    this.largestBlobsScans = largestBlobsScans;
+  }
+
+  @Override
+  public Response<LargestBlobsInfo> apply(ProjectResource resource)
+      throws ResourceNotFoundException {
+    return Response.ok(
+        largestBlobsScans
+            .get(resource.getName())
+            .map(LargestBlobsInfo::new)
+            .orElseThrow(() -> new ResourceNotFoundException("largest-blobs")));
+  }
+
+  static class LargestBlobsInfo {
+    LargestBlobsScan.State state;
+    long scannedObjects;
+    long totalObjects;
+    ImmutableList<BlobInfo> blobs;
+
+    LargestBlobsInfo(LargestBlobsScan scan) {
+      this.state = scan.getState();
+      this.scannedObjects = scan.getScannedObjects();
+      this.totalObjects = scan.getTotalObjects();
+      this.blobs =
+          scan.getLargestBlobs().stream()
+              .map(blob -> new BlobInfo(blob.id, blob.size))
+              .collect(toImmutableList());
+    }
+  }
+
+  static class BlobInfo {
+    String id;
+    long size;
+
+    BlobInfo(String id, long size) {
+      this.id = id;
+      this.size = size;
+    }
+  }
+}
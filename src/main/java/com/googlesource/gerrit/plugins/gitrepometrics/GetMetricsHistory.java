@@ -0,0 +1,43 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.common.data.GlobalCapability;
+import com.google.gerrit.extensions.annotations.RequiresCapability;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Map;
+
+/** REST view returning the recent samples of the metrics of a project. */
+@Singleton
+@RequiresCapability(GlobalCapability.MAINTAIN_SERVER)
+class GetMetricsHistory implements RestReadView<ProjectResource> {
+  private final MetricsHistory metricsHistory;
+
+  @Inject
+  GetMetricsHistory(MetricsHistory metricsHistory) {
+    this.metricsHistory = metricsHistory;
+  }
+
+  @Override
+  public Response<Map<String, ImmutableList<MetricsHistory.Sample>>> apply(
+      ProjectResource resource) {
+    return Response.ok(metricsHistory.getHistory(resource.getName()));
+  }
+}
@@ -34,6 +34,13 @@ public enum GitBackend {
           sha256OfProjectName.substring(2, 4),
           sha256OfProjectName);
     }
+  },
+
+  FILESYSTEM {
+    @Override
+    public String repoPath(String projectName) {
+      return projectName;
+    }
   };
 
   abstract String repoPath(String projectName);
@@ -15,6 +15,7 @@
 package com.googlesource.gerrit.plugins.gitrepometrics;
 
 import static com.google.gerrit.metrics.Field.ofProjectName;
+import static java.util.stream.Collectors.toList;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.flogger.FluentLogger;
@@ -23,37 +24,56 @@ import com.google.gerrit.metrics.CallbackMetric1;
 import com.google.gerrit.metrics.Description;
 import com.google.gerrit.metrics.MetricMaker;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.MetricsCollector;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
-public class GitRepoMetricsCache {
+public class GitRepoMetricsCache implements GitRepoMetricsConfigListener {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private final ConcurrentHashMap<String, ConcurrentHashMap<String, Long>> metrics;
+  private final ConcurrentHashMap<String, GitRepoMetric> metricDefinitions;
   private final MetricMaker metricMaker;
-  private final Set<String> projects;
-  private final boolean collectAllRepositories;
+  private final GitRepoMetricsConfig config;
   private final ProjectlessMetricsTracker metricsTracker;
   private final DynamicSet<MetricsCollector> collectors;
+  private final DynamicSet<DerivedMetrics> derivedMetrics;
+  private final DynamicSet<DroppedProjectListener> droppedProjectListeners;
   private final Set<String> staleStatsProjects;
+  private final ConcurrentHashMap<String, Long> lastCollectionTimesMs;
+  private final MetricsRefreshPolicy refreshPolicy;
+  private final Provider<CollectionCoordinator> collectionCoordinator;
 
   @Inject
   GitRepoMetricsCache(
       DynamicSet<MetricsCollector> collectors,
+      DynamicSet<DerivedMetrics> derivedMetrics,
+      DynamicSet<DroppedProjectListener> droppedProjectListeners,
       MetricMaker metricMaker,
       ProjectlessMetricsTracker metricsTracker,
-      GitRepoMetricsConfig config) {
+      GitRepoMetricsConfig config,
+      MetricsRefreshPolicy refreshPolicy,
+      Provider<CollectionCoordinator> collectionCoordinator) {
     this.collectors = collectors;
+    this.derivedMetrics = derivedMetrics;
+    this.droppedProjectListeners = droppedProjectListeners;
     this.metricMaker = metricMaker;
     this.metricsTracker = metricsTracker;
-    this.projects = new HashSet<>(config.getRepositoryNames());
+    this.config = config;
     this.metrics = new ConcurrentHashMap<>();
-    this.collectAllRepositories = config.collectAllRepositories();
+    this.metricDefinitions = new ConcurrentHashMap<>();
     this.staleStatsProjects = ConcurrentHashMap.newKeySet();
+    this.lastCollectionTimesMs = new ConcurrentHashMap<>();
+    this.refreshPolicy = refreshPolicy;
+    this.collectionCoordinator = collectionCoordinator;
   }
 
   @VisibleForTesting
@@ -61,19 +81,114 @@ public class GitRepoMetricsCache {
     return metrics;
   }
 
-  public void setMetrics(Map<GitRepoMetric, Long> newMetrics, String projectName) {
+  /**
+   * Caches the collected metrics of the project, unless it is no longer selected or collected by
+   * this node, e.g. because the configuration was reloaded while its collection was running.
+   *
+   * @param newMetrics the collected metrics values
+   * @param projectName name of the project
+   */
+  public synchronized void setMetrics(Map<GitRepoMetric, Long> newMetrics, String projectName) {
+    if (!config.getProjectFilter().matches(projectName)) {
+      logger.atFine().log("Ignoring metrics of project %s, no longer selected", projectName);
+      return;
+    }
+    if (!collectionCoordinator.get().isCollecting(projectName)) {
+      logger.atFine().log(
+          "Ignoring metrics of project %s, no longer collected by this node", projectName);
+      return;
+    }
+
     newMetrics.forEach(
-        (repoMetric, value) -> {
-          String metricsName = repoMetric.getName().toLowerCase(Locale.ROOT);
-          metrics
-              .computeIfAbsent(metricsName, (m) -> new ConcurrentHashMap<>())
-              .put(projectName.toLowerCase(Locale.ROOT), value);
-          if (!metricsTracker.metricExists(metricsName)) {
-            createNewCallbackMetric(repoMetric);
+        (repoMetric, value) ->
+            projectsMetrics(repoMetric).put(projectName.toLowerCase(Locale.ROOT), value));
+    refreshCollectionTime(projectName);
+  }
+
+  /**
+   * Returns a copy of all the cached metrics, keyed by their definition and then by the lower case
+   * name of the project.
+   *
+   * @return the cached metrics values
+   */
+  public Map<GitRepoMetric, Map<String, Long>> exportMetrics() {
+    Map<GitRepoMetric, Map<String, Long>> exported = new HashMap<>();
+    metricDefinitions.forEach(
+        (metricsName, repoMetric) ->
+            exported.put(repoMetric, new HashMap<>(metrics.get(metricsName))));
+    return exported;
+  }
+
+  /**
+   * Replaces all the cached metrics with the ones collected elsewhere, for instance by another node
+   * sharing the same repositories.
+   *
+   * <p>The collection times are left untouched, as the metrics were not collected locally.
+   *
+   * @param importedMetrics the metrics values, keyed by their definition and then by the lower case
+   *     name of the project
+   */
+  public synchronized void importMetrics(Map<GitRepoMetric, Map<String, Long>> importedMetrics) {
+    Set<String> importedMetricsNames = new HashSet<>();
+    importedMetrics.forEach(
+        (repoMetric, projectsValues) -> {
+          importedMetricsNames.add(repoMetric.getName().toLowerCase(Locale.ROOT));
+          Map<String, Long> projectsMetrics = projectsMetrics(repoMetric);
+          projectsMetrics.putAll(projectsValues);
+          projectsMetrics.keySet().retainAll(projectsValues.keySet());
+        });
+    metrics.forEach(
+        (metricsName, projectsMetrics) -> {
+          if (!importedMetricsNames.contains(metricsName)) {
+            projectsMetrics.clear();
           }
         });
   }
 
+  private Map<String, Long> projectsMetrics(GitRepoMetric repoMetric) {
+    String metricsName = repoMetric.getName().toLowerCase(Locale.ROOT);
+    Map<String, Long> projectsMetrics =
+        metrics.computeIfAbsent(metricsName, (m) -> new ConcurrentHashMap<>());
+    metricDefinitions.putIfAbsent(metricsName, repoMetric);
+    if (!metricsTracker.metricExists(metricsName)) {
+      createNewCallbackMetric(repoMetric);
+    }
+    return projectsMetrics;
+  }
+
+  /**
+   * Records that the metrics of the project are up-to-date as of now, without changing their
+   * values.
+   *
+   * @param projectName name of the project
+   */
+  public void refreshCollectionTime(String projectName) {
+    lastCollectionTimesMs.put(projectName, System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the time of the latest collection of the project metrics.
+   *
+   * @param projectName name of the project
+   * @return the time in milliseconds since the epoch, or empty if never collected
+   */
+  public Optional<Long> getLastCollectionTimeMs(String projectName) {
+    return Optional.ofNullable(lastCollectionTimesMs.get(projectName));
+  }
+
+  /**
+   * Returns the projects whose metrics were last collected before the given time.
+   *
+   * @param timeMs time in milliseconds since the epoch
+   * @return the names of the projects collected before {@code timeMs}
+   */
+  public List<String> getProjectsCollectedBefore(long timeMs) {
+    return lastCollectionTimesMs.entrySet().stream()
+        .filter(e -> e.getValue() < timeMs)
+        .map(Map.Entry::getKey)
+        .collect(toList());
+  }
+
   private void createNewCallbackMetric(GitRepoMetric metric) {
     String metricName = metric.getName();
     CallbackMetric1<String, Long> cb =
@@ -85,8 +200,9 @@ public class GitRepoMetricsCache {
     metricMaker.newTrigger(
         cb,
         () -> {
+          refreshPolicy.onScrape();
           Map<String, Long> projectsMetrics = metrics.get(metricName.toLowerCase(Locale.ROOT));
-          if (projectsMetrics == null || projectsMetrics.isEmpty()) {
+          if (projectsMetrics == null) {
             throw new IllegalStateException(
                 "Unexpected empty project metrics when populating '" + metricName + "'");
           } else {
@@ -101,10 +217,56 @@ public class GitRepoMetricsCache {
   }
 
   public boolean shouldCollectStats(String projectName) {
-    return (collectAllRepositories || projects.contains(projectName))
+    return config.getProjectFilter().matches(projectName)
         && !staleStatsProjects.contains(projectName);
   }
 
+  /**
+   * Drops the cached metrics of the projects that are no longer selected by the reloaded
+   * configuration, keeping the ones of all the other projects.
+   */
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    ProjectFilter projectFilter = config.getProjectFilter();
+    dropMetrics(projectName -> !projectFilter.matches(projectName));
+  }
+
+  /**
+   * Drops the cached metrics of the projects matching the predicate, along with the state kept for
+   * them by the {@link DerivedMetrics} stages and the {@link DroppedProjectListener}s.
+   *
+   * <p>The projects whose metrics were imported from another node are only known by their lower
+   * case name, which is the one tested against the predicate.
+   *
+   * @param projectNames selects the names of the projects to drop
+   */
+  public synchronized void dropMetrics(Predicate<String> projectNames) {
+    Set<String> metricsProjectNames = new HashSet<>();
+    metrics
+        .values()
+        .forEach(projectsMetrics -> metricsProjectNames.addAll(projectsMetrics.keySet()));
+    for (String projectName : lastCollectionTimesMs.keySet()) {
+      String metricsProjectName = projectName.toLowerCase(Locale.ROOT);
+      metricsProjectNames.remove(metricsProjectName);
+      if (projectNames.test(projectName)) {
+        lastCollectionTimesMs.remove(projectName);
+        dropProject(projectName, metricsProjectName);
+      }
+    }
+    for (String metricsProjectName : metricsProjectNames) {
+      if (projectNames.test(metricsProjectName)) {
+        dropProject(metricsProjectName, metricsProjectName);
+      }
+    }
+  }
+
+  private void dropProject(String projectName, String metricsProjectName) {
+    logger.atInfo().log("Dropping metrics of project %s", projectName);
+    metrics.values().forEach(projectsMetrics -> projectsMetrics.remove(metricsProjectName));
+    derivedMetrics.forEach(derived -> derived.onProjectDropped(projectName));
+    droppedProjectListeners.forEach(listener -> listener.onProjectDropped(projectName));
+  }
+
   public void setStale(String projectName) {
     staleStatsProjects.add(projectName);
   }
@@ -16,28 +16,108 @@ package com.googlesource.gerrit.plugins.gitrepometrics;
 
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.gerrit.extensions.annotations.PluginName;
 import com.google.gerrit.server.config.PluginConfigFactory;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.eclipse.jgit.lib.Config;
 
 @Singleton
 public class GitRepoMetricsConfig {
+  private static final String COLLECTOR_SECTION = "collector";
+  private static final String PROJECT_SECTION = "project";
+  private static final String RATE_SECTION = "rate";
+  private static final String FORECAST_SECTION = "forecast";
+  private static final String GC_SCORE_SECTION = "gcScore";
+  private static final long DEFAULT_BACKGROUND_COLLECTION_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+  private static final long DEFAULT_REPOSITORY_PATH_CACHE_SIZE = 10_000L;
+  private static final long DEFAULT_HOT_REPOSITORY_IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+  private static final long DEFAULT_CONFIG_RELOAD_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+  private static final long DEFAULT_LEASE_DURATION_MS = TimeUnit.MINUTES.toMillis(1);
+  private static final long DEFAULT_SNAPSHOT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+  private static final int DEFAULT_SHARD_VIRTUAL_NODES = 100;
+  // Same limits as the gc.auto and gc.autoPackLimit settings of Git for the object counts
+  private static final ImmutableMap<String, Long> DEFAULT_FORECAST_THRESHOLDS =
+      ImmutableMap.of(
+          "sizeOfPackedObjects", 10L * 1024 * 1024 * 1024,
+          "numberOfLooseObjects", 6700L,
+          "numberOfPackFiles", 50L);
+
   private final String pluginName;
-  private final Config config;
+  private volatile Config config;
+  private volatile ProjectFilter projectFilter;
+  private volatile ProjectFilter hotProjectFilter;
 
   @Inject
   public GitRepoMetricsConfig(PluginConfigFactory configFactory, @PluginName String pluginName) {
-    config = configFactory.getGlobalPluginConfig(pluginName);
     this.pluginName = pluginName;
+    reload(configFactory.getGlobalPluginConfig(pluginName));
+  }
+
+  /**
+   * Replaces the current settings with the ones of a newly loaded configuration.
+   *
+   * <p>The project filters are built before any setting is replaced, so that an invalid
+   * configuration leaves the current settings untouched.
+   *
+   * @param newConfig the newly loaded configuration
+   * @throws java.util.regex.PatternSyntaxException if a project pattern is invalid
+   */
+  void reload(Config newConfig) {
+    ProjectFilter newProjectFilter =
+        new ProjectFilter(
+            newConfig.getBoolean(pluginName, null, "collectAllRepositories", false),
+            getStringList(newConfig, "project"),
+            getStringList(newConfig, "excludeProject"));
+    ProjectFilter newHotProjectFilter =
+        new ProjectFilter(false, getStringList(newConfig, "hotProject"), List.of());
+    projectFilter = newProjectFilter;
+    hotProjectFilter = newHotProjectFilter;
+    config = newConfig;
+  }
+
+  private List<String> getStringList(Config fromConfig, String name) {
+    return Arrays.stream(fromConfig.getStringList(pluginName, null, name)).collect(toList());
   }
 
   public List<String> getRepositoryNames() {
-    return Arrays.stream(config.getStringList(pluginName, null, "project")).collect(toList());
+    return getStringList(config, "project");
+  }
+
+  public List<String> getExcludedRepositoryNames() {
+    return getStringList(config, "excludeProject");
+  }
+
+  public ProjectFilter getProjectFilter() {
+    return projectFilter;
+  }
+
+  public List<String> getHotRepositoryNames() {
+    return getStringList(config, "hotProject");
+  }
+
+  public ProjectFilter getHotProjectFilter() {
+    return hotProjectFilter;
+  }
+
+  public long getHotRepositoryIdleTimeoutMs() {
+    return config.getTimeUnit(
+        pluginName,
+        null,
+        "hotRepositoryIdleTimeout",
+        DEFAULT_HOT_REPOSITORY_IDLE_TIMEOUT_MS,
+        TimeUnit.MILLISECONDS);
   }
 
   public Long getGracePeriodMs() {
@@ -48,14 +128,190 @@ public class GitRepoMetricsConfig {
     return config.getBoolean(pluginName, "forcedCollection", false);
   }
 
+  public boolean isSkipUnchangedRepositories() {
+    return config.getBoolean(pluginName, null, "skipUnchangedRepositories", false);
+  }
+
+  public long getLazyCollectionTtlMs() {
+    return config.getTimeUnit(pluginName, null, "lazyCollectionTtl", 0L, TimeUnit.MILLISECONDS);
+  }
+
   public int getPoolSize() {
     return config.getInt(pluginName, null, "poolSize", 1);
   }
 
+  public long getConfigReloadIntervalMs() {
+    return config.getTimeUnit(
+        pluginName,
+        null,
+        "configReloadInterval",
+        DEFAULT_CONFIG_RELOAD_INTERVAL_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public long getRepositoryPathCacheSize() {
+    return config.getLong(
+        pluginName, null, "repositoryPathCacheSize", DEFAULT_REPOSITORY_PATH_CACHE_SIZE);
+  }
+
+  public int getDiscoveryParallelism() {
+    return config.getInt(
+        pluginName, null, "discoveryParallelism", Runtime.getRuntime().availableProcessors());
+  }
+
+  public int getBackgroundPoolSize() {
+    return config.getInt(pluginName, null, "backgroundPoolSize", 1);
+  }
+
+  public long getBackgroundCollectionTimeoutMs() {
+    return config.getTimeUnit(
+        pluginName,
+        null,
+        "backgroundCollectionTimeout",
+        DEFAULT_BACKGROUND_COLLECTION_TIMEOUT_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
   public boolean collectAllRepositories() {
     return config.getBoolean(pluginName, null, "collectAllRepositories", false);
   }
 
+  public Map<String, Long> getCollectorIntervalsMs() {
+    Map<String, Long> intervals = new HashMap<>();
+    for (String collectorName : config.getSubsections(COLLECTOR_SECTION)) {
+      intervals.put(collectorName, getIntervalMs(COLLECTOR_SECTION, collectorName));
+    }
+    return intervals;
+  }
+
+  public Map<ProjectPattern, Long> getProjectIntervalsMs() {
+    Map<ProjectPattern, Long> intervals = new LinkedHashMap<>();
+    for (String pattern : config.getSubsections(PROJECT_SECTION)) {
+      intervals.put(new ProjectPattern(pattern), getIntervalMs(PROJECT_SECTION, pattern));
+    }
+    return intervals;
+  }
+
+  public boolean isCollectorEnabled(String collectorName) {
+    return config.getBoolean(COLLECTOR_SECTION, collectorName, "enabled", false);
+  }
+
+  public boolean getCollectorSetting(String collectorName, String name, boolean defaultValue) {
+    return config.getBoolean(COLLECTOR_SECTION, collectorName, name, defaultValue);
+  }
+
+  public long getCollectorSetting(String collectorName, String name, long defaultValue) {
+    return config.getLong(COLLECTOR_SECTION, collectorName, name, defaultValue);
+  }
+
+  public long getCollectorTimeSetting(String collectorName, String name, long defaultValueMs) {
+    return config.getTimeUnit(
+        COLLECTOR_SECTION, collectorName, name, defaultValueMs, TimeUnit.MILLISECONDS);
+  }
+
+  private long getIntervalMs(String section, String subsection) {
+    return config.getTimeUnit(section, subsection, "interval", 0L, TimeUnit.MILLISECONDS);
+  }
+
+  public int getHistorySize() {
+    return config.getInt(pluginName, null, "historySize", 0);
+  }
+
+  public List<String> getHistoryMetrics() {
+    return Arrays.stream(config.getStringList(pluginName, null, "historyMetric"))
+        .collect(toList());
+  }
+
+  public Map<String, String> getRateSourceMetrics() {
+    Map<String, String> sourceMetrics = new LinkedHashMap<>();
+    for (String rateName : config.getSubsections(RATE_SECTION)) {
+      String sourceMetric = config.getString(RATE_SECTION, rateName, "metric");
+      if (sourceMetric != null) {
+        sourceMetrics.put(rateName, sourceMetric);
+      }
+    }
+    return sourceMetrics;
+  }
+
+  public long getRatePeriodMs(String rateName) {
+    return config.getTimeUnit(
+        RATE_SECTION, rateName, "period", TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+  }
+
+  public boolean isGrowthForecast() {
+    return config.getBoolean(pluginName, null, "growthForecast", false);
+  }
+
+  public Map<String, Long> getForecastThresholds() {
+    Map<String, Long> thresholds = new LinkedHashMap<>();
+    Set<String> metricNames = new LinkedHashSet<>(DEFAULT_FORECAST_THRESHOLDS.keySet());
+    metricNames.addAll(config.getSubsections(FORECAST_SECTION));
+    for (String metricName : metricNames) {
+      long threshold =
+          config.getLong(
+              FORECAST_SECTION,
+              metricName,
+              "threshold",
+              DEFAULT_FORECAST_THRESHOLDS.getOrDefault(metricName, 0L));
+      if (threshold > 0) {
+        thresholds.put(metricName, threshold);
+      }
+    }
+    return thresholds;
+  }
+
+  public boolean isGcPressureScore() {
+    return config.getBoolean(pluginName, null, "gcPressureScore", false);
+  }
+
+  public long getGcScoreWeight(String metricName, long defaultWeight) {
+    return config.getLong(GC_SCORE_SECTION, metricName, "weight", defaultWeight);
+  }
+
+  public int getGcCandidatesLimit() {
+    return config.getInt(pluginName, null, "gcCandidatesLimit", 10);
+  }
+
+  public int getLargestBlobsLimit() {
+    return config.getInt(pluginName, null, "largestBlobsLimit", 20);
+  }
+
+  public int getLargestBlobsMaxLimit() {
+    return config.getInt(pluginName, null, "largestBlobsMaxLimit", 1000);
+  }
+
+  public int getLargestBlobsPoolSize() {
+    return config.getInt(pluginName, null, "largestBlobsPoolSize", 1);
+  }
+
+  public Optional<Path> getCoordinationDirectory() {
+    return Optional.ofNullable(config.getString(pluginName, null, "coordinationDirectory"))
+        .map(Path::of);
+  }
+
+  public long getLeaseDurationMs() {
+    return config.getTimeUnit(
+        pluginName, null, "leaseDuration", DEFAULT_LEASE_DURATION_MS, TimeUnit.MILLISECONDS);
+  }
+
+  public long getSnapshotIntervalMs() {
+    return config.getTimeUnit(
+        pluginName, null, "snapshotInterval", DEFAULT_SNAPSHOT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  public List<String> getShardNodes() {
+    return Arrays.stream(config.getStringList(pluginName, null, "shardNode")).collect(toList());
+  }
+
+  public int getShardVirtualNodes() {
+    return config.getInt(pluginName, null, "shardVirtualNodes", DEFAULT_SHARD_VIRTUAL_NODES);
+  }
+
+  public long getReplicationBatchWindowMs() {
+    return config.getTimeUnit(
+        pluginName, null, "replicationBatchWindow", 0L, TimeUnit.MILLISECONDS);
+  }
+
   public GitBackend getGitBackend() {
     return config.getEnum(pluginName, null, "gitBackend", GitBackend.GERRIT);
   }
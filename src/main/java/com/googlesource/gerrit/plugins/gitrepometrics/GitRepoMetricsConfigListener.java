@@ -0,0 +1,30 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+/**
+ * Listener notified whenever the plugin configuration is reloaded, without restarting the plugin.
+ *
+ * <p>Implementations re-read the settings they depend on from the {@link GitRepoMetricsConfig} and
+ * apply them to their running state.
+ */
+public interface GitRepoMetricsConfigListener {
+  /**
+   * Invoked after the configuration has been reloaded.
+   *
+   * @param config the reloaded configuration
+   */
+  void onConfigReloaded(GitRepoMetricsConfig config);
+}
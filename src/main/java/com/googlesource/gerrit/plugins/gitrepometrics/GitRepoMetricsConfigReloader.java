@@ -0,0 +1,131 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.server.config.SitePaths;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * Periodically checks whether the plugin configuration file has been modified and, when it is,
+ * reloads it and notifies all the {@link GitRepoMetricsConfigListener}s.
+ */
+@Singleton
+public class GitRepoMetricsConfigReloader implements LifecycleListener, Runnable {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final ScheduledExecutorService backgroundExecutor;
+  private final GitRepoMetricsConfig config;
+  private final DynamicSet<GitRepoMetricsConfigListener> listeners;
+  private final FileBasedConfig fileConfig;
+  private ScheduledFuture<?> reloaderTask;
+
+  @Inject
+  GitRepoMetricsConfigReloader(
+      @BackgroundGitMetricsExecutor ScheduledExecutorService backgroundExecutor,
+      GitRepoMetricsConfig config,
+      DynamicSet<GitRepoMetricsConfigListener> listeners,
+      SitePaths sitePaths,
+      @PluginName String pluginName) {
+    this.backgroundExecutor = backgroundExecutor;
+    this.config = config;
+    this.listeners = listeners;
+    this.fileConfig =
+        new FileBasedConfig(
+            sitePaths.etc_dir.resolve(pluginName + ".config").toFile(), FS.DETECTED);
+  }
+
+  @Override
+  public void start() {
+    long reloadIntervalMs = config.getConfigReloadIntervalMs();
+    if (reloadIntervalMs <= 0) {
+      return;
+    }
+
+    // Snapshot the file as loaded at startup, so that only subsequent changes are reloaded
+    load();
+    reloaderTask =
+        backgroundExecutor.scheduleAtFixedRate(
+            this, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    if (reloaderTask != null) {
+      reloaderTask.cancel(true);
+    }
+  }
+
+  @Override
+  public void run() {
+    if (!fileConfig.isOutdated() || !load()) {
+      return;
+    }
+
+    logger.atInfo().log("Reloading configuration from %s", fileConfig.getFile());
+    // Copy the settings, as the file config is loaded again in place at the next change
+    Config reloadedConfig = new Config();
+    try {
+      reloadedConfig.fromText(fileConfig.toText());
+    } catch (ConfigInvalidException e) {
+      logger.atSevere().withCause(e).log("Unable to copy %s", fileConfig.getFile());
+      return;
+    }
+    try {
+      config.reload(reloadedConfig);
+    } catch (RuntimeException e) {
+      // Thrown out of the task, the exception would cancel any further reload
+      logger.atSevere().withCause(e).log(
+          "Invalid configuration in %s, keeping the current one", fileConfig.getFile());
+      return;
+    }
+    for (GitRepoMetricsConfigListener listener : listeners) {
+      try {
+        listener.onConfigReloaded(config);
+      } catch (RuntimeException e) {
+        logger.atSevere().withCause(e).log(
+            "Unable to apply the reloaded configuration to %s", listener);
+      }
+    }
+  }
+
+  private boolean load() {
+    try {
+      fileConfig.load();
+      return true;
+    } catch (IOException | ConfigInvalidException e) {
+      logger.atSevere().withCause(e).log(
+          "Unable to load %s, keeping the current configuration", fileConfig.getFile());
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "GitRepoMetricsConfigReloader";
+  }
+}
@@ -14,6 +14,8 @@
 
 package com.googlesource.gerrit.plugins.gitrepometrics;
 
+import static java.util.stream.Collectors.toList;
+
 import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -21,43 +23,85 @@ import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Singleton
-public class GitRepoMetricsScheduler implements LifecycleListener, Runnable {
+public class GitRepoMetricsScheduler
+    implements LifecycleListener, Runnable, GitRepoMetricsConfigListener {
 
-  private final ScheduledExecutorService metricsExecutor;
-  private final UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory;
-  private final Long gracePeriodMs;
+  private final ScheduledExecutorService backgroundExecutor;
+  private final BackgroundCollectionLane backgroundCollectionLane;
+  private final GitRepoMetricsConfig config;
+  private long gracePeriodMs;
   private ScheduledFuture<?> updaterTask;
-  private List<String> repositoryNames;
+  private final ProjectDiscovery projectDiscovery;
+  private final CollectionCoordinator collectionCoordinator;
 
   @Inject
   public GitRepoMetricsScheduler(
-      @UpdateGitMetricsExecutor ScheduledExecutorService metricsExecutor,
+      @BackgroundGitMetricsExecutor ScheduledExecutorService backgroundExecutor,
       GitRepoMetricsConfig config,
-      UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory) {
-    this.metricsExecutor = metricsExecutor;
-    repositoryNames = config.getRepositoryNames();
+      BackgroundCollectionLane backgroundCollectionLane,
+      ProjectDiscovery projectDiscovery,
+      CollectionCoordinator collectionCoordinator) {
+    this.backgroundExecutor = backgroundExecutor;
+    this.config = config;
+    this.projectDiscovery = projectDiscovery;
+    this.collectionCoordinator = collectionCoordinator;
     gracePeriodMs = config.getGracePeriodMs();
-    this.updateGitMetricsTaskFactory = updateGitMetricsTaskFactory;
+    this.backgroundCollectionLane = backgroundCollectionLane;
   }
 
   @Override
-  public void start() {
-    updaterTask =
-        metricsExecutor.scheduleAtFixedRate(
-            this, gracePeriodMs, gracePeriodMs, TimeUnit.MILLISECONDS);
+  public synchronized void start() {
+    schedule();
   }
 
   @Override
-  public void stop() {
+  public synchronized void stop() {
     updaterTask.cancel(true);
   }
 
+  @Override
+  public synchronized void onConfigReloaded(GitRepoMetricsConfig config) {
+    long newGracePeriodMs = config.getGracePeriodMs();
+    if (newGracePeriodMs == gracePeriodMs) {
+      return;
+    }
+
+    gracePeriodMs = newGracePeriodMs;
+    if (updaterTask != null) {
+      updaterTask.cancel(false);
+      schedule();
+    }
+  }
+
+  private void schedule() {
+    updaterTask =
+        gracePeriodMs > 0
+            ? backgroundExecutor.scheduleAtFixedRate(
+                this, gracePeriodMs, gracePeriodMs, TimeUnit.MILLISECONDS)
+            : backgroundExecutor.schedule(this, 0, TimeUnit.MILLISECONDS);
+  }
+
   @Override
   public void run() {
-    repositoryNames.stream()
-        .map(updateGitMetricsTaskFactory::create)
-        .forEach(metricsExecutor::execute);
+    if (!collectionCoordinator.isCollecting()) {
+      // Skip listing all the projects, their collection would be skipped anyway
+      return;
+    }
+    backgroundCollectionLane.submit(projectsToCollect());
+  }
+
+  private List<String> projectsToCollect() {
+    ProjectFilter projectFilter = config.getProjectFilter();
+    Stream<String> projectNames =
+        projectFilter.hasExactIncludesOnly()
+            ? projectFilter.getExactIncludes().stream()
+            : projectDiscovery.listProjectNames().stream();
+    return projectNames
+        .filter(projectFilter::matches)
+        .filter(projectName -> collectionCoordinator.isCollecting(projectName))
+        .collect(toList());
   }
 }
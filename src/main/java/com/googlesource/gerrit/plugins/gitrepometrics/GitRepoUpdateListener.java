@@ -23,17 +23,32 @@ import com.google.gerrit.server.events.ProjectEvent;
 import com.google.gerrit.server.events.RefUpdatedEvent;
 import com.google.inject.Inject;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 class GitRepoUpdateListener implements EventListener {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   protected static final String REF_REPLICATED_EVENT_SUFFIX = "ref-replicated";
+  protected static final String REF_REPLICATION_DONE_EVENT_SUFFIX = "ref-replication-done";
+  protected static final String PROJECT_REPLICATED_EVENT_SUFFIX = "project-replicated";
+
+  private enum EventKind {
+    REF_UPDATED,
+    REF_REPLICATED,
+    REPLICATION_DONE,
+    IGNORED
+  }
+
   private final ExecutorService executor;
   private final UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory;
   private final GitRepoMetricsCache gitRepoMetricsCache;
   private final String instanceId;
   private final ProjectMetricsLimiter projectMetricsLimiter;
+  private final MetricsRefreshPolicy refreshPolicy;
+  private final CollectionCoordinator collectionCoordinator;
+  private final ReplicationEventBatcher replicationEventBatcher;
+  private final ConcurrentHashMap<String, EventKind> eventKinds = new ConcurrentHashMap<>();
 
   @Inject
   protected GitRepoUpdateListener(
@@ -41,49 +56,89 @@ class GitRepoUpdateListener implements EventListener {
       @UpdateGitMetricsExecutor ScheduledExecutorService executor,
       UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory,
       GitRepoMetricsCache gitRepoMetricsCache,
-      ProjectMetricsLimiter projectMetricsLimiter) {
+      ProjectMetricsLimiter projectMetricsLimiter,
+      MetricsRefreshPolicy refreshPolicy,
+      CollectionCoordinator collectionCoordinator,
+      ReplicationEventBatcher replicationEventBatcher) {
     this.instanceId = instanceId;
     this.executor = executor;
     this.updateGitMetricsTaskFactory = updateGitMetricsTaskFactory;
     this.gitRepoMetricsCache = gitRepoMetricsCache;
     this.projectMetricsLimiter = projectMetricsLimiter;
+    this.refreshPolicy = refreshPolicy;
+    this.collectionCoordinator = collectionCoordinator;
+    this.replicationEventBatcher = replicationEventBatcher;
   }
 
   @Override
   public void onEvent(Event event) {
-    if (isMyEvent(event) && (isRefUpdatedEvent(event) || isRefReplicatedEvent(event))) {
-      String projectName = ((ProjectEvent) event).getProjectNameKey().get();
-      logger.atFine().log(
-          "Got %s event from %s. Might need to collect metrics for project %s",
-          event.type, event.instanceId, projectName);
+    if (event.type == null) {
+      return;
+    }
+    // Event types are few, while replication sends one event per ref
+    EventKind eventKind = eventKinds.computeIfAbsent(event.type, GitRepoUpdateListener::eventKind);
+    if (eventKind == EventKind.IGNORED || !isMyEvent(event)) {
+      return;
+    }
+
+    String projectName = ((ProjectEvent) event).getProjectNameKey().get();
+    logger.atFine().log(
+        "Got %s event from %s. Might need to collect metrics for project %s",
+        event.type, event.instanceId, projectName);
+
+    if (eventKind != EventKind.REF_UPDATED
+        && replicationEventBatcher.add(projectName, () -> collect(projectName))) {
+      return;
+    }
+    // Without batching, only the ref replicated events trigger the collection, as before
+    if (eventKind != EventKind.REPLICATION_DONE) {
+      collect(projectName);
+    }
+  }
 
-      if (gitRepoMetricsCache.shouldCollectStats(projectName)) {
-        UpdateGitMetricsTask updateGitMetricsTask = updateGitMetricsTaskFactory.create(projectName);
-        gitRepoMetricsCache.setStale(projectName);
-        executor.execute(
-            () -> {
-              projectMetricsLimiter.acquire(projectName);
-              gitRepoMetricsCache.unsetStale(projectName);
-              updateGitMetricsTask.run();
-            });
+  private void collect(String projectName) {
+    if (gitRepoMetricsCache.shouldCollectStats(projectName)) {
+      if (refreshPolicy.deferRefresh(projectName)) {
+        logger.atFine().log("Refresh of metrics for project %s deferred", projectName);
+        return;
       }
+
+      UpdateGitMetricsTask updateGitMetricsTask = updateGitMetricsTaskFactory.create(projectName);
+      gitRepoMetricsCache.setStale(projectName);
+      executor.execute(
+          () -> {
+            projectMetricsLimiter.acquire(projectName);
+            gitRepoMetricsCache.unsetStale(projectName);
+            updateGitMetricsTask.run();
+          });
     }
   }
 
-  private boolean isRefReplicatedEvent(Event event) {
+  private static EventKind eventKind(String eventType) {
     // Check the name of the event instead of checking the class type
     // to avoid importing pull and push replication plugin dependencies
     // only for this check.
-
-    return event.type.endsWith(REF_REPLICATED_EVENT_SUFFIX);
-  }
-
-  private boolean isRefUpdatedEvent(Event event) {
-    return event.type.equals(RefUpdatedEvent.TYPE);
+    if (eventType.equals(RefUpdatedEvent.TYPE)) {
+      return EventKind.REF_UPDATED;
+    }
+    if (eventType.endsWith(REF_REPLICATED_EVENT_SUFFIX)) {
+      return EventKind.REF_REPLICATED;
+    }
+    if (eventType.endsWith(REF_REPLICATION_DONE_EVENT_SUFFIX)
+        || eventType.endsWith(PROJECT_REPLICATED_EVENT_SUFFIX)) {
+      return EventKind.REPLICATION_DONE;
+    }
+    return EventKind.IGNORED;
   }
 
   private boolean isMyEvent(Event event) {
-    return event.type != null
-        && (instanceId == null || Objects.equals(event.instanceId, instanceId));
+    if (!(event instanceof ProjectEvent)) {
+      return false;
+    }
+    if (collectionCoordinator.isCoordinated()) {
+      // The updates of the projects collected by this node may come from any other node
+      return collectionCoordinator.isCollecting(((ProjectEvent) event).getProjectNameKey().get());
+    }
+    return instanceId == null || Objects.equals(event.instanceId, instanceId);
   }
 }
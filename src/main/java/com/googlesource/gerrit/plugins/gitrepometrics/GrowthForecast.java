@@ -0,0 +1,146 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forecasts when the metrics of every project are going to reach their configured thresholds.
+ *
+ * <p>Each project metric is fitted with an online least-squares linear regression over time,
+ * updated in constant time at every sample without storing any history. The samples are weighted
+ * with an exponential decay, so that the trend follows the recent growth of the repository rather
+ * than its whole lifetime, e.g. after a garbage collection. The time axis is centred on the newest
+ * sample, so that the fit keeps its precision however long the project has been sampled.
+ */
+@Singleton
+public class GrowthForecast implements DerivedMetrics {
+  private static final double DECAY_FACTOR = 0.9;
+  static final long NOT_GROWING = -1L;
+
+  private final Map<String, Forecast> forecasts = new HashMap<>();
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, LinearFit>> fits =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  GrowthForecast(GitRepoMetricsConfig config) {
+    config
+        .getForecastThresholds()
+        .forEach(
+            (metricName, threshold) ->
+                forecasts.put(
+                    metricName.toLowerCase(Locale.ROOT), new Forecast(metricName, threshold)));
+  }
+
+  @Override
+  public Map<GitRepoMetric, Long> derive(
+      String projectName, Map<GitRepoMetric, Long> collectedMetrics, long timestampMs) {
+    if (forecasts.isEmpty()) {
+      return ImmutableMap.of();
+    }
+
+    Map<String, LinearFit> projectFits =
+        fits.computeIfAbsent(projectName, p -> new ConcurrentHashMap<>());
+    Map<GitRepoMetric, Long> secondsToThreshold = new HashMap<>();
+    collectedMetrics.forEach(
+        (metric, value) -> {
+          String metricName = metric.getName().toLowerCase(Locale.ROOT);
+          Forecast forecast = forecasts.get(metricName);
+          if (forecast != null) {
+            LinearFit fit = projectFits.computeIfAbsent(metricName, m -> new LinearFit());
+            Long seconds = fit.add(timestampMs, value, forecast.threshold);
+            if (seconds != null) {
+              secondsToThreshold.put(forecast.metric, seconds);
+            }
+          }
+        });
+    return secondsToThreshold;
+  }
+
+  @Override
+  public void onProjectDropped(String projectName) {
+    fits.remove(projectName);
+  }
+
+  private static class Forecast {
+    final GitRepoMetric metric;
+    final long threshold;
+
+    Forecast(String metricName, long threshold) {
+      this.metric =
+          new GitRepoMetric(
+              metricName + "SecondsToThreshold",
+              "Projected time for " + metricName + " to reach " + threshold,
+              "Seconds");
+      this.threshold = threshold;
+    }
+  }
+
+  /**
+   * Exponentially weighted least-squares fit of the values over time, in seconds since the newest
+   * sample.
+   */
+  private static class LinearFit {
+    private long originMs;
+    private int samples;
+    private double weight;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+
+    synchronized Long add(long timestampMs, long value, long threshold) {
+      if (samples > 0) {
+        // Move the origin to the new sample, so that x stays close to 0
+        double shift = (timestampMs - originMs) / 1000.0;
+        sumXX = sumXX - 2 * shift * sumX + shift * shift * weight;
+        sumXY = sumXY - shift * sumY;
+        sumX = sumX - shift * weight;
+      }
+      originMs = timestampMs;
+      weight = DECAY_FACTOR * weight + 1;
+      sumX = DECAY_FACTOR * sumX;
+      sumY = DECAY_FACTOR * sumY + value;
+      sumXX = DECAY_FACTOR * sumXX;
+      sumXY = DECAY_FACTOR * sumXY;
+      samples++;
+
+      if (samples < 2) {
+        return null;
+      }
+      double denominator = weight * sumXX - sumX * sumX;
+      if (denominator <= 0) {
+        return null;
+      }
+
+      double slope = (weight * sumXY - sumX * sumY) / denominator;
+      double projected = (sumY - slope * sumX) / weight;
+      if (projected >= threshold) {
+        return 0L;
+      }
+      if (slope <= 0) {
+        return NOT_GROWING;
+      }
+      return Math.round((threshold - projected) / slope);
+    }
+  }
+}
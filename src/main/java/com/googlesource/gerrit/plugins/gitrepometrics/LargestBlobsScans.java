@@ -0,0 +1,113 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.LargestBlobsScan;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Runs the on-demand scans for the largest blobs of the projects and keeps their latest outcome.
+ *
+ * <p>The scans run on their own low-priority executor, so that a long scan never delays the
+ * collection of the metrics.
+ */
+@Singleton
+public class LargestBlobsScans {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final Executor scanExecutor;
+  private final RepositoryHandlePool repositoryHandlePool;
+  private final ConcurrentHashMap<String, LargestBlobsScan> scans = new ConcurrentHashMap<>();
+
+  @Inject
+  LargestBlobsScans(
+      @LargestBlobsScanExecutor ScheduledExecutorService scanExecutor,
+      RepositoryHandlePool repositoryHandlePool) {
+    this.scanExecutor = scanExecutor;
+    this.repositoryHandlePool = repositoryHandlePool;
+  }
+
+  /**
+   * Queues the scan of the project, unless one is already queued or running and not cancelled.
+   *
+   * @param projectName name of the project
+   * @param limit number of blobs to find
+   * @return the queued or running scan
+   * @throws IOException if the repository of the project cannot be opened
+   */
+  public LargestBlobsScan start(String projectName, int limit) throws IOException {
+    Path objectsDirectory;
+    try (RepositoryHandlePool.RepositoryHandle repositoryHandle =
+        repositoryHandlePool.open(projectName)) {
+      objectsDirectory = repositoryHandle.getFileRepository().getObjectsDirectory().toPath();
+    }
+
+    return scans.compute(
+        projectName,
+        (p, scan) -> {
+          if (scan != null && isPending(scan)) {
+            return scan;
+          }
+
+          LargestBlobsScan newScan = new LargestBlobsScan(limit);
+          scanExecutor.execute(() -> run(projectName, objectsDirectory, newScan));
+          return newScan;
+        });
+  }
+
+  public Optional<LargestBlobsScan> get(String projectName) {
+    return Optional.ofNullable(scans.get(projectName));
+  }
+
+  /**
+   * Cancels the queued or running scan of the project. A queued scan is cancelled at once, while
+   * a running one stops at its next object; in both cases, a new scan of the project can be started
+   * right away.
+   *
+   * @param projectName name of the project
+   * @return the cancelled scan, or empty if the project was never scanned
+   */
+  public Optional<LargestBlobsScan> cancel(String projectName) {
+    Optional<LargestBlobsScan> scan = get(projectName);
+    scan.filter(LargestBlobsScans::isPending).ifPresent(LargestBlobsScan::cancel);
+    return scan;
+  }
+
+  private static boolean isPending(LargestBlobsScan scan) {
+    return !scan.isCancelled()
+        && (scan.getState() == LargestBlobsScan.State.QUEUED
+            || scan.getState() == LargestBlobsScan.State.RUNNING);
+  }
+
+  private static void run(String projectName, Path objectsDirectory, LargestBlobsScan scan) {
+    try {
+      scan.run(objectsDirectory);
+      logger.atInfo().log(
+          "Scan for the largest blobs of project %s ended as %s after %d objects",
+          projectName, scan.getState(), scan.getScannedObjects());
+    } catch (IOException | RuntimeException e) {
+      logger.atSevere().withCause(e).log(
+          "Scan for the largest blobs of project %s failed", projectName);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Refreshes the metrics only when they are scraped and older than the configured time-to-live.
+ *
+ * <p>Repository updates trigger the collection only for the projects that were never collected, so
+ * that their metrics get registered. Afterwards, the refresh is scheduled on the background lane
+ * by the scrapes, hence the repositories are accessed only while someone is reading their metrics.
+ */
+class LazyMetricsRefresh implements MetricsRefreshPolicy {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final long MIN_SCRAPE_CHECK_INTERVAL_MS = 1000L;
+
+  private final Provider<GitRepoMetricsCache> gitRepoMetricsCache;
+  private final BackgroundCollectionLane backgroundCollectionLane;
+  private final long ttlMs;
+  private final LongSupplier clockMs;
+  private final AtomicLong lastScrapeCheckMs = new AtomicLong();
+
+  @Inject
+  LazyMetricsRefresh(
+      Provider<GitRepoMetricsCache> gitRepoMetricsCache,
+      BackgroundCollectionLane backgroundCollectionLane,
+      GitRepoMetricsConfig config) {
+    this(gitRepoMetricsCache, backgroundCollectionLane, config, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  LazyMetricsRefresh(
+      Provider<GitRepoMetricsCache> gitRepoMetricsCache,
+      BackgroundCollectionLane backgroundCollectionLane,
+      GitRepoMetricsConfig config,
+      LongSupplier clockMs) {
+    this.gitRepoMetricsCache = gitRepoMetricsCache;
+    this.backgroundCollectionLane = backgroundCollectionLane;
+    this.ttlMs = config.getLazyCollectionTtlMs();
+    this.clockMs = clockMs;
+  }
+
+  @Override
+  public void onScrape() {
+    // Every metric triggers its own callback on each scrape, check the expired projects once only
+    long nowMs = clockMs.getAsLong();
+    long lastCheckMs = lastScrapeCheckMs.get();
+    if (nowMs - lastCheckMs < MIN_SCRAPE_CHECK_INTERVAL_MS
+        || !lastScrapeCheckMs.compareAndSet(lastCheckMs, nowMs)) {
+      return;
+    }
+
+    List<String> expiredProjects =
+        gitRepoMetricsCache.get().getProjectsCollectedBefore(nowMs - ttlMs);
+    if (!expiredProjects.isEmpty()) {
+      logger.atFine().log("Scheduling the refresh of %d expired projects", expiredProjects.size());
+      backgroundCollectionLane.submit(expiredProjects);
+    }
+  }
+
+  @Override
+  public boolean deferRefresh(String projectName) {
+    return gitRepoMetricsCache.get().getLastCollectionTimeMs(projectName).isPresent();
+  }
+}
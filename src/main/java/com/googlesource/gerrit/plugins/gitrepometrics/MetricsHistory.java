@@ -0,0 +1,187 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the most recent samples of the selected metrics of every project, and derives their growth
+ * rates.
+ *
+ * <p>Each project metric has a fixed-size ring of {@code historySize} samples, stored in primitive
+ * arrays. A rate is the difference between the newest and the oldest samples in the ring, scaled to
+ * its configured period.
+ */
+@Singleton
+public class MetricsHistory implements DerivedMetrics {
+  private final int historySize;
+  private final Set<String> historyMetrics = new HashSet<>();
+  private final ImmutableList<RateMetric> rateMetrics;
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, SampleRing>> samples =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  MetricsHistory(GitRepoMetricsConfig config) {
+    this.historySize = config.getHistorySize();
+    config.getHistoryMetrics().forEach(m -> historyMetrics.add(m.toLowerCase(Locale.ROOT)));
+
+    ImmutableList.Builder<RateMetric> rateMetricsBuilder = ImmutableList.builder();
+    config
+        .getRateSourceMetrics()
+        .forEach(
+            (rateName, sourceMetric) -> {
+              rateMetricsBuilder.add(
+                  new RateMetric(rateName, sourceMetric, config.getRatePeriodMs(rateName)));
+              historyMetrics.add(sourceMetric.toLowerCase(Locale.ROOT));
+            });
+    this.rateMetrics = rateMetricsBuilder.build();
+  }
+
+  @Override
+  public Map<GitRepoMetric, Long> derive(
+      String projectName, Map<GitRepoMetric, Long> collectedMetrics, long timestampMs) {
+    if (historySize < 2) {
+      return ImmutableMap.of();
+    }
+
+    Map<String, SampleRing> projectSamples =
+        samples.computeIfAbsent(projectName, p -> new ConcurrentHashMap<>());
+    collectedMetrics.forEach(
+        (metric, value) -> {
+          String metricName = metric.getName().toLowerCase(Locale.ROOT);
+          if (historyMetrics.contains(metricName)) {
+            projectSamples
+                .computeIfAbsent(metricName, m -> new SampleRing(historySize))
+                .add(timestampMs, value);
+          }
+        });
+
+    Map<GitRepoMetric, Long> rates = new HashMap<>();
+    for (RateMetric rateMetric : rateMetrics) {
+      SampleRing ring = projectSamples.get(rateMetric.sourceMetric);
+      if (ring != null && collectedMetrics.keySet().stream().anyMatch(rateMetric::isSourceOf)) {
+        Long rate = ring.rate(rateMetric.periodMs);
+        if (rate != null) {
+          rates.put(rateMetric.metric, rate);
+        }
+      }
+    }
+    return rates;
+  }
+
+  /**
+   * Returns the recorded samples of the project.
+   *
+   * @param projectName name of the project
+   * @return the samples of each metric, from the oldest to the newest
+   */
+  public Map<String, ImmutableList<Sample>> getHistory(String projectName) {
+    Map<String, ImmutableList<Sample>> history = new HashMap<>();
+    Map<String, SampleRing> projectSamples = samples.get(projectName);
+    if (projectSamples != null) {
+      projectSamples.forEach((metricName, ring) -> history.put(metricName, ring.samples()));
+    }
+    return history;
+  }
+
+  /** Drops the samples of the project. */
+  public void remove(String projectName) {
+    samples.remove(projectName);
+  }
+
+  @Override
+  public void onProjectDropped(String projectName) {
+    remove(projectName);
+  }
+
+  /** A sample of a metric value. */
+  public static class Sample {
+    public final long timestampMs;
+    public final long value;
+
+    Sample(long timestampMs, long value) {
+      this.timestampMs = timestampMs;
+      this.value = value;
+    }
+  }
+
+  private static class RateMetric {
+    final GitRepoMetric metric;
+    final String sourceMetric;
+    final long periodMs;
+
+    RateMetric(String name, String sourceMetric, long periodMs) {
+      this.metric = new GitRepoMetric(name, "Growth rate of " + sourceMetric, "Count");
+      this.sourceMetric = sourceMetric.toLowerCase(Locale.ROOT);
+      this.periodMs = periodMs;
+    }
+
+    boolean isSourceOf(GitRepoMetric collectedMetric) {
+      return collectedMetric.getName().toLowerCase(Locale.ROOT).equals(sourceMetric);
+    }
+  }
+
+  private static class SampleRing {
+    private final long[] timestampsMs;
+    private final long[] values;
+    private int next;
+    private int size;
+
+    SampleRing(int capacity) {
+      timestampsMs = new long[capacity];
+      values = new long[capacity];
+    }
+
+    synchronized void add(long timestampMs, long value) {
+      timestampsMs[next] = timestampMs;
+      values[next] = value;
+      next = (next + 1) % timestampsMs.length;
+      size = Math.min(size + 1, timestampsMs.length);
+    }
+
+    synchronized Long rate(long periodMs) {
+      if (size < 2) {
+        return null;
+      }
+
+      int newest = (next - 1 + timestampsMs.length) % timestampsMs.length;
+      int oldest = (next - size + timestampsMs.length) % timestampsMs.length;
+      long elapsedMs = timestampsMs[newest] - timestampsMs[oldest];
+      if (elapsedMs <= 0) {
+        return null;
+      }
+      return Math.round((double) (values[newest] - values[oldest]) * periodMs / elapsedMs);
+    }
+
+    synchronized ImmutableList<Sample> samples() {
+      ImmutableList.Builder<Sample> samplesBuilder = ImmutableList.builder();
+      for (int i = size; i > 0; i--) {
+        int index = (next - i + timestampsMs.length) % timestampsMs.length;
+        samplesBuilder.add(new Sample(timestampsMs[index], values[index]));
+      }
+      return samplesBuilder.build();
+    }
+  }
+}
@@ -14,35 +14,34 @@
 
 package com.googlesource.gerrit.plugins.gitrepometrics;
 
+import static java.util.stream.Collectors.toList;
+
 import com.google.common.flogger.FluentLogger;
-import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.events.LifecycleListener;
-import com.google.gerrit.server.project.ProjectCache;
 import com.google.inject.Inject;
-import java.util.concurrent.ScheduledExecutorService;
 
 public class MetricsInitializer implements LifecycleListener {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-  private final ScheduledExecutorService metricsExecutor;
-  private ProjectCache projectCache;
-  private final UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory;
+  private final ProjectDiscovery projectDiscovery;
+  private final BackgroundCollectionLane backgroundCollectionLane;
+  private final GitRepoMetricsConfig config;
 
   @Inject
   public MetricsInitializer(
-      @UpdateGitMetricsExecutor ScheduledExecutorService metricsExecutor,
-      ProjectCache projectCache,
-      UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory) {
-    this.metricsExecutor = metricsExecutor;
-    this.projectCache = projectCache;
-    this.updateGitMetricsTaskFactory = updateGitMetricsTaskFactory;
+      ProjectDiscovery projectDiscovery,
+      BackgroundCollectionLane backgroundCollectionLane,
+      GitRepoMetricsConfig config) {
+    this.projectDiscovery = projectDiscovery;
+    this.backgroundCollectionLane = backgroundCollectionLane;
+    this.config = config;
   }
 
   @Override
   public void start() {
-    projectCache.all().stream()
-        .map(Project.NameKey::get)
-        .map(updateGitMetricsTaskFactory::create)
-        .forEach(metricsExecutor::execute);
+    backgroundCollectionLane.submit(
+        projectDiscovery.listProjectNames().stream()
+            .filter(config.getProjectFilter()::matches)
+            .collect(toList()));
   }
 
   @Override
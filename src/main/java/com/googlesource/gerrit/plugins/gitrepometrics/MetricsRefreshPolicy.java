@@ -0,0 +1,42 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * A policy deciding when the metrics of a project are refreshed.
+ *
+ * <p>By default, this interface is implemented by {@link ImmediateMetricsRefresh}, which refreshes
+ * the metrics as soon as the repository is updated.
+ */
+@ImplementedBy(ImmediateMetricsRefresh.class)
+public interface MetricsRefreshPolicy {
+  /**
+   * Notifies that the metrics are being scraped.
+   *
+   * <p>This method is invoked while the metrics are read, hence it must never block or access any
+   * repository.
+   */
+  void onScrape();
+
+  /**
+   * Decides whether the refresh of the metrics after a repository update can be deferred.
+   *
+   * @param projectName the name of the project that has been updated
+   * @return {@code true} if the metrics are not to be refreshed now
+   */
+  boolean deferRefresh(String projectName);
+}
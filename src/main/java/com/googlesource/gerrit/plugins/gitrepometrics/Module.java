@@ -14,7 +14,12 @@
 
 package com.googlesource.gerrit.plugins.gitrepometrics;
 
+import static com.google.gerrit.server.config.ConfigResource.CONFIG_KIND;
+import static com.google.gerrit.server.project.ProjectResource.PROJECT_KIND;
+
+import com.google.gerrit.extensions.events.ProjectDeletedListener;
 import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.extensions.restapi.RestApiModule;
 import com.google.gerrit.lifecycle.LifecycleModule;
 import com.google.gerrit.server.events.EventListener;
 import com.google.inject.Inject;
@@ -23,6 +28,11 @@ import com.googlesource.gerrit.plugins.gitrepometrics.collectors.FSMetricsCollec
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRefsMetricsCollector;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitStatsMetricsCollector;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.MetricsCollector;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.ObjectIndexMetricsCollector;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.ObjectSamplingMetricsCollector;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.PackMetricsCollector;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.ReflogMetricsCollector;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.ReftableMetricsCollector;
 import java.util.concurrent.ScheduledExecutorService;
 
 public class Module extends LifecycleModule {
@@ -40,25 +50,125 @@ public class Module extends LifecycleModule {
     bind(ScheduledExecutorService.class)
         .annotatedWith(UpdateGitMetricsExecutor.class)
         .toProvider(UpdateGitMetricsExecutorProvider.class);
+    bind(ScheduledExecutorService.class)
+        .annotatedWith(BackgroundGitMetricsExecutor.class)
+        .toProvider(BackgroundGitMetricsExecutorProvider.class);
+    bind(ScheduledExecutorService.class)
+        .annotatedWith(LargestBlobsScanExecutor.class)
+        .toProvider(LargestBlobsScanExecutorProvider.class);
     bind(GitRepoUpdateListener.class);
     DynamicSet.bind(binder(), EventListener.class).to(GitRepoUpdateListener.class);
+    DynamicSet.bind(binder(), ProjectDeletedListener.class).to(DeletedProjectMetricsCleaner.class);
+
+    DynamicSet.setOf(binder(), GitRepoMetricsConfigListener.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class).to(GitRepoMetricsCache.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+        .to(UpdateGitMetricsExecutorProvider.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+        .to(BackgroundGitMetricsExecutorProvider.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+        .to(LargestBlobsScanExecutorProvider.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+        .to(BackgroundCollectionLane.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class).to(CollectorIntervals.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+        .to(RepositoryChangeDetector.class);
+    DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+        .to(ReplicationEventBatcher.class);
+    listener().to(GitRepoMetricsConfigReloader.class);
+
+    DynamicSet.setOf(binder(), DroppedProjectListener.class);
+    DynamicSet.bind(binder(), DroppedProjectListener.class).to(CollectorIntervals.class);
+    DynamicSet.bind(binder(), DroppedProjectListener.class).to(RepositoryChangeDetector.class);
+    DynamicSet.bind(binder(), DroppedProjectListener.class).to(GitStatsMetricsCollector.class);
+
+    if (config.getCoordinationDirectory().isPresent()) {
+      bind(CollectionCoordinator.class).to(SharedLeaseCollectionCoordinator.class);
+      listener().to(SharedLeaseCollectionCoordinator.class);
+    } else if (!config.getShardNodes().isEmpty()) {
+      bind(CollectionCoordinator.class).to(ShardedCollectionCoordinator.class);
+      DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+          .to(ShardedCollectionCoordinator.class);
+    }
 
     if (config.isForcedCollection()) {
       listener().to(GitRepoMetricsScheduler.class);
+      DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+          .to(GitRepoMetricsScheduler.class);
     }
 
     if (config.collectAllRepositories()) {
       listener().to(MetricsInitializer.class);
     }
 
+    if (config.getGitBackend() == GitBackend.FILESYSTEM) {
+      bind(ProjectDiscovery.class).to(FileSystemProjectDiscovery.class);
+      listener().to(FileSystemProjectDiscovery.class);
+    }
+
+    if (!config.getHotRepositoryNames().isEmpty()) {
+      listener().to(RepositoryHandlePoolCleaner.class);
+      if (config.getCollectorSetting(FSMetricsCollector.COLLECTOR_NAME, "incremental", false)) {
+        listener().to(ObjectsDirectoryWatcher.class);
+        DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+            .to(ObjectsDirectoryWatcher.class);
+      }
+    }
+
     if (config.getGracePeriodMs() > 0) {
       bind(ProjectMetricsLimiter.class).to(ProjectMetricsThrottler.class).in(Scopes.SINGLETON);
+      DynamicSet.bind(binder(), GitRepoMetricsConfigListener.class)
+          .to(ProjectMetricsThrottler.class);
     }
 
+    if (config.getLazyCollectionTtlMs() > 0) {
+      bind(MetricsRefreshPolicy.class).to(LazyMetricsRefresh.class).in(Scopes.SINGLETON);
+    }
+
+    if (config.getHistorySize() > 1) {
+      DynamicSet.bind(binder(), DerivedMetrics.class).to(MetricsHistory.class);
+    }
+    if (config.isGrowthForecast()) {
+      DynamicSet.bind(binder(), DerivedMetrics.class).to(GrowthForecast.class);
+    }
+    if (config.isGcPressureScore()) {
+      DynamicSet.bind(binder(), DerivedMetrics.class).to(GcPressureScore.class);
+    }
+    install(
+        new RestApiModule() {
+          @Override
+          protected void configure() {
+            if (config.getHistorySize() > 1) {
+              get(PROJECT_KIND, "history").to(GetMetricsHistory.class);
+            }
+            if (config.isGcPressureScore()) {
+              get(CONFIG_KIND, "gc-candidates").to(GetGcCandidates.class);
+            }
+            get(PROJECT_KIND, "largest-blobs").to(GetLargestBlobs.class);
+            post(PROJECT_KIND, "largest-blobs").to(PostLargestBlobs.class);
+            delete(PROJECT_KIND, "largest-blobs").to(DeleteLargestBlobs.class);
+          }
+        });
+
     DynamicSet.setOf(binder(), MetricsCollector.class);
     DynamicSet.bind(binder(), MetricsCollector.class).to(GitStatsMetricsCollector.class);
     DynamicSet.bind(binder(), MetricsCollector.class).to(FSMetricsCollector.class);
     DynamicSet.bind(binder(), MetricsCollector.class).to(GitRefsMetricsCollector.class);
+    if (config.isCollectorEnabled(PackMetricsCollector.COLLECTOR_NAME)) {
+      DynamicSet.bind(binder(), MetricsCollector.class).to(PackMetricsCollector.class);
+    }
+    if (config.isCollectorEnabled(ReftableMetricsCollector.COLLECTOR_NAME)) {
+      DynamicSet.bind(binder(), MetricsCollector.class).to(ReftableMetricsCollector.class);
+    }
+    if (config.isCollectorEnabled(ObjectIndexMetricsCollector.COLLECTOR_NAME)) {
+      DynamicSet.bind(binder(), MetricsCollector.class).to(ObjectIndexMetricsCollector.class);
+    }
+    if (config.isCollectorEnabled(ReflogMetricsCollector.COLLECTOR_NAME)) {
+      DynamicSet.bind(binder(), MetricsCollector.class).to(ReflogMetricsCollector.class);
+    }
+    if (config.isCollectorEnabled(ObjectSamplingMetricsCollector.COLLECTOR_NAME)) {
+      DynamicSet.bind(binder(), MetricsCollector.class).to(ObjectSamplingMetricsCollector.class);
+    }
     install(new UpdateGitMetricsTaskModule());
   }
 }
@@ -0,0 +1,379 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.FSMetricsCollector;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the file, directory and keep file counts of the objects directory of the hot projects up
+ * to date out of the file system events, instead of walking the directory at every collection.
+ *
+ * <p>Every directory of the objects directory is watched, and its counts are updated by the
+ * creation and deletion events of its entries. Entries created while a directory is being listed
+ * may be counted twice, hence the whole directory is walked again at the first collection after the
+ * reconcile interval, as well as when the events overflow.
+ */
+@Singleton
+public class ObjectsDirectoryWatcher implements LifecycleListener, GitRepoMetricsConfigListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final long DEFAULT_RECONCILE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+  /** Counts of the entries of an objects directory, with the same meaning as the full walk. */
+  public static class Counts {
+    public final long files;
+    public final long directories;
+    public final long emptyDirectories;
+    public final long keepFiles;
+
+    Counts(long files, long directories, long emptyDirectories, long keepFiles) {
+      this.files = files;
+      this.directories = directories;
+      this.emptyDirectories = emptyDirectories;
+      this.keepFiles = keepFiles;
+    }
+  }
+
+  private final ConcurrentHashMap<String, WatchedRepository> repositories =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<WatchKey, WatchedRepository> watchKeys =
+      new ConcurrentHashMap<>();
+  private volatile ProjectFilter hotProjectFilter;
+  private volatile long reconcileIntervalMs;
+  private volatile WatchService watchService;
+
+  @Inject
+  ObjectsDirectoryWatcher(GitRepoMetricsConfig config) {
+    onConfigReloaded(config);
+  }
+
+  @Override
+  public void start() {
+    try {
+      openWatchService();
+    } catch (IOException e) {
+      logger.atSevere().withCause(e).log(
+          "Cannot watch the objects directories, falling back to walking them");
+      return;
+    }
+
+    Thread watcherThread = new Thread(this::processEvents, "git-repo-metrics-objects-watcher");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+  }
+
+  @VisibleForTesting
+  void openWatchService() throws IOException {
+    watchService = FileSystems.getDefault().newWatchService();
+  }
+
+  @Override
+  public void stop() {
+    WatchService service = watchService;
+    watchService = null;
+    if (service != null) {
+      try {
+        service.close();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Error closing the objects directory watch service");
+      }
+    }
+    repositories.clear();
+    watchKeys.clear();
+  }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    hotProjectFilter =
+        config.getCollectorSetting(FSMetricsCollector.COLLECTOR_NAME, "incremental", false)
+            ? config.getHotProjectFilter()
+            : new ProjectFilter(false, List.of(), List.of());
+    reconcileIntervalMs =
+        config.getCollectorTimeSetting(
+            FSMetricsCollector.COLLECTOR_NAME, "reconcileInterval", DEFAULT_RECONCILE_INTERVAL_MS);
+
+    for (String projectName : repositories.keySet()) {
+      if (!hotProjectFilter.matches(projectName)) {
+        forget(projectName);
+      }
+    }
+  }
+
+  /**
+   * Returns the counts of the objects directory of a hot project, starting to watch it if needed.
+   *
+   * @param projectName name of the project
+   * @param objectsDirectory objects directory of the project
+   * @return the counts, or empty if the project is not watched and its directory must be walked
+   */
+  public Optional<Counts> getCounts(String projectName, Path objectsDirectory) {
+    return getCounts(projectName, objectsDirectory, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  Optional<Counts> getCounts(String projectName, Path objectsDirectory, long nowMs) {
+    WatchService service = watchService;
+    if (service == null || !hotProjectFilter.matches(projectName)) {
+      return Optional.empty();
+    }
+
+    WatchedRepository repository =
+        repositories.computeIfAbsent(
+            projectName, p -> new WatchedRepository(service, objectsDirectory));
+    try {
+      return Optional.of(repository.getCounts(nowMs));
+    } catch (IOException | ClosedWatchServiceException e) {
+      logger.atWarning().withCause(e).log(
+          "Cannot watch the objects directory of project %s", projectName);
+      repositories.remove(projectName, repository);
+      repository.close();
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stops watching the objects directory of a project, e.g. because the project has been deleted.
+   *
+   * @param projectName name of the project
+   */
+  public void forget(String projectName) {
+    WatchedRepository repository = repositories.remove(projectName);
+    if (repository != null) {
+      repository.close();
+    }
+  }
+
+  private void processEvents() {
+    while (true) {
+      WatchService service = watchService;
+      if (service == null) {
+        return;
+      }
+
+      WatchKey key;
+      try {
+        key = service.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      processKey(key);
+    }
+  }
+
+  @VisibleForTesting
+  void processPendingEvents(long timeoutMs) throws InterruptedException {
+    WatchKey key;
+    while ((key = watchService.poll(timeoutMs, TimeUnit.MILLISECONDS)) != null) {
+      processKey(key);
+    }
+  }
+
+  private void processKey(WatchKey key) {
+    WatchedRepository repository = watchKeys.get(key);
+    if (repository == null) {
+      key.cancel();
+      return;
+    }
+
+    repository.onEvents(key, key.pollEvents());
+    if (!key.reset()) {
+      repository.onKeyInvalidated(key);
+    }
+  }
+
+  /** Entries of a single directory of the objects directory. */
+  private static class DirectoryCounts {
+    long entries;
+    long files;
+    long keepFiles;
+  }
+
+  private class WatchedRepository {
+    private final WatchService service;
+    private final Path objectsDirectory;
+    private final Map<Path, DirectoryCounts> directories = new HashMap<>();
+    private final Map<WatchKey, Path> directoryKeys = new HashMap<>();
+    private boolean stale = true;
+    private long lastWalkMs;
+
+    WatchedRepository(WatchService service, Path objectsDirectory) {
+      this.service = service;
+      this.objectsDirectory = objectsDirectory;
+    }
+
+    synchronized Counts getCounts(long nowMs) throws IOException {
+      if (stale || nowMs - lastWalkMs >= reconcileIntervalMs) {
+        cancelKeys();
+        directories.clear();
+        watch(objectsDirectory);
+        stale = false;
+        lastWalkMs = nowMs;
+      }
+
+      long files = 0L;
+      long emptyDirectories = 0L;
+      long keepFiles = 0L;
+      for (DirectoryCounts counts : directories.values()) {
+        files += counts.files;
+        keepFiles += counts.keepFiles;
+        if (counts.entries == 0) {
+          emptyDirectories++;
+        }
+      }
+      return new Counts(files, directories.size(), emptyDirectories, keepFiles);
+    }
+
+    synchronized void onEvents(WatchKey key, Iterable<WatchEvent<?>> events) {
+      Path directory = directoryKeys.get(key);
+      if (directory == null) {
+        return;
+      }
+
+      for (WatchEvent<?> event : events) {
+        if (event.kind() == OVERFLOW) {
+          stale = true;
+          continue;
+        }
+
+        Path entry = directory.resolve((Path) event.context());
+        DirectoryCounts parent = directories.get(directory);
+        try {
+          if (event.kind() == ENTRY_CREATE) {
+            parent.entries++;
+            if (isDirectory(entry)) {
+              watch(entry);
+            } else {
+              foundFile(parent, entry);
+            }
+          } else if (event.kind() == ENTRY_DELETE) {
+            parent.entries--;
+            if (directories.containsKey(entry)) {
+              forgetDirectory(entry);
+            } else {
+              parent.files--;
+              if (isKeepFile(entry)) {
+                parent.keepFiles--;
+              }
+            }
+          }
+        } catch (IOException e) {
+          logger.atFine().withCause(e).log("Cannot watch %s, walking it again", entry);
+          stale = true;
+        }
+      }
+    }
+
+    synchronized void onKeyInvalidated(WatchKey key) {
+      directoryKeys.remove(key);
+      watchKeys.remove(key);
+      // The directory is gone, possibly recreated meanwhile without being watched
+      stale = true;
+    }
+
+    synchronized void close() {
+      cancelKeys();
+      directories.clear();
+    }
+
+    /** Watches the directory and all its subdirectories, counting their current entries. */
+    private void watch(Path directory) throws IOException {
+      // Watched before being listed, so that no entry created meanwhile is missed
+      WatchKey key = directory.register(service, ENTRY_CREATE, ENTRY_DELETE, OVERFLOW);
+      directoryKeys.put(key, directory);
+      watchKeys.put(key, this);
+
+      DirectoryCounts counts = new DirectoryCounts();
+      directories.put(directory, counts);
+      try (Stream<Path> entries = Files.list(directory)) {
+        for (Iterator<Path> it = entries.iterator(); it.hasNext(); ) {
+          Path entry = it.next();
+          counts.entries++;
+          if (isDirectory(entry)) {
+            watch(entry);
+          } else {
+            foundFile(counts, entry);
+          }
+        }
+      }
+    }
+
+    private boolean isDirectory(Path entry) throws IOException {
+      try {
+        return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+            .isDirectory();
+      } catch (NoSuchFileException e) {
+        // Counted as a file, as its deletion event follows
+        return false;
+      }
+    }
+
+    private void foundFile(DirectoryCounts counts, Path file) {
+      counts.files++;
+      if (isKeepFile(file)) {
+        counts.keepFiles++;
+      }
+    }
+
+    private void forgetDirectory(Path directory) {
+      directories.keySet().removeIf(d -> d.startsWith(directory));
+      Iterator<Map.Entry<WatchKey, Path>> keys = directoryKeys.entrySet().iterator();
+      while (keys.hasNext()) {
+        Map.Entry<WatchKey, Path> key = keys.next();
+        if (key.getValue().startsWith(directory)) {
+          key.getKey().cancel();
+          watchKeys.remove(key.getKey());
+          keys.remove();
+        }
+      }
+    }
+
+    private void cancelKeys() {
+      directoryKeys.keySet().forEach(WatchKey::cancel);
+      directoryKeys.keySet().forEach(watchKeys::remove);
+      directoryKeys.clear();
+    }
+
+    private boolean isKeepFile(Path file) {
+      return file.getFileName().toString().endsWith(".keep");
+    }
+  }
+}
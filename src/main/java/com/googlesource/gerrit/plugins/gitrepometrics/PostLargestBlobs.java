@@ -0,0 +1,59 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.gerrit.common.data.GlobalCapability;
+import com.google.gerrit.extensions.annotations.RequiresCapability;
+import com.google.gerrit.extensions.restapi.BadRequestException;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestModifyView;
+import com.google.gerrit.server.project.ProjectResource;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+
+/** REST view starting the scan for the largest blobs of a project. */
+@Singleton
+@RequiresCapability(GlobalCapability.MAINTAIN_SERVER)
+class PostLargestBlobs implements RestModifyView<ProjectResource, PostLargestBlobs.Input> {
+  static class Input {
+    Integer limit;
+  }
+
+  private final LargestBlobsScans largestBlobsScans;
+  private final GitRepoMetricsConfig config;
+
+  @Inject
+  PostLargestBlobs(LargestBlobsScans largestBlobsScans, GitRepoMetricsConfig config) {
+    this.largestBlobsScans = largestBlobsScans;
+    this.config = config;
+  }
+
+  @Override
+  public Response<GetLargestBlobs.LargestBlobsInfo> apply(ProjectResource resource, Input input)
+      throws BadRequestException, IOException {
+    int limit = input != null && input.limit != null ? input.limit : config.getLargestBlobsLimit();
+    if (limit <= 0) {
+      throw new BadRequestException("limit must be positive");
+    }
+    int maxLimit = config.getLargestBlobsMaxLimit();
+    if (limit > maxLimit) {
+      throw new BadRequestException(String.format("limit must not exceed %d", maxLimit));
+    }
+
+    return Response.ok(
+        new GetLargestBlobs.LargestBlobsInfo(largestBlobsScans.start(resource.getName(), limit)));
+  }
+}
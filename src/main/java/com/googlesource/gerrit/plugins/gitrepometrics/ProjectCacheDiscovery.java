@@ -0,0 +1,36 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.inject.Inject;
+import java.util.List;
+
+class ProjectCacheDiscovery implements ProjectDiscovery {
+  private final ProjectCache projectCache;
+
+  @Inject
+  ProjectCacheDiscovery(ProjectCache projectCache) {
+    this.projectCache = projectCache;
+  }
+
+  @Override
+  public List<String> listProjectNames() {
+    return projectCache.all().stream().map(Project.NameKey::get).collect(toList());
+  }
+}
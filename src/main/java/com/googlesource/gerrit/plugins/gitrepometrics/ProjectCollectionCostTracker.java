@@ -0,0 +1,64 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Singleton;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of how expensive the metrics collection of each project is.
+ *
+ * <p>The cost is an exponentially weighted moving average of the collection durations, so that a
+ * single slow collection does not permanently mark a project as heavy. Projects that have never
+ * been collected have no cost and are therefore collected first.
+ */
+@Singleton
+public class ProjectCollectionCostTracker {
+  @VisibleForTesting static final double SMOOTHING_FACTOR = 0.3;
+
+  private final ConcurrentHashMap<String, Double> costsMs = new ConcurrentHashMap<>();
+
+  public void record(String projectName, long durationMs) {
+    costsMs.merge(
+        projectName,
+        (double) durationMs,
+        (previous, sample) -> previous + SMOOTHING_FACTOR * (sample - previous));
+  }
+
+  public long estimatedCostMs(String projectName) {
+    return Math.round(costsMs.getOrDefault(projectName, 0.0));
+  }
+
+  /**
+   * Sorts the projects so that the cheapest ones to collect come first.
+   *
+   * <p>Every sweep submits all the projects again, hence the most expensive ones are delayed within
+   * a single sweep only and can never starve.
+   *
+   * @param projectNames projects to be collected
+   * @return the projects ordered by ascending estimated collection cost
+   */
+  public List<String> cheapestFirst(Collection<String> projectNames) {
+    return projectNames.stream()
+        .sorted(Comparator.comparingLong(this::estimatedCostMs))
+        .collect(toList());
+  }
+}
@@ -0,0 +1,34 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.inject.ImplementedBy;
+import java.util.List;
+
+/**
+ * Discovery of the projects available for the metrics collection.
+ *
+ * <p>By default, this interface is implemented by {@link ProjectCacheDiscovery}, which lists the
+ * projects known to Gerrit.
+ */
+@ImplementedBy(ProjectCacheDiscovery.class)
+public interface ProjectDiscovery {
+  /**
+   * Lists the names of all the discovered projects.
+   *
+   * @return the names of the projects
+   */
+  List<String> listProjectNames();
+}
@@ -0,0 +1,134 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the projects to collect metrics for, out of include and exclude {@link ProjectPattern}s.
+ *
+ * <p>The patterns are compiled into a trie keyed by their literal prefix. Checking a project name
+ * walks the trie once along the name, evaluating only the glob and regular expression patterns
+ * whose literal prefix is also a prefix of the name. Exact names and prefixes are resolved by the
+ * walk itself, so that the check is linear in the length of the name regardless of the number of
+ * rules.
+ */
+public class ProjectFilter {
+  private final boolean includeAll;
+  private final TrieNode includes;
+  private final TrieNode excludes;
+  private final ImmutableSet<String> exactIncludes;
+  private final boolean exactIncludesOnly;
+
+  public ProjectFilter(
+      boolean includeAll, List<String> includePatterns, List<String> excludePatterns) {
+    this.includeAll = includeAll;
+    this.includes = compile(includePatterns);
+    this.excludes = compile(excludePatterns);
+
+    ImmutableSet.Builder<String> exactIncludesBuilder = ImmutableSet.builder();
+    boolean onlyExact = !includeAll;
+    for (String includePattern : includePatterns) {
+      if (new ProjectPattern(includePattern).getType() == ProjectPattern.Type.EXACT) {
+        exactIncludesBuilder.add(includePattern);
+      } else {
+        onlyExact = false;
+      }
+    }
+    this.exactIncludes = exactIncludesBuilder.build();
+    this.exactIncludesOnly = onlyExact;
+  }
+
+  public boolean matches(String projectName) {
+    return (includeAll || includes.matches(projectName)) && !excludes.matches(projectName);
+  }
+
+  /**
+   * Returns whether the selected projects are only listed by their exact names, hence can be
+   * enumerated without scanning all the projects.
+   *
+   * @return {@code true} if only exact project names are included
+   */
+  public boolean hasExactIncludesOnly() {
+    return exactIncludesOnly;
+  }
+
+  public ImmutableSet<String> getExactIncludes() {
+    return exactIncludes;
+  }
+
+  private static TrieNode compile(List<String> patterns) {
+    TrieNode root = new TrieNode();
+    for (String pattern : patterns) {
+      root.add(new ProjectPattern(pattern));
+    }
+    return root;
+  }
+
+  private static class TrieNode {
+    private final Map<Character, TrieNode> children = new HashMap<>();
+    private final List<ProjectPattern> patterns = new ArrayList<>();
+    private boolean exact;
+    private boolean prefix;
+
+    void add(ProjectPattern pattern) {
+      TrieNode node = this;
+      String literalPrefix = pattern.getLiteralPrefix();
+      for (int i = 0; i < literalPrefix.length(); i++) {
+        node = node.children.computeIfAbsent(literalPrefix.charAt(i), c -> new TrieNode());
+      }
+
+      switch (pattern.getType()) {
+        case EXACT:
+          node.exact = true;
+          break;
+        case PREFIX:
+          node.prefix = true;
+          break;
+        default:
+          node.patterns.add(pattern);
+      }
+    }
+
+    boolean matches(String projectName) {
+      TrieNode node = this;
+      for (int i = 0; ; i++) {
+        if (node.prefix || node.matchesAnyPattern(projectName)) {
+          return true;
+        }
+        if (i == projectName.length()) {
+          return node.exact;
+        }
+        node = node.children.get(projectName.charAt(i));
+        if (node == null) {
+          return false;
+        }
+      }
+    }
+
+    private boolean matchesAnyPattern(String projectName) {
+      for (ProjectPattern pattern : patterns) {
+        if (pattern.matches(projectName)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
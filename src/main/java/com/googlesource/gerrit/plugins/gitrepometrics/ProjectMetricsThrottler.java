@@ -16,14 +16,16 @@ package com.googlesource.gerrit.plugins.gitrepometrics;
 
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import java.util.concurrent.ConcurrentHashMap;
 
-class ProjectMetricsThrottler implements ProjectMetricsLimiter {
-  private double rate;
+@Singleton
+class ProjectMetricsThrottler implements ProjectMetricsLimiter, GitRepoMetricsConfigListener {
+  private volatile double rate;
 
   @Inject
   ProjectMetricsThrottler(GitRepoMetricsConfig repoMetricsConfig) {
-    this.rate = (double) 1000L / repoMetricsConfig.getGracePeriodMs();
+    this.rate = rate(repoMetricsConfig);
   }
 
   private ConcurrentHashMap<String, RateLimiter> projectsRateLimiters = new ConcurrentHashMap<>();
@@ -32,4 +34,16 @@ class ProjectMetricsThrottler implements ProjectMetricsLimiter {
   public void acquire(String projectName) {
     projectsRateLimiters.computeIfAbsent(projectName, (p) -> RateLimiter.create(rate)).acquire();
   }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    rate = rate(config);
+    projectsRateLimiters.values().forEach(limiter -> limiter.setRate(rate));
+  }
+
+  private static double rate(GitRepoMetricsConfig config) {
+    long gracePeriodMs = config.getGracePeriodMs();
+    // A grace period removed at runtime disables the throttling
+    return gracePeriodMs > 0 ? (double) 1000L / gracePeriodMs : Double.POSITIVE_INFINITY;
+  }
 }
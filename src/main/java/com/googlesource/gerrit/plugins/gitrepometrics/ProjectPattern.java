@@ -0,0 +1,167 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * A project name pattern, following the same conventions of the Gerrit configuration.
+ *
+ * <ul>
+ *   <li>a pattern starting with {@code ^} is a regular expression
+ *   <li>a pattern ending with {@code *}, without any other wildcard, matches all the project names
+ *       with the preceding prefix
+ *   <li>a pattern containing {@code *}, {@code **} or {@code ?} is a glob, where {@code *} and
+ *       {@code ?} do not match the {@code /} separator, while {@code **} does
+ *   <li>any other pattern matches the exact project name
+ * </ul>
+ */
+public class ProjectPattern {
+  private static final String REGEX_META_CHARS = "\\.[]{}()*+?^$|";
+
+  enum Type {
+    EXACT,
+    PREFIX,
+    GLOB,
+    REGEX
+  }
+
+  private final String pattern;
+  private final Type type;
+  private final String literalPrefix;
+  private final Pattern regex;
+
+  public ProjectPattern(String pattern) {
+    this.pattern = pattern;
+    if (pattern.startsWith("^")) {
+      type = Type.REGEX;
+      literalPrefix = regexLiteralPrefix(pattern);
+      regex = Pattern.compile(pattern);
+    } else if (!hasWildcards(pattern)) {
+      type = Type.EXACT;
+      literalPrefix = pattern;
+      regex = null;
+    } else if (pattern.endsWith("*") && !hasWildcards(stripTrailingStars(pattern))) {
+      type = Type.PREFIX;
+      literalPrefix = stripTrailingStars(pattern);
+      regex = null;
+    } else {
+      type = Type.GLOB;
+      literalPrefix = pattern.substring(0, firstWildcard(pattern));
+      regex = Pattern.compile(globToRegex(pattern));
+    }
+  }
+
+  public boolean matches(String projectName) {
+    switch (type) {
+      case EXACT:
+        return projectName.equals(pattern);
+      case PREFIX:
+        return projectName.startsWith(literalPrefix);
+      default:
+        return regex.matcher(projectName).matches();
+    }
+  }
+
+  Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the literal prefix that all the project names matching this pattern start with.
+   *
+   * @return the literal prefix, possibly empty
+   */
+  String getLiteralPrefix() {
+    return literalPrefix;
+  }
+
+  private static boolean hasWildcards(String pattern) {
+    return firstWildcard(pattern) < pattern.length();
+  }
+
+  private static int firstWildcard(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*' || c == '?') {
+        return i;
+      }
+    }
+    return pattern.length();
+  }
+
+  private static String stripTrailingStars(String pattern) {
+    int end = pattern.length();
+    while (end > 0 && pattern.charAt(end - 1) == '*') {
+      end--;
+    }
+    return pattern.substring(0, end);
+  }
+
+  private static String globToRegex(String glob) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      if (c != '*' && c != '?') {
+        literal.append(c);
+        continue;
+      }
+
+      if (literal.length() > 0) {
+        regex.append(Pattern.quote(literal.toString()));
+        literal.setLength(0);
+      }
+      if (c == '?') {
+        regex.append("[^/]");
+      } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+        regex.append(".*");
+        i++;
+      } else {
+        regex.append("[^/]*");
+      }
+    }
+    if (literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return regex.toString();
+  }
+
+  private static String regexLiteralPrefix(String regex) {
+    if (regex.indexOf('|') >= 0) {
+      // Alternatives may have different prefixes
+      return "";
+    }
+
+    StringBuilder prefix = new StringBuilder();
+    for (int i = 1; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (REGEX_META_CHARS.indexOf(c) >= 0) {
+        if ((c == '*' || c == '?' || c == '{') && prefix.length() > 0) {
+          // The previous character is optional or repeated
+          prefix.setLength(prefix.length() - 1);
+        }
+        break;
+      }
+      prefix.append(c);
+    }
+    return prefix.toString();
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Absorbs the fan-out of the replication events, which are sent once per replicated ref, into a
+ * single collection per project and batch window.
+ *
+ * <p>The first replication event of a project opens its batch, and schedules the collection at the
+ * end of the window. The following events of the same project within the window are only checked
+ * against the set of open batches, and events arriving after the collection started open a new
+ * batch, so that the refs replicated meanwhile are collected too.
+ */
+@Singleton
+class ReplicationEventBatcher implements GitRepoMetricsConfigListener {
+  private final ScheduledExecutorService executor;
+  private final Set<String> batchedProjects = ConcurrentHashMap.newKeySet();
+  private volatile long batchWindowMs;
+
+  @Inject
+  ReplicationEventBatcher(
+      @UpdateGitMetricsExecutor ScheduledExecutorService executor, GitRepoMetricsConfig config) {
+    this(executor, config.getReplicationBatchWindowMs());
+  }
+
+  @VisibleForTesting
+  ReplicationEventBatcher(ScheduledExecutorService executor, long batchWindowMs) {
+    this.executor = executor;
+    this.batchWindowMs = batchWindowMs;
+  }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    batchWindowMs = config.getReplicationBatchWindowMs();
+  }
+
+  /**
+   * Adds a replication event of the project to its batch, opening one if needed.
+   *
+   * @param projectName the name of the replicated project
+   * @param collection triggers the collection of the project, run once per batch
+   * @return {@code false} if batching is disabled, in which case the caller triggers the collection
+   */
+  boolean add(String projectName, Runnable collection) {
+    long windowMs = batchWindowMs;
+    if (windowMs <= 0) {
+      return false;
+    }
+
+    if (batchedProjects.add(projectName)) {
+      executor.schedule(
+          () -> {
+            batchedProjects.remove(projectName);
+            collection.run();
+          },
+          windowMs,
+          TimeUnit.MILLISECONDS);
+    }
+    return true;
+  }
+}
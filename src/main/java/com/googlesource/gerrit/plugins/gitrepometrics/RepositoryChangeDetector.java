@@ -0,0 +1,177 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+
+/**
+ * Detects whether a repository has changed since its previous collection.
+ *
+ * <p>The detection is based only on the modification times and sizes of the repository files and
+ * directories that change whenever objects or refs are added or removed: the objects directory
+ * with its loose objects fan-out directories, the pack directory, the packed-refs file, the loose
+ * refs directories and the reftable stack. No file content is ever read.
+ *
+ * <p>The fingerprint is recorded per collector once it has reported its metrics, so that a
+ * collector skipped, for instance because of its interval, or failing is still run at the next
+ * collection, even if the repository did not change meanwhile. The fingerprints of a project are
+ * dropped along with its cached metrics.
+ */
+@Singleton
+public class RepositoryChangeDetector
+    implements GitRepoMetricsConfigListener, DroppedProjectListener {
+  private volatile boolean enabled;
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, Long>> fingerprints =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  RepositoryChangeDetector(GitRepoMetricsConfig config) {
+    this.enabled = config.isSkipUnchangedRepositories();
+  }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    this.enabled = config.isSkipUnchangedRepositories();
+  }
+
+  @Override
+  public void onProjectDropped(String projectName) {
+    fingerprints.remove(projectName);
+  }
+
+  /**
+   * Computes the current fingerprint of the repository.
+   *
+   * @param repository {@link FileRepository} of the project
+   * @return the fingerprint, or empty if the change detection is disabled
+   * @throws IOException if the repository files cannot be read
+   */
+  public Optional<Long> fingerprint(FileRepository repository) throws IOException {
+    return enabled ? Optional.of(fingerprint(repository)) : Optional.empty();
+  }
+
+  /**
+   * Checks whether the repository has changed since the collector last reported its metrics.
+   *
+   * @param projectName name of the project
+   * @param collectorName name of the collector
+   * @param fingerprint current fingerprint of the repository
+   * @return {@code true} if the repository changed or the collector never reported its metrics
+   */
+  public boolean hasChanged(String projectName, String collectorName, long fingerprint) {
+    Map<String, Long> projectFingerprints = fingerprints.get(projectName);
+    return projectFingerprints == null
+        || !Objects.equals(projectFingerprints.get(collectorName), fingerprint);
+  }
+
+  /**
+   * Records the fingerprint of the repository the collector reported its metrics for.
+   *
+   * @param projectName name of the project
+   * @param collectorName name of the collector
+   * @param fingerprint fingerprint of the repository taken before running the collector
+   */
+  public void recordCollection(String projectName, String collectorName, long fingerprint) {
+    fingerprints
+        .computeIfAbsent(projectName, p -> new ConcurrentHashMap<>())
+        .put(collectorName, fingerprint);
+  }
+
+  @VisibleForTesting
+  static long fingerprint(FileRepository repository) throws IOException {
+    Path objectsDir = repository.getObjectsDirectory().toPath();
+    Path gitDir = repository.getDirectory().toPath();
+    SortedMap<Path, BasicFileAttributes> attributes = new TreeMap<>();
+
+    // The objects directory itself, the pack directory and the loose objects fan-out directories
+    collectDirectories(objectsDir, 1, attributes);
+    collectDirectories(gitDir.resolve("refs"), Integer.MAX_VALUE, attributes);
+    collectFile(gitDir.resolve("packed-refs"), attributes);
+    collectFile(gitDir.resolve("reftable").resolve("tables.list"), attributes);
+
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    attributes.forEach(
+        (path, attrs) ->
+            hasher
+                .putUnencodedChars(path.toString())
+                .putLong(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS))
+                .putLong(attrs.size()));
+    return hasher.hash().asLong();
+  }
+
+  private static void collectDirectories(
+      Path root, int maxDepth, Map<Path, BasicFileAttributes> attributes) throws IOException {
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+
+    Files.walkFileTree(
+        root,
+        EnumSet.noneOf(FileVisitOption.class),
+        maxDepth,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            attributes.put(dir, attrs);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            // Directories at the maximum depth are visited as files
+            if (attrs.isDirectory()) {
+              attributes.put(file, attrs);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) {
+            // Concurrently removed entries, e.g. pruned loose objects
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private static void collectFile(Path file, Map<Path, BasicFileAttributes> attributes)
+      throws IOException {
+    try {
+      attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+    } catch (NoSuchFileException e) {
+      // Missing files are part of the fingerprint by their absence
+    }
+  }
+}
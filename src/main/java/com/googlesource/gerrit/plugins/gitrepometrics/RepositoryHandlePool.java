@@ -0,0 +1,209 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.server.git.DelegateRepository;
+import com.google.inject.Inject;
+import com.google.inject.ProvisionException;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Provides the {@link FileRepository} handles used by the collections.
+ *
+ * <p>The repositories of the projects matching a {@code hotProject} pattern are kept open across
+ * collections: their handles are reference counted and closed only after being unused for the
+ * {@code hotRepositoryIdleTimeout}. The repositories of all the other projects are opened for each
+ * collection and closed at its end.
+ */
+@Singleton
+public class RepositoryHandlePool {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final RepositoryResolver repositoryResolver;
+  private final GitRepoMetricsConfig config;
+  private final Map<String, PooledRepository> pooledRepositories = new HashMap<>();
+  private final Counter0 hits;
+  private final Counter0 misses;
+
+  @Inject
+  RepositoryHandlePool(
+      RepositoryResolver repositoryResolver, GitRepoMetricsConfig config, MetricMaker metricMaker) {
+    this.repositoryResolver = repositoryResolver;
+    this.config = config;
+    if (config.getHotRepositoryNames().isEmpty()) {
+      hits = null;
+      misses = null;
+    } else {
+      hits =
+          metricMaker.newCounter(
+              "hot_repository_handle_hits",
+              new Description("Collections reusing a pooled repository handle")
+                  .setRate()
+                  .setUnit("handles"));
+      misses =
+          metricMaker.newCounter(
+              "hot_repository_handle_misses",
+              new Description("Collections opening a repository handle to be pooled")
+                  .setRate()
+                  .setUnit("handles"));
+    }
+  }
+
+  /**
+   * Opens the repository of the project.
+   *
+   * @param projectName name of the project
+   * @return the handle of the repository, to be closed by the caller
+   * @throws IOException if the repository cannot be opened
+   */
+  public RepositoryHandle open(String projectName) throws IOException {
+    if (!config.getHotProjectFilter().matches(projectName)) {
+      Repository repository = repositoryResolver.openRepository(projectName);
+      return new RepositoryHandle(getFileRepository(repository), repository::close);
+    }
+
+    PooledRepository pooled = acquire(projectName);
+    if (pooled == null) {
+      // Opened out of the lock, so that a slow open never delays the ones of the other projects
+      PooledRepository opened =
+          new PooledRepository(repositoryResolver.openRepository(projectName));
+      pooled = acquire(projectName, opened);
+      if (pooled != opened) {
+        // Concurrently opened and pooled by another collection
+        opened.repository.close();
+      }
+    }
+    PooledRepository acquired = pooled;
+    return new RepositoryHandle(acquired.fileRepository, () -> release(acquired));
+  }
+
+  private synchronized PooledRepository acquire(String projectName) {
+    PooledRepository pooled = pooledRepositories.get(projectName);
+    if (pooled != null) {
+      pooled.references++;
+      increment(hits);
+    }
+    return pooled;
+  }
+
+  private synchronized PooledRepository acquire(String projectName, PooledRepository opened) {
+    PooledRepository pooled = pooledRepositories.putIfAbsent(projectName, opened);
+    if (pooled == null) {
+      pooled = opened;
+      increment(misses);
+    } else {
+      increment(hits);
+    }
+    pooled.references++;
+    return pooled;
+  }
+
+  /** Closes the pooled repositories that have been unused for longer than the idle timeout. */
+  public void evictIdle() {
+    evictIdle(System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  synchronized void evictIdle(long nowMs) {
+    long idleTimeoutMs = config.getHotRepositoryIdleTimeoutMs();
+    Iterator<Map.Entry<String, PooledRepository>> entries =
+        pooledRepositories.entrySet().iterator();
+    while (entries.hasNext()) {
+      Map.Entry<String, PooledRepository> entry = entries.next();
+      PooledRepository pooled = entry.getValue();
+      if (pooled.references == 0 && nowMs - pooled.lastReleasedMs >= idleTimeoutMs) {
+        logger.atFine().log("Closing idle repository handle of %s", entry.getKey());
+        pooled.repository.close();
+        entries.remove();
+      }
+    }
+  }
+
+  /** Closes all the unused pooled repositories. */
+  public void evictAll() {
+    evictIdle(Long.MAX_VALUE);
+  }
+
+  @VisibleForTesting
+  synchronized int size() {
+    return pooledRepositories.size();
+  }
+
+  private synchronized void release(PooledRepository pooled) {
+    pooled.references--;
+    pooled.lastReleasedMs = System.currentTimeMillis();
+  }
+
+  private static void increment(Counter0 counter) {
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  private static FileRepository getFileRepository(Repository repo) {
+    if (repo instanceof DelegateRepository) {
+      return getFileRepository(((DelegateRepository) repo).delegate());
+    }
+
+    if (repo instanceof FileRepository) {
+      return (FileRepository) repo;
+    }
+
+    throw new ProvisionException("git-repo-metrics plugin can only be used with FileRepository");
+  }
+
+  /** A handle of an open repository, releasing it when closed. */
+  public static class RepositoryHandle implements AutoCloseable {
+    private final FileRepository fileRepository;
+    private final Runnable release;
+
+    RepositoryHandle(FileRepository fileRepository, Runnable release) {
+      this.fileRepository = fileRepository;
+      this.release = release;
+    }
+
+    public FileRepository getFileRepository() {
+      return fileRepository;
+    }
+
+    @Override
+    public void close() {
+      release.run();
+    }
+  }
+
+  private static class PooledRepository {
+    final Repository repository;
+    final FileRepository fileRepository;
+    int references;
+    long lastReleasedMs;
+
+    PooledRepository(Repository repository) {
+      this.repository = repository;
+      this.fileRepository = getFileRepository(repository);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/** Periodically closes the idle repository handles of the hot projects. */
+@Singleton
+public class RepositoryHandlePoolCleaner implements LifecycleListener {
+  private final ScheduledExecutorService backgroundExecutor;
+  private final RepositoryHandlePool repositoryHandlePool;
+  private final long idleTimeoutMs;
+  private ScheduledFuture<?> cleanerTask;
+
+  @Inject
+  RepositoryHandlePoolCleaner(
+      @BackgroundGitMetricsExecutor ScheduledExecutorService backgroundExecutor,
+      RepositoryHandlePool repositoryHandlePool,
+      GitRepoMetricsConfig config) {
+    this.backgroundExecutor = backgroundExecutor;
+    this.repositoryHandlePool = repositoryHandlePool;
+    this.idleTimeoutMs = config.getHotRepositoryIdleTimeoutMs();
+  }
+
+  @Override
+  public void start() {
+    long periodMs = Math.max(idleTimeoutMs / 2, 1L);
+    cleanerTask =
+        backgroundExecutor.scheduleAtFixedRate(
+            repositoryHandlePool::evictIdle, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    cleanerTask.cancel(true);
+    repositoryHandlePool.evictAll();
+  }
+}
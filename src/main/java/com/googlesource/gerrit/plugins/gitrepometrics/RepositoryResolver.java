@@ -0,0 +1,108 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.config.GerritServerConfig;
+import com.google.gerrit.server.config.SitePaths;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * Opens the repositories of the projects through the {@link GitRepositoryManager}, caching their
+ * repository names.
+ *
+ * <p>The repository name of a project is computed through the {@link GitBackend} the first time it
+ * is opened, e.g. hashing the project name for {@link GitBackend#GITLAB}, and then cached, bounded
+ * to the most recently used projects.
+ *
+ * <p>With the {@link GitBackend#FILESYSTEM} backend, the projects are discovered on the file system
+ * and may include repositories that the repository manager does not serve. Those are opened
+ * straight from their directory under the base path, only once the manager could not find them.
+ */
+@Singleton
+public class RepositoryResolver {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final GitRepositoryManager repoManager;
+  private final GitBackend gitBackend;
+  private final Path basePath;
+  private final Cache<String, Project.NameKey> repositoryNames;
+
+  @Inject
+  RepositoryResolver(
+      GitRepositoryManager repoManager,
+      @GerritServerConfig Config gerritConfig,
+      SitePaths sitePaths,
+      GitRepoMetricsConfig config) {
+    this(
+        repoManager, config, sitePaths.resolve(gerritConfig.getString("gerrit", null, "basePath")));
+  }
+
+  @VisibleForTesting
+  RepositoryResolver(GitRepositoryManager repoManager, GitRepoMetricsConfig config, Path basePath) {
+    this.repoManager = repoManager;
+    this.gitBackend = config.getGitBackend();
+    this.basePath = basePath;
+    this.repositoryNames =
+        CacheBuilder.newBuilder().maximumSize(config.getRepositoryPathCacheSize()).build();
+  }
+
+  /**
+   * Opens the repository of the project.
+   *
+   * @param projectName name of the project
+   * @return the repository, to be closed by the caller
+   * @throws RepositoryNotFoundException if the project has no repository
+   * @throws IOException if the repository cannot be opened
+   */
+  public Repository openRepository(String projectName) throws IOException {
+    Project.NameKey repositoryName;
+    try {
+      repositoryName =
+          repositoryNames.get(projectName, () -> Project.nameKey(gitBackend.repoPath(projectName)));
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+
+    try {
+      return repoManager.openRepository(repositoryName);
+    } catch (RepositoryNotFoundException e) {
+      if (gitBackend != GitBackend.FILESYSTEM || basePath == null) {
+        throw e;
+      }
+      logger.atFine().log(
+          "Repository of %s not served by the repository manager, opening it from %s",
+          projectName, basePath);
+      return RepositoryCache.open(
+          RepositoryCache.FileKey.lenient(
+              basePath.resolve(repositoryName.get()).toFile(), FS.DETECTED),
+          true);
+    }
+  }
+}
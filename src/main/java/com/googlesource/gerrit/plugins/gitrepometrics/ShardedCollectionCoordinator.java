@@ -0,0 +1,131 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.server.config.GerritInstanceId;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Splits the projects among the configured nodes with consistent hashing, each node collecting
+ * only the metrics of its own shard.
+ *
+ * <p>When the list of nodes changes, the cached metrics of the projects moved to other nodes are
+ * dropped, while the projects moved to this node are collected on the background lane. An emptied
+ * list makes every node collect all the projects, as when sharding is not configured, while a list
+ * not including this node is rejected, so that no reload ever stops all the collections.
+ */
+@Singleton
+class ShardedCollectionCoordinator implements CollectionCoordinator, GitRepoMetricsConfigListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final String nodeId;
+  private final GitRepoMetricsCache gitRepoMetricsCache;
+  private final ProjectDiscovery projectDiscovery;
+  private final Provider<BackgroundCollectionLane> backgroundCollectionLane;
+  private volatile ConsistentHashRing ring;
+  private int virtualNodes;
+
+  @Inject
+  ShardedCollectionCoordinator(
+      @Nullable @GerritInstanceId String instanceId,
+      GitRepoMetricsConfig config,
+      GitRepoMetricsCache gitRepoMetricsCache,
+      ProjectDiscovery projectDiscovery,
+      Provider<BackgroundCollectionLane> backgroundCollectionLane) {
+    this.nodeId = instanceId;
+    this.gitRepoMetricsCache = gitRepoMetricsCache;
+    this.projectDiscovery = projectDiscovery;
+    this.backgroundCollectionLane = backgroundCollectionLane;
+    this.virtualNodes = config.getShardVirtualNodes();
+    this.ring = new ConsistentHashRing(config.getShardNodes(), virtualNodes);
+    if (!isCollecting()) {
+      logger.atWarning().log(
+          "Node %s is not one of the shard nodes %s, no metrics will be collected",
+          nodeId, ring.getNodes());
+    }
+  }
+
+  @Override
+  public boolean isCollecting() {
+    ImmutableSortedSet<String> nodes = ring.getNodes();
+    return nodes.isEmpty() || (nodeId != null && nodes.contains(nodeId));
+  }
+
+  @Override
+  public boolean isCollecting(String projectName) {
+    return isCollecting(ring, projectName);
+  }
+
+  @Override
+  public boolean isCoordinated() {
+    return true;
+  }
+
+  @Override
+  public synchronized void onConfigReloaded(GitRepoMetricsConfig config) {
+    List<String> newNodes = config.getShardNodes();
+    int newVirtualNodes = config.getShardVirtualNodes();
+    ConsistentHashRing previousRing = ring;
+    if (previousRing.getNodes().equals(ImmutableSortedSet.copyOf(newNodes))
+        && newVirtualNodes == virtualNodes) {
+      return;
+    }
+    if (!newNodes.isEmpty() && (nodeId == null || !newNodes.contains(nodeId))) {
+      logger.atWarning().log(
+          "Node %s is not one of the reloaded shard nodes %s, keeping the shard nodes %s",
+          nodeId, newNodes, previousRing.getNodes());
+      return;
+    }
+
+    logger.atInfo().log("Rebalancing the collection of metrics over the nodes %s", newNodes);
+    virtualNodes = newVirtualNodes;
+    ring = new ConsistentHashRing(newNodes, newVirtualNodes);
+    gitRepoMetricsCache.dropMetrics(projectName -> !isCollecting(projectName));
+    if (isCollecting()) {
+      backgroundCollectionLane
+          .get()
+          .submit(
+              listProjects(config.getProjectFilter())
+                  .filter(projectName -> isCollecting(projectName))
+                  .filter(projectName -> !isCollecting(previousRing, projectName))
+                  .collect(toList()));
+    }
+  }
+
+  private boolean isCollecting(ConsistentHashRing ring, String projectName) {
+    if (ring.getNodes().isEmpty()) {
+      return true;
+    }
+    return nodeId != null && Objects.equals(ring.getNode(projectName).orElse(null), nodeId);
+  }
+
+  private Stream<String> listProjects(ProjectFilter projectFilter) {
+    Stream<String> projectNames =
+        projectFilter.hasExactIncludesOnly()
+            ? projectFilter.getExactIncludes().stream()
+            : projectDiscovery.listProjectNames().stream();
+    return projectNames.filter(projectFilter::matches);
+  }
+}
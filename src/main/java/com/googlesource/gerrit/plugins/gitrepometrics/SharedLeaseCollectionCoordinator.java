@@ -0,0 +1,374 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.config.GerritInstanceId;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects, among the nodes sharing the same repositories, the only one collecting the metrics.
+ *
+ * <p>The nodes compete for a lease recorded in a directory shared by all of them. The lease file
+ * is only read and written while holding the lock of a separate lock file, so that its renewal or
+ * takeover is atomic across the nodes. The holder renews the lease three times per lease duration
+ * and stops collecting as soon as its lease expires, even if it could not renew it, so that two
+ * nodes never collect at the same time as long as their clocks are synchronized.
+ *
+ * <p>The leader periodically publishes all its cached metrics to a snapshot file in the same
+ * directory, which the other nodes load into their own cache, so that all the nodes serve the same
+ * values.
+ */
+@Singleton
+class SharedLeaseCollectionCoordinator implements CollectionCoordinator, LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final String LOCK_FILE = "leader.lock";
+  private static final String LEASE_FILE = "leader.lease";
+  private static final String SNAPSHOT_FILE = "metrics.snapshot";
+  private static final String METRIC_LINE = "metric";
+  private static final String VALUE_LINE = "value";
+
+  private final GitRepoMetricsCache gitRepoMetricsCache;
+  private final Path directory;
+  private final long leaseDurationMs;
+  private final long snapshotIntervalMs;
+  private final String nodeId;
+  private volatile long leaseExpiryMs;
+  private long lastSnapshotMs;
+  private List<Object> loadedSnapshotVersion;
+  private ScheduledExecutorService leaseExecutor;
+
+  @Inject
+  SharedLeaseCollectionCoordinator(
+      GitRepoMetricsCache gitRepoMetricsCache,
+      GitRepoMetricsConfig config,
+      @Nullable @GerritInstanceId String instanceId) {
+    this(
+        gitRepoMetricsCache,
+        config.getCoordinationDirectory().get(),
+        config.getLeaseDurationMs(),
+        config.getSnapshotIntervalMs(),
+        instanceId != null ? instanceId : UUID.randomUUID().toString());
+  }
+
+  @VisibleForTesting
+  SharedLeaseCollectionCoordinator(
+      GitRepoMetricsCache gitRepoMetricsCache,
+      Path directory,
+      long leaseDurationMs,
+      long snapshotIntervalMs,
+      String nodeId) {
+    this.gitRepoMetricsCache = gitRepoMetricsCache;
+    this.directory = directory;
+    this.leaseDurationMs = leaseDurationMs;
+    this.snapshotIntervalMs = snapshotIntervalMs;
+    this.nodeId = nodeId;
+  }
+
+  @Override
+  public synchronized void start() {
+    // Elect the leader before the initial collection is triggered by the other listeners
+    renew(System.currentTimeMillis());
+
+    // A dedicated thread, so that the renewal is never delayed by long running collections
+    leaseExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("git-repo-metrics-collection-lease")
+                .setDaemon(true)
+                .build());
+    long renewalIntervalMs = Math.max(1L, leaseDurationMs / 3);
+    leaseExecutor.scheduleAtFixedRate(
+        () -> renew(System.currentTimeMillis()),
+        renewalIntervalMs,
+        renewalIntervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (leaseExecutor != null) {
+      leaseExecutor.shutdownNow();
+      leaseExecutor = null;
+    }
+    release(System.currentTimeMillis());
+  }
+
+  @Override
+  public boolean isCollecting() {
+    return isCollecting(System.currentTimeMillis());
+  }
+
+  @Override
+  public boolean isCollecting(String projectName) {
+    return isCollecting();
+  }
+
+  @Override
+  public boolean isCoordinated() {
+    return true;
+  }
+
+  @VisibleForTesting
+  boolean isCollecting(long nowMs) {
+    return nowMs < leaseExpiryMs;
+  }
+
+  /**
+   * Acquires or renews the lease, then either publishes the metrics snapshot, when holding the
+   * lease, or loads the one published by the current holder.
+   *
+   * @param nowMs the current time in milliseconds since the epoch
+   */
+  @VisibleForTesting
+  synchronized void renew(long nowMs) {
+    try {
+      Files.createDirectories(directory);
+      boolean wasCollecting = isCollecting(nowMs);
+      updateLease(nowMs);
+      if (isCollecting(nowMs)) {
+        if (!wasCollecting) {
+          logger.atInfo().log("Node %s is now collecting the metrics", nodeId);
+        }
+        if (!wasCollecting || nowMs - lastSnapshotMs >= snapshotIntervalMs) {
+          publishSnapshot();
+          lastSnapshotMs = nowMs;
+        }
+      } else {
+        if (wasCollecting) {
+          logger.atInfo().log("Node %s is no longer collecting the metrics", nodeId);
+        }
+        loadSnapshot();
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.atSevere().withCause(e).log(
+          "Cannot coordinate the collection of metrics through %s", directory);
+    }
+  }
+
+  /**
+   * Publishes the latest metrics and gives up the lease, if held, so that another node can take
+   * over without waiting for its expiry.
+   *
+   * @param nowMs the current time in milliseconds since the epoch
+   */
+  @VisibleForTesting
+  synchronized void release(long nowMs) {
+    if (!isCollecting(nowMs)) {
+      return;
+    }
+
+    leaseExpiryMs = 0;
+    try {
+      publishSnapshot();
+      withLeaseLock(
+          () -> {
+            if (nodeId.equals(readLease().holder)) {
+              Files.deleteIfExists(directory.resolve(LEASE_FILE));
+            }
+          });
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Cannot release the collection lease of node %s", nodeId);
+    }
+  }
+
+  private void updateLease(long nowMs) throws IOException {
+    boolean locked =
+        withLeaseLock(
+            () -> {
+              Lease lease = readLease();
+              if (lease.holder == null
+                  || nodeId.equals(lease.holder)
+                  || lease.expiryMs <= nowMs) {
+                long newExpiryMs = nowMs + leaseDurationMs;
+                writeAtomically(
+                    directory.resolve(LEASE_FILE),
+                    List.of(nodeId, Long.toString(newExpiryMs)));
+                leaseExpiryMs = newExpiryMs;
+              } else {
+                leaseExpiryMs = 0;
+              }
+            });
+    if (!locked) {
+      logger.atFine().log("Collection lease busy, retrying at the next renewal");
+    }
+  }
+
+  /**
+   * Runs the action while holding the lock of the lease, unless it is held by someone else.
+   *
+   * @return {@code false} if the lock is held by someone else, and the action was not run
+   */
+  private boolean withLeaseLock(LeaseAction action) throws IOException {
+    try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), CREATE, WRITE)) {
+      FileLock lock;
+      try {
+        lock = channel.tryLock();
+      } catch (OverlappingFileLockException e) {
+        // Held by another instance within the same JVM
+        return false;
+      }
+      if (lock == null) {
+        return false;
+      }
+      try {
+        action.run();
+      } finally {
+        lock.release();
+      }
+      return true;
+    }
+  }
+
+  private Lease readLease() throws IOException {
+    try {
+      List<String> lines = Files.readAllLines(directory.resolve(LEASE_FILE), UTF_8);
+      if (lines.size() < 2) {
+        return new Lease(null, 0);
+      }
+      return new Lease(lines.get(0), Long.parseLong(lines.get(1)));
+    } catch (NoSuchFileException e) {
+      return new Lease(null, 0);
+    } catch (NumberFormatException e) {
+      logger.atWarning().log("Ignoring malformed collection lease in %s", directory);
+      return new Lease(null, 0);
+    }
+  }
+
+  private void publishSnapshot() throws IOException {
+    Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    Path tempFile = Files.createTempFile(directory, SNAPSHOT_FILE, ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        for (Map.Entry<GitRepoMetric, Map<String, Long>> metric :
+            gitRepoMetricsCache.exportMetrics().entrySet()) {
+          GitRepoMetric repoMetric = metric.getKey();
+          writeLine(
+              writer,
+              METRIC_LINE,
+              repoMetric.getName(),
+              repoMetric.getUnit(),
+              repoMetric.getDescription());
+          for (Map.Entry<String, Long> value : metric.getValue().entrySet()) {
+            writeLine(writer, VALUE_LINE, value.getKey(), value.getValue().toString());
+          }
+        }
+      }
+      Files.move(tempFile, snapshotFile, ATOMIC_MOVE, REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private void loadSnapshot() throws IOException {
+    Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    Map<GitRepoMetric, Map<String, Long>> snapshot = new HashMap<>();
+    List<Object> snapshotVersion;
+    try {
+      // Every snapshot is moved in place as a new file, the modification time alone might not
+      // change when published twice within its resolution
+      BasicFileAttributes attributes =
+          Files.readAttributes(snapshotFile, BasicFileAttributes.class);
+      snapshotVersion = Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime());
+      if (snapshotVersion.equals(loadedSnapshotVersion)) {
+        return;
+      }
+
+      try (BufferedReader reader = Files.newBufferedReader(snapshotFile, UTF_8)) {
+        Map<String, Long> projectsValues = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] fields = line.split("\t", -1);
+          if (fields[0].equals(METRIC_LINE) && fields.length == 4) {
+            projectsValues = new HashMap<>();
+            snapshot.put(new GitRepoMetric(fields[1], fields[3], fields[2]), projectsValues);
+          } else if (fields[0].equals(VALUE_LINE) && fields.length == 3 && projectsValues != null) {
+            projectsValues.put(fields[1], Long.parseLong(fields[2]));
+          } else {
+            throw new IOException("Malformed metrics snapshot line: " + line);
+          }
+        }
+      }
+    } catch (NoSuchFileException e) {
+      return;
+    } catch (NumberFormatException e) {
+      throw new IOException("Malformed metrics snapshot " + snapshotFile, e);
+    }
+
+    gitRepoMetricsCache.importMetrics(snapshot);
+    loadedSnapshotVersion = snapshotVersion;
+    logger.atFine().log("Loaded metrics snapshot of %d metrics", snapshot.size());
+  }
+
+  private void writeAtomically(Path file, List<String> lines) throws IOException {
+    Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tempFile, lines, UTF_8);
+      Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static void writeLine(BufferedWriter writer, String... fields) throws IOException {
+    writer.write(String.join("\t", fields));
+    writer.newLine();
+  }
+
+  @FunctionalInterface
+  private interface LeaseAction {
+    void run() throws IOException;
+  }
+
+  private static class Lease {
+    final String holder;
+    final long expiryMs;
+
+    Lease(String holder, long expiryMs) {
+      this.holder = holder;
+      this.expiryMs = expiryMs;
+    }
+  }
+}
@@ -20,10 +20,13 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Singleton
-public class UpdateGitMetricsExecutorProvider implements Provider<ScheduledExecutorService> {
+public class UpdateGitMetricsExecutorProvider
+    implements Provider<ScheduledExecutorService>, GitRepoMetricsConfigListener {
   private final ScheduledExecutorService executor;
+  private final ScheduledExecutorService collectorTimingExecutor;
 
   @Inject
   UpdateGitMetricsExecutorProvider(
@@ -32,10 +35,18 @@ public class UpdateGitMetricsExecutorProvider implements Provider<ScheduledExecu
       GitRepoMetricsConfig gitRepoMetricsConfig) {
     executor =
         workQueue.createQueue(gitRepoMetricsConfig.getPoolSize(), "[" + pluginName + " plugin]");
+    collectorTimingExecutor = new CollectorTimingExecutor(executor);
   }
 
   @Override
   public ScheduledExecutorService get() {
-    return executor;
+    return collectorTimingExecutor;
+  }
+
+  @Override
+  public void onConfigReloaded(GitRepoMetricsConfig config) {
+    if (executor instanceof ThreadPoolExecutor) {
+      ((ThreadPoolExecutor) executor).setCorePoolSize(config.getPoolSize());
+    }
   }
 }
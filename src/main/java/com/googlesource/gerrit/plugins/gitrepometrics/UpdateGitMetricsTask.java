@@ -14,20 +14,26 @@
 
 package com.googlesource.gerrit.plugins.gitrepometrics;
 
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableMap;
 import com.google.common.flogger.FluentLogger;
-import com.google.gerrit.entities.Project;
-import com.google.gerrit.server.git.DelegateRepository;
-import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.inject.Inject;
-import com.google.inject.ProvisionException;
 import com.google.inject.assistedinject.Assisted;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.MetricsCollector;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
-import org.eclipse.jgit.lib.Repository;
 
 public class UpdateGitMetricsTask implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
@@ -38,35 +44,108 @@ public class UpdateGitMetricsTask implements Runnable {
 
   private final String projectName;
   private GitRepoMetricsCache gitRepoMetricsCache;
-  private GitRepositoryManager repoManager;
-  private GitBackend gitBackend;
+  private RepositoryHandlePool repositoryHandlePool;
+  private ProjectCollectionCostTracker collectionCostTracker;
+  private RepositoryChangeDetector repositoryChangeDetector;
+  private CollectorIntervals collectorIntervals;
+  private DynamicSet<DerivedMetrics> derivedMetrics;
+  private CollectionCoordinator collectionCoordinator;
+  private final CompletableFuture<Void> collected = new CompletableFuture<>();
 
   @Inject
   UpdateGitMetricsTask(
       GitRepoMetricsCache gitRepoMetricsCache,
-      GitRepositoryManager repoManager,
-      GitRepoMetricsConfig config,
+      RepositoryHandlePool repositoryHandlePool,
+      ProjectCollectionCostTracker collectionCostTracker,
+      RepositoryChangeDetector repositoryChangeDetector,
+      CollectorIntervals collectorIntervals,
+      DynamicSet<DerivedMetrics> derivedMetrics,
+      CollectionCoordinator collectionCoordinator,
       @Assisted String projectName) {
     this.projectName = projectName;
     this.gitRepoMetricsCache = gitRepoMetricsCache;
-    this.repoManager = repoManager;
-    this.gitBackend = config.getGitBackend();
+    this.repositoryHandlePool = repositoryHandlePool;
+    this.collectionCostTracker = collectionCostTracker;
+    this.repositoryChangeDetector = repositoryChangeDetector;
+    this.collectorIntervals = collectorIntervals;
+    this.derivedMetrics = derivedMetrics;
+    this.collectionCoordinator = collectionCoordinator;
   }
 
   @Override
   public void run() {
-    Project.NameKey projectNameKey = Project.nameKey(gitBackend.repoPath(projectName));
-    try (Repository repository = repoManager.openRepository(projectNameKey)) {
+    collect(false);
+  }
+
+  /**
+   * Runs the collection unless the repository did not change since its previous collection, in
+   * which case only the collection time of the existing metrics is refreshed.
+   *
+   * <p>The check is skipped, and the collection always performed, when {@code
+   * skipUnchangedRepositories} is not enabled.
+   */
+  public void runIfChanged() {
+    collect(true);
+  }
+
+  private void collect(boolean skipIfUnchanged) {
+    if (!collectionCoordinator.isCollecting(projectName)) {
+      logger.atFine().log("Metrics collected by another node, skipping project %s", projectName);
+      collected.complete(null);
+      return;
+    }
+
+    RepositoryHandlePool.RepositoryHandle repositoryHandle;
+    try {
+      repositoryHandle = repositoryHandlePool.open(projectName);
+    } catch (RepositoryNotFoundException e) {
+      logger.atSevere().withCause(e).log("Cannot find repository for %s", projectName);
+      collected.complete(null);
+      return;
+    } catch (IOException e) {
+      logger.atSevere().withCause(e).log(
+          "Something went wrong when opening the repository for %s", projectName);
+      collected.complete(null);
+      return;
+    }
+    // The collectors run asynchronously, hence the repository is in use until all of them completed
+    collected.whenComplete((result, error) -> repositoryHandle.close());
+
+    try {
+      FileRepository fileRepository = repositoryHandle.getFileRepository();
       logger.atInfo().log(
           "Running task to collect stats: repo %s, project %s",
-          repository.getIdentifier(), projectName);
-
-      gitRepoMetricsCache.getCollectors().stream()
-          .forEach(
-              metricsCollector -> {
-                metricsCollector.collect(
-                    getFileRepository(repository),
-                    projectName,
+          fileRepository.getIdentifier(), projectName);
+
+      Optional<Long> fingerprint = repositoryChangeDetector.fingerprint(fileRepository);
+      List<MetricsCollector> dueCollectors =
+          gitRepoMetricsCache.getCollectors().stream()
+              .filter(
+                  collector ->
+                      collectorIntervals.isDue(projectName, collector.getMetricsCollectorName()))
+              .collect(toList());
+      List<MetricsCollector> collectors =
+          dueCollectors.stream()
+              .filter(collector -> !skipIfUnchanged || hasChanged(collector, fingerprint))
+              .collect(toList());
+      if (collectors.isEmpty() && !dueCollectors.isEmpty()) {
+        logger.atFine().log("Repository of project %s unchanged, skipping collection", projectName);
+        gitRepoMetricsCache.refreshCollectionTime(projectName);
+        collected.complete(null);
+        return;
+      }
+
+      AtomicInteger pendingCollectors = new AtomicInteger(collectors.size());
+      AtomicLong costNanos = new AtomicLong();
+      if (collectors.isEmpty()) {
+        collected.complete(null);
+      }
+      collectors.forEach(
+          metricsCollector -> {
+            String collectorName = metricsCollector.getMetricsCollectorName();
+            CollectorRun run =
+                new CollectorRun(
+                    collectorName,
                     metrics -> {
                       Map<GitRepoMetric, Long> newMetrics = new HashMap<>();
                       metrics.forEach(
@@ -76,27 +155,67 @@ public class UpdateGitMetricsTask implements Runnable {
                                 repoMetric.getName(), projectName, value);
                             newMetrics.put(repoMetric, value);
                           });
+                      deriveMetrics(newMetrics);
                       gitRepoMetricsCache.setMetrics(newMetrics, projectName);
+                      collectorIntervals.recordRun(projectName, collectorName);
+                      fingerprint.ifPresent(
+                          f ->
+                              repositoryChangeDetector.recordCollection(
+                                  projectName, collectorName, f));
+                    },
+                    durationNanos -> {
+                      costNanos.addAndGet(durationNanos);
+                      if (pendingCollectors.decrementAndGet() == 0) {
+                        collectionCostTracker.record(
+                            projectName, TimeUnit.NANOSECONDS.toMillis(costNanos.get()));
+                        collected.complete(null);
+                      }
                     });
-              });
-    } catch (RepositoryNotFoundException e) {
-      logger.atSevere().withCause(e).log("Cannot find repository for %s", projectName);
+            run.dispatch(
+                callback -> metricsCollector.collect(fileRepository, projectName, callback));
+          });
     } catch (IOException e) {
       logger.atSevere().withCause(e).log(
           "Something went wrong when reading from the repository for %s", projectName);
+      collected.complete(null);
+    } catch (RuntimeException e) {
+      collected.complete(null);
+      throw e;
     }
   }
 
-  private FileRepository getFileRepository(Repository repo) {
-    if (repo instanceof DelegateRepository) {
-      return getFileRepository(((DelegateRepository) repo).delegate());
-    }
+  private boolean hasChanged(MetricsCollector collector, Optional<Long> fingerprint) {
+    return fingerprint
+        .map(
+            f ->
+                repositoryChangeDetector.hasChanged(
+                    projectName, collector.getMetricsCollectorName(), f))
+        .orElse(true);
+  }
 
-    if (repo instanceof FileRepository) {
-      return (FileRepository) repo;
+  private void deriveMetrics(Map<GitRepoMetric, Long> newMetrics) {
+    Map<GitRepoMetric, Long> collectedMetrics = ImmutableMap.copyOf(newMetrics);
+    long timestampMs = System.currentTimeMillis();
+    for (DerivedMetrics derived : derivedMetrics) {
+      newMetrics.putAll(derived.derive(projectName, collectedMetrics, timestampMs));
     }
+  }
 
-    throw new ProvisionException("git-repo-metrics plugin can only be used with FileRepository");
+  /**
+   * Returns a future completed once all the collectors have run.
+   *
+   * <p>Collectors run asynchronously, hence the completion of {@link #run()} does not imply that
+   * the metrics have been collected. A collector failing without reporting its metrics completes
+   * its run at the end of the task it submitted to the {@link UpdateGitMetricsExecutor}; one
+   * running on its own executor and never reporting its metrics leaves the future incomplete.
+   *
+   * <p>The collection cost recorded for the project is the sum of the execution times of its
+   * collectors, whatever their outcome, excluding their wait in the executor queue.
+   *
+   * @return {@code CompletableFuture} completed at the end of the collection
+   */
+  public CompletableFuture<Void> collected() {
+    return collected;
   }
 
   @Override
@@ -15,10 +15,12 @@
 package com.googlesource.gerrit.plugins.gitrepometrics;
 
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.extensions.registration.DynamicSet;
 
 public class UpdateGitMetricsTaskModule extends FactoryModule {
   @Override
   protected void configure() {
     factory(UpdateGitMetricsTask.Factory.class);
+    DynamicSet.setOf(binder(), DerivedMetrics.class);
   }
 }
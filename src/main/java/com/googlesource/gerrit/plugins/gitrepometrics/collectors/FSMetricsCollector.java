@@ -17,6 +17,8 @@ package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
 import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.gitrepometrics.GitRepoMetricsConfig;
+import com.googlesource.gerrit.plugins.gitrepometrics.ObjectsDirectoryWatcher;
 import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
 import java.io.File;
 import java.io.IOException;
@@ -24,20 +26,31 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
 
 public class FSMetricsCollector implements MetricsCollector {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  public static final String COLLECTOR_NAME = "filesystem-statistics";
+  // Temporary files of aborted pushes, fetches and repacks
+  private static final ImmutableList<String> LEFTOVER_FILE_PREFIXES =
+      ImmutableList.of("tmp_pack_", "tmp_idx_", "tmp_obj_", "incoming_");
+  // Temporary files and locks of running operations are not left over
+  private static final long DEFAULT_LEFTOVER_FILE_MIN_AGE_MS = TimeUnit.MINUTES.toMillis(10);
 
   static class MetricsRecord {
     private long numberOfKeepFilesCount = 0L;
     private long numberOfEmptyDirectoriesCount = 0L;
     private long numberOfDirectoriesCount = 0L;
     private long numberOfFilesCount = 0L;
+    private long numberOfLeftoverFilesCount = 0L;
+    private long sizeOfLeftoverFilesBytes = 0L;
+    private long oldestLeftoverFileMs = Long.MAX_VALUE;
 
     void foundKeepFile() {
       numberOfKeepFilesCount++;
@@ -55,11 +68,21 @@ public class FSMetricsCollector implements MetricsCollector {
       numberOfFilesCount++;
     }
 
+    void foundLeftoverFile(long size, long lastModifiedMs) {
+      numberOfLeftoverFilesCount++;
+      sizeOfLeftoverFilesBytes += size;
+      oldestLeftoverFileMs = Math.min(oldestLeftoverFileMs, lastModifiedMs);
+    }
+
     void incrementMetrics(MetricsRecord metricsRecordInc) {
       numberOfKeepFilesCount += metricsRecordInc.numberOfKeepFilesCount;
       numberOfEmptyDirectoriesCount += metricsRecordInc.numberOfEmptyDirectoriesCount;
       numberOfDirectoriesCount += metricsRecordInc.numberOfDirectoriesCount;
       numberOfFilesCount += metricsRecordInc.numberOfFilesCount;
+      numberOfLeftoverFilesCount += metricsRecordInc.numberOfLeftoverFilesCount;
+      sizeOfLeftoverFilesBytes += metricsRecordInc.sizeOfLeftoverFilesBytes;
+      oldestLeftoverFileMs =
+          Math.min(oldestLeftoverFileMs, metricsRecordInc.oldestLeftoverFileMs);
     }
 
     HashMap<GitRepoMetric, Long> toMap() {
@@ -70,6 +93,18 @@ public class FSMetricsCollector implements MetricsCollector {
       metrics.put(numberOfKeepFiles, numberOfKeepFilesCount);
       return metrics;
     }
+
+    HashMap<GitRepoMetric, Long> toMapWithLeftoverFiles(long nowMs) {
+      HashMap<GitRepoMetric, Long> metrics = toMap();
+      metrics.put(numberOfLeftoverFiles, numberOfLeftoverFilesCount);
+      metrics.put(sizeOfLeftoverFiles, sizeOfLeftoverFilesBytes);
+      metrics.put(
+          ageOfOldestLeftoverFile,
+          numberOfLeftoverFilesCount == 0
+              ? 0L
+              : TimeUnit.MILLISECONDS.toSeconds(Math.max(nowMs - oldestLeftoverFileMs, 0L)));
+      return metrics;
+    }
   }
 
   protected static final GitRepoMetric numberOfKeepFiles =
@@ -82,15 +117,66 @@ public class FSMetricsCollector implements MetricsCollector {
   protected static final GitRepoMetric numberOfFiles =
       new GitRepoMetric("numberOfFiles", "Number of directories on filesystem", "Count");
 
+  protected static final GitRepoMetric numberOfLeftoverFiles =
+      new GitRepoMetric(
+          "numberOfLeftoverFiles",
+          "Number of temporary files and locks left over in the objects directory",
+          "Count");
+  protected static final GitRepoMetric sizeOfLeftoverFiles =
+      new GitRepoMetric(
+          "sizeOfLeftoverFiles",
+          "Size of temporary files and locks left over in the objects directory",
+          "Bytes");
+  protected static final GitRepoMetric ageOfOldestLeftoverFile =
+      new GitRepoMetric(
+          "ageOfOldestLeftoverFile",
+          "Age of the oldest temporary file or lock left over in the objects directory",
+          "Seconds");
+
   private static final ImmutableList<GitRepoMetric> availableMetrics =
       ImmutableList.of(
           numberOfKeepFiles, numberOfEmptyDirectories, numberOfFiles, numberOfDirectories);
+  private static final ImmutableList<GitRepoMetric> availableMetricsWithLeftoverFiles =
+      ImmutableList.<GitRepoMetric>builder()
+          .addAll(availableMetrics)
+          .add(numberOfLeftoverFiles, sizeOfLeftoverFiles, ageOfOldestLeftoverFile)
+          .build();
 
   private final ExecutorService executorService;
+  private final boolean detectLeftoverFiles;
+  private final long leftoverFileMinAgeMs;
+  private final ObjectsDirectoryWatcher objectsDirectoryWatcher;
+
+  public FSMetricsCollector(ScheduledExecutorService executorService) {
+    this(executorService, false);
+  }
 
   @Inject
-  public FSMetricsCollector(@UpdateGitMetricsExecutor ScheduledExecutorService executorService) {
+  FSMetricsCollector(
+      @UpdateGitMetricsExecutor ScheduledExecutorService executorService,
+      GitRepoMetricsConfig config,
+      ObjectsDirectoryWatcher objectsDirectoryWatcher) {
+    this(
+        executorService,
+        config.getCollectorSetting(COLLECTOR_NAME, "detectLeftoverFiles", false),
+        config.getCollectorTimeSetting(
+            COLLECTOR_NAME, "leftoverFileMinAge", DEFAULT_LEFTOVER_FILE_MIN_AGE_MS),
+        objectsDirectoryWatcher);
+  }
+
+  FSMetricsCollector(ScheduledExecutorService executorService, boolean detectLeftoverFiles) {
+    this(executorService, detectLeftoverFiles, DEFAULT_LEFTOVER_FILE_MIN_AGE_MS, null);
+  }
+
+  FSMetricsCollector(
+      ScheduledExecutorService executorService,
+      boolean detectLeftoverFiles,
+      long leftoverFileMinAgeMs,
+      ObjectsDirectoryWatcher objectsDirectoryWatcher) {
     this.executorService = executorService;
+    this.detectLeftoverFiles = detectLeftoverFiles;
+    this.leftoverFileMinAgeMs = leftoverFileMinAgeMs;
+    this.objectsDirectoryWatcher = objectsDirectoryWatcher;
   }
 
   @Override
@@ -108,7 +194,19 @@ public class FSMetricsCollector implements MetricsCollector {
   private HashMap<GitRepoMetric, Long> filesAndDirectoriesCount(
       FileRepository repository, String projectName) {
 
-    try (Stream<Path> objDir = Files.walk(repository.getObjectsDirectory().toPath())) {
+    Path objectsDirectory = repository.getObjectsDirectory().toPath();
+    // The leftover files are only found by walking the objects directory
+    if (objectsDirectoryWatcher != null && !detectLeftoverFiles) {
+      Optional<ObjectsDirectoryWatcher.Counts> counts =
+          objectsDirectoryWatcher.getCounts(projectName, objectsDirectory);
+      if (counts.isPresent()) {
+        return toMap(counts.get());
+      }
+    }
+
+    Path preservedDirectory = objectsDirectory.resolve("pack").resolve("preserved");
+    long nowMs = System.currentTimeMillis();
+    try (Stream<Path> objDir = Files.walk(objectsDirectory)) {
       MetricsRecord metricsRecord =
           objDir
               .map(
@@ -120,6 +218,13 @@ public class FSMetricsCollector implements MetricsCollector {
                       if (f.getName().endsWith(".keep")) {
                         mr.foundKeepFile();
                       }
+                      if (detectLeftoverFiles) {
+                        long lastModifiedMs = f.lastModified();
+                        if (isLeftoverFile(f.getName(), nowMs - lastModifiedMs)
+                            || path.startsWith(preservedDirectory)) {
+                          mr.foundLeftoverFile(f.length(), lastModifiedMs);
+                        }
+                      }
                     } else {
                       mr.foundDirectory();
                       if (Objects.requireNonNull(f.listFiles()).length == 0) {
@@ -134,22 +239,49 @@ public class FSMetricsCollector implements MetricsCollector {
                     acc.incrementMetrics(lastMetric);
                     return acc;
                   });
-      return metricsRecord.toMap();
+      return toMap(metricsRecord);
     } catch (IOException e) {
       logger.atSevere().withCause(e).log(
           "Error reading from file system for project %s", projectName);
     }
 
-    return new MetricsRecord().toMap();
+    return toMap(new MetricsRecord());
+  }
+
+  private static HashMap<GitRepoMetric, Long> toMap(ObjectsDirectoryWatcher.Counts counts) {
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>(4);
+    metrics.put(numberOfFiles, counts.files);
+    metrics.put(numberOfDirectories, counts.directories);
+    metrics.put(numberOfEmptyDirectories, counts.emptyDirectories);
+    metrics.put(numberOfKeepFiles, counts.keepFiles);
+    return metrics;
+  }
+
+  private HashMap<GitRepoMetric, Long> toMap(MetricsRecord metricsRecord) {
+    return detectLeftoverFiles
+        ? metricsRecord.toMapWithLeftoverFiles(System.currentTimeMillis())
+        : metricsRecord.toMap();
+  }
+
+  private boolean isLeftoverFile(String fileName, long ageMs) {
+    if (ageMs < leftoverFileMinAgeMs) {
+      return false;
+    }
+    for (String prefix : LEFTOVER_FILE_PREFIXES) {
+      if (fileName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return fileName.endsWith(".lock");
   }
 
   @Override
   public String getMetricsCollectorName() {
-    return "filesystem-statistics";
+    return COLLECTOR_NAME;
   }
 
   @Override
   public ImmutableList<GitRepoMetric> availableMetrics() {
-    return availableMetrics;
+    return detectLeftoverFiles ? availableMetricsWithLeftoverFiles : availableMetrics;
   }
 }
@@ -0,0 +1,63 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import java.util.Arrays;
+
+/** Checks of the sizes of pack files or tables against a geometric progression. */
+class GeometricSequence {
+  private GeometricSequence() {}
+
+  /**
+   * Counts the sizes that are not at least {@code factor} times larger than the next smaller one,
+   * i.e. that a geometric compaction, such as {@code git repack --geometric}, would merge.
+   *
+   * @param sizes the sizes, in any order
+   * @param factor the factor of the geometric progression
+   * @return the number of violations of the geometric progression
+   */
+  static long violations(long[] sizes, long factor) {
+    long[] sorted = sizes.clone();
+    Arrays.sort(sorted);
+    long violations = 0;
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i] < factor * sorted[i - 1]) {
+        violations++;
+      }
+    }
+    return violations;
+  }
+
+  /**
+   * Counts the sizes, in stack order, that are not at least {@code factor} times larger than the
+   * next one in the stack, i.e. that a geometric auto-compaction of a reftable stack would merge.
+   *
+   * <p>Unlike {@link #violations(long[], long)}, the sizes are not sorted, as the compaction only
+   * ever merges adjacent tables of the stack.
+   *
+   * @param sizes the sizes, from the base of the stack to its top
+   * @param factor the factor of the geometric progression
+   * @return the number of violations of the geometric progression
+   */
+  static long stackViolations(long[] sizes, long factor) {
+    long violations = 0;
+    for (int i = 1; i < sizes.length; i++) {
+      if (sizes[i - 1] < factor * sizes[i]) {
+        violations++;
+      }
+    }
+    return violations;
+  }
+}
@@ -17,17 +17,31 @@ package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
 import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.gitrepometrics.DroppedProjectListener;
+import com.googlesource.gerrit.plugins.gitrepometrics.GitRepoMetricsConfig;
 import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
 
-public class GitStatsMetricsCollector implements MetricsCollector {
+@Singleton
+public class GitStatsMetricsCollector implements MetricsCollector, DroppedProjectListener {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final String COLLECTOR_NAME = "git-statistics";
+  private static final int FANOUT_DIRECTORIES = 256;
+  private static final long DEFAULT_EXACT_LOOSE_OBJECTS_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
 
   public static final GitRepoMetric numberOfPackedObjects =
       new GitRepoMetric("numberOfPackedObjects", "Number of packed objects", "Count");
@@ -56,6 +70,12 @@ public class GitStatsMetricsCollector implements MetricsCollector {
           "numberOfPackFilesSinceBitmap",
           "The number of pack files that were created after the last bitmap generation",
           "Count");
+  public static final GitRepoMetric looseObjectsEstimated =
+      new GitRepoMetric(
+          "looseObjectsEstimated",
+          "Whether the loose objects metrics are extrapolated from a sample of the fan-out"
+              + " directories",
+          "Boolean");
 
   private static final ImmutableList<GitRepoMetric> availableMetrics =
       ImmutableList.of(
@@ -69,13 +89,40 @@ public class GitStatsMetricsCollector implements MetricsCollector {
           numberOfBitmaps,
           numberOfObjectsSinceBitmap,
           numberOfPackFilesSinceBitmap);
+  private static final ImmutableList<GitRepoMetric> availableMetricsWithEstimates =
+      ImmutableList.<GitRepoMetric>builder()
+          .addAll(availableMetrics)
+          .add(looseObjectsEstimated)
+          .build();
 
   private final ExecutorService executorService;
+  private final int looseObjectsSampleDirectories;
+  private final long exactLooseObjectsIntervalMs;
+  private final ConcurrentHashMap<String, Long> lastExactCollectionsMs = new ConcurrentHashMap<>();
+
+  public GitStatsMetricsCollector(ScheduledExecutorService executorService) {
+    this(executorService, 0, 0L);
+  }
 
   @Inject
-  public GitStatsMetricsCollector(
-      @UpdateGitMetricsExecutor ScheduledExecutorService executorService) {
+  GitStatsMetricsCollector(
+      @UpdateGitMetricsExecutor ScheduledExecutorService executorService,
+      GitRepoMetricsConfig config) {
+    this(
+        executorService,
+        (int) config.getCollectorSetting(COLLECTOR_NAME, "looseObjectsSampleDirectories", 0L),
+        config.getCollectorTimeSetting(
+            COLLECTOR_NAME, "exactLooseObjectsInterval", DEFAULT_EXACT_LOOSE_OBJECTS_INTERVAL_MS));
+  }
+
+  GitStatsMetricsCollector(
+      ScheduledExecutorService executorService,
+      int looseObjectsSampleDirectories,
+      long exactLooseObjectsIntervalMs) {
     this.executorService = executorService;
+    this.looseObjectsSampleDirectories =
+        Math.max(Math.min(looseObjectsSampleDirectories, FANOUT_DIRECTORIES), 0);
+    this.exactLooseObjectsIntervalMs = exactLooseObjectsIntervalMs;
   }
 
   @Override
@@ -88,7 +135,9 @@ public class GitStatsMetricsCollector implements MetricsCollector {
         () -> {
           HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
           try {
-            GC.RepoStatistics statistics = new GC(repository).getStatistics();
+            boolean estimated = shouldEstimateLooseObjects(projectName);
+            GC.RepoStatistics statistics =
+                estimated ? estimatedStatistics(repository) : new GC(repository).getStatistics();
             metrics.put(numberOfPackedObjects, statistics.numberOfPackedObjects);
             metrics.put(numberOfPackFiles, statistics.numberOfPackFiles);
             metrics.put(numberOfLooseObjects, statistics.numberOfLooseObjects);
@@ -99,6 +148,9 @@ public class GitStatsMetricsCollector implements MetricsCollector {
             metrics.put(numberOfBitmaps, statistics.numberOfBitmaps);
             metrics.put(numberOfObjectsSinceBitmap, statistics.numberOfObjectsSinceBitmap);
             metrics.put(numberOfPackFilesSinceBitmap, statistics.numberOfPackFilesSinceBitmap);
+            if (looseObjectsSampleDirectories > 0) {
+              metrics.put(looseObjectsEstimated, estimated ? 1L : 0L);
+            }
             logger.atFine().log("New Git Statistics metrics collected: %s", statistics.toString());
           } catch (IOException e) {
             logger.atSevere().log("Something went wrong: %s", e.getMessage());
@@ -108,13 +160,101 @@ public class GitStatsMetricsCollector implements MetricsCollector {
         });
   }
 
+  @Override
+  public void onProjectDropped(String projectName) {
+    lastExactCollectionsMs.remove(projectName);
+  }
+
+  private boolean shouldEstimateLooseObjects(String projectName) {
+    if (looseObjectsSampleDirectories == 0 || looseObjectsSampleDirectories == FANOUT_DIRECTORIES) {
+      return false;
+    }
+
+    long nowMs = System.currentTimeMillis();
+    Long lastExactCollectionMs = lastExactCollectionsMs.get(projectName);
+    if (lastExactCollectionMs == null
+        || nowMs - lastExactCollectionMs >= exactLooseObjectsIntervalMs) {
+      lastExactCollectionsMs.put(projectName, nowMs);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Computes the same statistics as {@link GC#getStatistics()}, but extrapolates the loose objects
+   * out of a sample of evenly spaced fan-out directories, starting at a random one, similarly to
+   * the estimation of {@code git gc --auto}.
+   */
+  GC.RepoStatistics estimatedStatistics(FileRepository repository) throws IOException {
+    GC.RepoStatistics statistics = new GC.RepoStatistics();
+    long latestBitmapTimeMs = 0L;
+    for (Pack pack : repository.getObjectDatabase().getPacks()) {
+      long packedObjects = pack.getIndex().getObjectCount();
+      statistics.numberOfPackedObjects += packedObjects;
+      statistics.numberOfPackFiles++;
+      statistics.sizeOfPackedObjects += pack.getPackFile().length();
+      if (pack.getBitmapIndex() != null) {
+        statistics.numberOfBitmaps += pack.getBitmapIndex().getBitmapCount();
+        if (latestBitmapTimeMs == 0L) {
+          latestBitmapTimeMs = pack.getFileSnapshot().lastModifiedInstant().toEpochMilli();
+        }
+      } else if (latestBitmapTimeMs == 0L) {
+        statistics.numberOfPackFilesSinceBitmap++;
+        statistics.numberOfObjectsSinceBitmap += packedObjects;
+      }
+    }
+
+    long looseObjects = 0L;
+    long looseObjectsSize = 0L;
+    long looseObjectsSinceBitmap = 0L;
+    File objectsDirectory = repository.getObjectsDirectory();
+    int firstDirectory = ThreadLocalRandom.current().nextInt(FANOUT_DIRECTORIES);
+    for (int i = 0; i < looseObjectsSampleDirectories; i++) {
+      int directory =
+          (firstDirectory + i * FANOUT_DIRECTORIES / looseObjectsSampleDirectories)
+              % FANOUT_DIRECTORIES;
+      File[] entries = new File(objectsDirectory, String.format("%02x", directory)).listFiles();
+      if (entries == null) {
+        continue;
+      }
+      for (File entry : entries) {
+        if (entry.getName().length() != Constants.OBJECT_ID_STRING_LENGTH - 2) {
+          continue;
+        }
+        looseObjects++;
+        looseObjectsSize += entry.length();
+        if (entry.lastModified() > latestBitmapTimeMs) {
+          looseObjectsSinceBitmap++;
+        }
+      }
+    }
+    statistics.numberOfLooseObjects = extrapolate(looseObjects);
+    statistics.sizeOfLooseObjects = extrapolate(looseObjectsSize);
+    statistics.numberOfObjectsSinceBitmap += extrapolate(looseObjectsSinceBitmap);
+
+    for (Ref ref : repository.getRefDatabase().getRefs()) {
+      Ref.Storage storage = ref.getStorage();
+      if (storage == Ref.Storage.LOOSE || storage == Ref.Storage.LOOSE_PACKED) {
+        statistics.numberOfLooseRefs++;
+      }
+      if (storage == Ref.Storage.PACKED || storage == Ref.Storage.LOOSE_PACKED) {
+        statistics.numberOfPackedRefs++;
+      }
+    }
+    return statistics;
+  }
+
+  private long extrapolate(long sampledValue) {
+    return sampledValue * FANOUT_DIRECTORIES / looseObjectsSampleDirectories;
+  }
+
   @Override
   public ImmutableList<GitRepoMetric> availableMetrics() {
-    return availableMetrics;
+    return looseObjectsSampleDirectories > 0 ? availableMetricsWithEstimates : availableMetrics;
   }
 
   @Override
   public String getMetricsCollectorName() {
-    return "git-statistics";
+    return COLLECTOR_NAME;
   }
 }
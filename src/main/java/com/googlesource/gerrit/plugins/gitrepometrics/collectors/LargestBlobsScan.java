@@ -0,0 +1,179 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * On-demand scan of the pack indexes and object headers of a repository, finding its largest blobs.
+ *
+ * <p>The largest blobs found so far are kept in a min-heap bounded by the limit, so that the memory
+ * used does not depend on the size of the repository, while objects smaller than the head of a full
+ * heap are discarded without following their delta chains. The scan can be cancelled and reports
+ * its progress while running. A scan cancelled while queued is cancelled at once, while a running
+ * one stops at the next object.
+ */
+public class LargestBlobsScan {
+  public enum State {
+    QUEUED,
+    RUNNING,
+    DONE,
+    CANCELLED,
+    FAILED
+  }
+
+  public static class Blob {
+    public final String id;
+    public final long size;
+
+    Blob(String id, long size) {
+      this.id = id;
+      this.size = size;
+    }
+  }
+
+  private final int limit;
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+  private final AtomicLong scannedObjects = new AtomicLong();
+  private volatile long totalObjects;
+  private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+  private volatile ImmutableList<Blob> largestBlobs = ImmutableList.of();
+
+  public LargestBlobsScan(int limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * Scans the packs of the objects directory, unless cancelled before starting.
+   *
+   * @param objectsDirectory objects directory of the repository
+   * @throws IOException if the pack directory cannot be listed or a pack cannot be read
+   */
+  public void run(Path objectsDirectory) throws IOException {
+    if (!state.compareAndSet(State.QUEUED, State.RUNNING)) {
+      return;
+    }
+
+    try {
+      List<Path> indexFiles = listPackIndexes(objectsDirectory.resolve("pack"));
+      // Grown along with the blobs found, as the limit may be far larger than the number of blobs
+      PriorityQueue<Blob> heap = new PriorityQueue<>(comparingLong(b -> b.size));
+      for (Path indexFile : indexFiles) {
+        scanPack(indexFile, heap);
+        if (cancelled.get()) {
+          state.set(State.CANCELLED);
+          return;
+        }
+      }
+
+      List<Blob> blobs = new ArrayList<>(heap);
+      blobs.sort(comparingLong((Blob b) -> b.size).reversed());
+      largestBlobs = ImmutableList.copyOf(blobs);
+      state.set(State.DONE);
+    } catch (IOException | RuntimeException e) {
+      state.set(State.FAILED);
+      throw e;
+    }
+  }
+
+  private List<Path> listPackIndexes(Path packDirectory) throws IOException {
+    List<Path> indexFiles = new ArrayList<>();
+    if (!Files.isDirectory(packDirectory)) {
+      return indexFiles;
+    }
+
+    long objects = 0L;
+    try (DirectoryStream<Path> indexes = Files.newDirectoryStream(packDirectory, "*.idx")) {
+      for (Path indexFile : indexes) {
+        try (PackIndexSampler sampler = new PackIndexSampler(indexFile, packFile(indexFile))) {
+          objects += sampler.getObjectCount();
+          indexFiles.add(indexFile);
+        }
+      }
+    }
+    totalObjects = objects;
+    return indexFiles;
+  }
+
+  private void scanPack(Path indexFile, PriorityQueue<Blob> heap) throws IOException {
+    try (PackIndexSampler sampler = new PackIndexSampler(indexFile, packFile(indexFile))) {
+      for (long position = 0; position < sampler.getObjectCount(); position++) {
+        if (cancelled.get()) {
+          return;
+        }
+
+        long minimumSize = heap.size() < limit ? 0L : heap.peek().size + 1;
+        PackIndexSampler.SampledObject object = sampler.readObject(position, minimumSize);
+        if (object != null && object.type == PackIndexSampler.OBJ_BLOB) {
+          if (heap.size() == limit) {
+            heap.poll();
+          }
+          heap.add(new Blob(sampler.readObjectId(position).name(), object.size));
+        }
+        onObjectScanned(scannedObjects.incrementAndGet());
+      }
+    }
+  }
+
+  private static Path packFile(Path indexFile) {
+    String indexName = indexFile.getFileName().toString();
+    return indexFile.resolveSibling(indexName.substring(0, indexName.length() - 4) + ".pack");
+  }
+
+  @VisibleForTesting
+  void onObjectScanned(long scannedObjects) {}
+
+  /**
+   * Cancels the scan at once when still queued, otherwise requests it to stop at the next object,
+   * keeping no partial result.
+   */
+  public void cancel() {
+    cancelled.set(true);
+    state.compareAndSet(State.QUEUED, State.CANCELLED);
+  }
+
+  public boolean isCancelled() {
+    return cancelled.get();
+  }
+
+  public State getState() {
+    return state.get();
+  }
+
+  public long getScannedObjects() {
+    return scannedObjects.get();
+  }
+
+  public long getTotalObjects() {
+    return totalObjects;
+  }
+
+  public ImmutableList<Blob> getLargestBlobs() {
+    return largestBlobs;
+  }
+}
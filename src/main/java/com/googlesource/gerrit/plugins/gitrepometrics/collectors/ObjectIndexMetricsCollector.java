@@ -0,0 +1,260 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+
+/**
+ * Collects the health of the commit-graph and of the multi-pack-index of the repositories.
+ *
+ * <p>Only the headers and chunk tables of the files are read, plus a single listing of the pack
+ * directory, so that the cost of the collection does not depend on the size of the repository.
+ */
+public class ObjectIndexMetricsCollector implements MetricsCollector {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public static final String COLLECTOR_NAME = "object-index-statistics";
+
+  private static final int COMMIT_GRAPH_MAGIC = 0x43475048; // CGPH
+  private static final int COMMIT_GRAPH_HEADER_LENGTH = 8;
+  private static final int MIDX_MAGIC = 0x4d494458; // MIDX
+  private static final int MIDX_HEADER_LENGTH = 12;
+  private static final int CHUNK_NUMBER_OFFSET = 6;
+  private static final int CHUNK_ENTRY_LENGTH = 12;
+  private static final int CHUNK_OID_FANOUT = 0x4f494446; // OIDF
+  private static final int CHUNK_PACK_NAMES = 0x504e414d; // PNAM
+  private static final int FANOUT_LAST_ENTRY_OFFSET = 255 * Integer.BYTES;
+
+  protected static final GitRepoMetric hasCommitGraph =
+      new GitRepoMetric("hasCommitGraph", "Whether the repository has a commit-graph", "Boolean");
+  protected static final GitRepoMetric numberOfCommitGraphCommits =
+      new GitRepoMetric(
+          "numberOfCommitGraphCommits", "Number of commits covered by the commit-graph", "Count");
+  protected static final GitRepoMetric numberOfCommitGraphLayers =
+      new GitRepoMetric(
+          "numberOfCommitGraphLayers", "Number of layers of the commit-graph chain", "Count");
+  protected static final GitRepoMetric hasMultiPackIndex =
+      new GitRepoMetric(
+          "hasMultiPackIndex", "Whether the repository has a multi-pack-index", "Boolean");
+  protected static final GitRepoMetric numberOfPacksNotInMultiPackIndex =
+      new GitRepoMetric(
+          "numberOfPacksNotInMultiPackIndex",
+          "Number of pack files not covered by the multi-pack-index",
+          "Count");
+
+  private static final ImmutableList<GitRepoMetric> availableMetrics =
+      ImmutableList.of(
+          hasCommitGraph,
+          numberOfCommitGraphCommits,
+          numberOfCommitGraphLayers,
+          hasMultiPackIndex,
+          numberOfPacksNotInMultiPackIndex);
+
+  private final ExecutorService executorService;
+
+  @Inject
+  ObjectIndexMetricsCollector(@UpdateGitMetricsExecutor ScheduledExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
+  @Override
+  public void collect(
+      FileRepository repository,
+      String projectName,
+      Consumer<HashMap<GitRepoMetric, Long>> populateMetrics) {
+    executorService.submit(
+        () -> {
+          HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+          Path objectsDirectory = repository.getObjectsDirectory().toPath();
+          try {
+            metrics.putAll(commitGraphMetrics(objectsDirectory));
+          } catch (IOException e) {
+            logger.atSevere().withCause(e).log(
+                "Error reading the commit-graph of project %s", projectName);
+          }
+          try {
+            metrics.putAll(multiPackIndexMetrics(objectsDirectory));
+          } catch (IOException e) {
+            logger.atSevere().withCause(e).log(
+                "Error reading the multi-pack-index of project %s", projectName);
+          }
+          populateMetrics.accept(metrics);
+        });
+  }
+
+  HashMap<GitRepoMetric, Long> commitGraphMetrics(Path objectsDirectory) throws IOException {
+    List<Path> layers;
+    Path commitGraph = objectsDirectory.resolve("info/commit-graph");
+    Path commitGraphs = objectsDirectory.resolve("info/commit-graphs");
+    Path chain = commitGraphs.resolve("commit-graph-chain");
+    // Git reads the single file in preference to the chain
+    if (Files.isRegularFile(commitGraph)) {
+      layers = List.of(commitGraph);
+    } else if (Files.isRegularFile(chain)) {
+      layers =
+          Files.readAllLines(chain, UTF_8).stream()
+              .map(String::trim)
+              .filter(hash -> !hash.isEmpty())
+              .map(hash -> commitGraphs.resolve("graph-" + hash + ".graph"))
+              .collect(ImmutableList.toImmutableList());
+    } else {
+      layers = List.of();
+    }
+
+    long commits = 0L;
+    for (Path layer : layers) {
+      commits += commitGraphCommits(layer);
+    }
+
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    metrics.put(hasCommitGraph, layers.isEmpty() ? 0L : 1L);
+    metrics.put(numberOfCommitGraphCommits, commits);
+    metrics.put(numberOfCommitGraphLayers, (long) layers.size());
+    return metrics;
+  }
+
+  HashMap<GitRepoMetric, Long> multiPackIndexMetrics(Path objectsDirectory) throws IOException {
+    Path packDirectory = objectsDirectory.resolve("pack");
+    Path multiPackIndex = packDirectory.resolve("multi-pack-index");
+    boolean exists = Files.isRegularFile(multiPackIndex);
+    Set<String> indexedPacks = exists ? multiPackIndexPackNames(multiPackIndex) : Set.of();
+
+    long notIndexedPacks = 0L;
+    if (Files.isDirectory(packDirectory)) {
+      try (DirectoryStream<Path> packs = Files.newDirectoryStream(packDirectory, "*.pack")) {
+        for (Path pack : packs) {
+          String fileName = pack.getFileName().toString();
+          String packName = fileName.substring(0, fileName.length() - ".pack".length());
+          if (!indexedPacks.contains(packName)) {
+            notIndexedPacks++;
+          }
+        }
+      }
+    }
+
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    metrics.put(hasMultiPackIndex, exists ? 1L : 0L);
+    metrics.put(numberOfPacksNotInMultiPackIndex, notIndexedPacks);
+    return metrics;
+  }
+
+  private static long commitGraphCommits(Path commitGraph) throws IOException {
+    try (FileChannel channel = FileChannel.open(commitGraph)) {
+      ByteBuffer header = read(channel, 0, COMMIT_GRAPH_HEADER_LENGTH);
+      if (header.getInt(0) != COMMIT_GRAPH_MAGIC) {
+        throw new IOException("Invalid commit-graph header in " + commitGraph);
+      }
+
+      Map<Integer, long[]> chunks =
+          readChunks(channel, COMMIT_GRAPH_HEADER_LENGTH, header.get(CHUNK_NUMBER_OFFSET) & 0xff);
+      long[] fanout = chunks.get(CHUNK_OID_FANOUT);
+      if (fanout == null) {
+        throw new IOException("Missing OID fanout chunk in " + commitGraph);
+      }
+      return Integer.toUnsignedLong(
+          read(channel, fanout[0] + FANOUT_LAST_ENTRY_OFFSET, Integer.BYTES).getInt(0));
+    }
+  }
+
+  private static Set<String> multiPackIndexPackNames(Path multiPackIndex) throws IOException {
+    try (FileChannel channel = FileChannel.open(multiPackIndex)) {
+      ByteBuffer header = read(channel, 0, MIDX_HEADER_LENGTH);
+      if (header.getInt(0) != MIDX_MAGIC) {
+        throw new IOException("Invalid multi-pack-index header in " + multiPackIndex);
+      }
+
+      Map<Integer, long[]> chunks =
+          readChunks(channel, MIDX_HEADER_LENGTH, header.get(CHUNK_NUMBER_OFFSET) & 0xff);
+      long[] packNamesChunk = chunks.get(CHUNK_PACK_NAMES);
+      if (packNamesChunk == null) {
+        throw new IOException("Missing pack names chunk in " + multiPackIndex);
+      }
+
+      // Null-terminated names of the pack index files, padded with nulls
+      String packNames =
+          UTF_8.decode(read(channel, packNamesChunk[0], Math.toIntExact(packNamesChunk[1])))
+              .toString();
+      Set<String> names = new HashSet<>();
+      for (String indexName : packNames.split("\0")) {
+        if (indexName.endsWith(".idx")) {
+          names.add(indexName.substring(0, indexName.length() - ".idx".length()));
+        }
+      }
+      return names;
+    }
+  }
+
+  /**
+   * Reads the table of contents shared by the commit-graph and multi-pack-index formats.
+   *
+   * @return the offset and length of every chunk, keyed by the chunk id
+   */
+  private static Map<Integer, long[]> readChunks(FileChannel channel, long position, int count)
+      throws IOException {
+    // The last entry is a terminator holding the end offset of the last chunk
+    ByteBuffer table = read(channel, position, (count + 1) * CHUNK_ENTRY_LENGTH);
+    Map<Integer, long[]> chunks = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      int entry = i * CHUNK_ENTRY_LENGTH;
+      long offset = table.getLong(entry + Integer.BYTES);
+      long end = table.getLong(entry + CHUNK_ENTRY_LENGTH + Integer.BYTES);
+      chunks.put(table.getInt(entry), new long[] {offset, end - offset});
+    }
+    return chunks;
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Truncated file at offset " + (position + buffer.position()));
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public String getMetricsCollectorName() {
+    return COLLECTOR_NAME;
+  }
+
+  @Override
+  public ImmutableList<GitRepoMetric> availableMetrics() {
+    return availableMetrics;
+  }
+}
@@ -0,0 +1,278 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.gitrepometrics.GitRepoMetricsConfig;
+import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+
+/**
+ * Estimates the number of objects by type and the size distribution of the blobs, out of a random
+ * sample of the objects of all the packs.
+ *
+ * <p>Only the headers of the sampled objects are read through {@link PackIndexSampler}, so that the
+ * cost of the collection is proportional to the sample size and to the number of packs, and not to
+ * the number of objects of the repository.
+ * Every estimate comes with the margin of error of its 95% confidence interval.
+ */
+public class ObjectSamplingMetricsCollector implements MetricsCollector {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public static final String COLLECTOR_NAME = "object-sampling";
+  private static final long DEFAULT_SAMPLE_SIZE = 1000L;
+  private static final double CONFIDENCE_Z = 1.96;
+
+  // Upper bounds of the blob size buckets, growing by a factor of 16
+  private static final long[] BLOB_SIZE_BOUNDS = {
+    4L << 10, 64L << 10, 1L << 20, 16L << 20, 256L << 20
+  };
+  // Names and descriptions of the estimates, the object types followed by the blob size buckets
+  private static final ImmutableMap<String, String> ESTIMATES =
+      ImmutableMap.<String, String>builder()
+          .put("Commits", "commits")
+          .put("Trees", "trees")
+          .put("Blobs", "blobs")
+          .put("Tags", "annotated tags")
+          .put("BlobsBelow4KiB", "blobs smaller than 4 KiB")
+          .put("BlobsBelow64KiB", "blobs between 4 KiB and 64 KiB")
+          .put("BlobsBelow1MiB", "blobs between 64 KiB and 1 MiB")
+          .put("BlobsBelow16MiB", "blobs between 1 MiB and 16 MiB")
+          .put("BlobsBelow256MiB", "blobs between 16 MiB and 256 MiB")
+          .put("BlobsAbove256MiB", "blobs larger than 256 MiB")
+          .build();
+  private static final int FIRST_BLOB_BUCKET = 4;
+
+  protected static final GitRepoMetric numberOfSampledObjects =
+      new GitRepoMetric(
+          "numberOfSampledObjects", "Number of objects sampled out of the packs", "Count");
+  protected static final ImmutableList<GitRepoMetric> estimates =
+      ESTIMATES.entrySet().stream()
+          .map(
+              e ->
+                  new GitRepoMetric(
+                      "estimatedNumberOf" + e.getKey(),
+                      "Estimated number of " + e.getValue(),
+                      "Count"))
+          .collect(ImmutableList.toImmutableList());
+  protected static final ImmutableList<GitRepoMetric> errorMargins =
+      ESTIMATES.entrySet().stream()
+          .map(
+              e ->
+                  new GitRepoMetric(
+                      "estimatedNumberOf" + e.getKey() + "ErrorMargin",
+                      "Margin of error at 95% confidence of the estimated number of "
+                          + e.getValue(),
+                      "Count"))
+          .collect(ImmutableList.toImmutableList());
+
+  private static final ImmutableList<GitRepoMetric> availableMetrics =
+      ImmutableList.<GitRepoMetric>builder()
+          .add(numberOfSampledObjects)
+          .addAll(estimates)
+          .addAll(errorMargins)
+          .build();
+
+  private final ExecutorService executorService;
+  private final long sampleSize;
+
+  @Inject
+  ObjectSamplingMetricsCollector(
+      @UpdateGitMetricsExecutor ScheduledExecutorService executorService,
+      GitRepoMetricsConfig config) {
+    this.executorService = executorService;
+    this.sampleSize =
+        Math.max(config.getCollectorSetting(COLLECTOR_NAME, "sampleSize", DEFAULT_SAMPLE_SIZE), 1L);
+  }
+
+  @Override
+  public void collect(
+      FileRepository repository,
+      String projectName,
+      Consumer<HashMap<GitRepoMetric, Long>> populateMetrics) {
+    executorService.submit(
+        () -> {
+          Estimation estimation = new Estimation();
+          try {
+            sampleObjects(
+                repository.getObjectsDirectory().toPath(),
+                sampleSize,
+                ThreadLocalRandom.current(),
+                estimation);
+          } catch (IOException e) {
+            logger.atSevere().withCause(e).log(
+                "Error sampling the objects of project %s", projectName);
+          }
+          populateMetrics.accept(estimation.toMap());
+        });
+  }
+
+  static void sampleObjects(
+      Path objectsDirectory, long sampleSize, Random random, Estimation estimation)
+      throws IOException {
+    Path packDirectory = objectsDirectory.resolve("pack");
+    if (!Files.isDirectory(packDirectory)) {
+      return;
+    }
+
+    Map<Path, Long> objectCounts = new LinkedHashMap<>();
+    long objectCount = 0L;
+    try (DirectoryStream<Path> indexes = Files.newDirectoryStream(packDirectory, "*.idx")) {
+      for (Path indexFile : indexes) {
+        try (PackIndexSampler sampler = new PackIndexSampler(indexFile, packFile(indexFile))) {
+          objectCounts.put(indexFile, sampler.getObjectCount());
+          objectCount += sampler.getObjectCount();
+        } catch (IOException e) {
+          // The pack may have been removed by a concurrent repack
+          logger.atWarning().withCause(e).log("Skipping the sampling of %s", indexFile);
+        }
+      }
+    }
+
+    // The sample is drawn out of the objects of all the packs, as if they were a single one
+    long[] positions = samplePositions(objectCount, sampleSize, random);
+    long[] counts = new long[ESTIMATES.size()];
+    long sampled = 0L;
+    long firstPosition = 0L;
+    int next = 0;
+    for (Map.Entry<Path, Long> pack : objectCounts.entrySet()) {
+      int first = next;
+      while (next < positions.length && positions[next] < firstPosition + pack.getValue()) {
+        next++;
+      }
+      if (next > first) {
+        try {
+          long[] packCounts = samplePack(pack.getKey(), positions, first, next, firstPosition);
+          for (int i = 0; i < counts.length; i++) {
+            counts[i] += packCounts[i];
+          }
+          sampled += next - first;
+        } catch (IOException e) {
+          // The rest of the sample is still uniform over the objects of the remaining packs
+          logger.atWarning().withCause(e).log("Skipping the sampling of %s", pack.getKey());
+          objectCount -= pack.getValue();
+        }
+      }
+      firstPosition += pack.getValue();
+    }
+    estimation.addSample(objectCount, sampled, counts);
+  }
+
+  private static long[] samplePack(
+      Path indexFile, long[] positions, int first, int last, long firstPosition)
+      throws IOException {
+    long[] counts = new long[ESTIMATES.size()];
+    try (PackIndexSampler sampler = new PackIndexSampler(indexFile, packFile(indexFile))) {
+      for (int i = first; i < last; i++) {
+        PackIndexSampler.SampledObject object = sampler.readObject(positions[i] - firstPosition);
+        if (object.type >= PackIndexSampler.OBJ_COMMIT && object.type <= PackIndexSampler.OBJ_TAG) {
+          counts[object.type - PackIndexSampler.OBJ_COMMIT]++;
+        }
+        if (object.type == PackIndexSampler.OBJ_BLOB) {
+          counts[FIRST_BLOB_BUCKET + blobSizeBucket(object.size)]++;
+        }
+      }
+    }
+    return counts;
+  }
+
+  private static Path packFile(Path indexFile) {
+    String indexName = indexFile.getFileName().toString();
+    return indexFile.resolveSibling(indexName.substring(0, indexName.length() - 4) + ".pack");
+  }
+
+  /** Selects distinct positions uniformly at random with the Floyd algorithm, in sorted order. */
+  private static long[] samplePositions(long objectCount, long sampleSize, Random random) {
+    Set<Long> positions = new HashSet<>();
+    for (long j = Math.max(objectCount - sampleSize, 0L); j < objectCount; j++) {
+      long position = random.nextLong() & Long.MAX_VALUE;
+      if (!positions.add(position % (j + 1))) {
+        positions.add(j);
+      }
+    }
+    return positions.stream().mapToLong(Long::longValue).sorted().toArray();
+  }
+
+  private static int blobSizeBucket(long size) {
+    int bucket = 0;
+    while (bucket < BLOB_SIZE_BOUNDS.length && size >= BLOB_SIZE_BOUNDS[bucket]) {
+      bucket++;
+    }
+    return bucket;
+  }
+
+  /**
+   * Extrapolates the counts of the sample to all the objects of the packs, with the finite
+   * population correction of the variances of the estimates.
+   */
+  static class Estimation {
+    private long sampledObjects;
+    private final double[] estimatedCounts = new double[ESTIMATES.size()];
+    private final double[] variances = new double[ESTIMATES.size()];
+
+    void addSample(long objectCount, long sampled, long[] counts) {
+      if (sampled == 0) {
+        return;
+      }
+
+      sampledObjects += sampled;
+      double correction =
+          objectCount > 1 ? (double) (objectCount - sampled) / (objectCount - 1) : 0.0;
+      for (int i = 0; i < counts.length; i++) {
+        double proportion = (double) counts[i] / sampled;
+        estimatedCounts[i] += proportion * objectCount;
+        double populationVariance = proportion * (1 - proportion) * objectCount * objectCount;
+        variances[i] += populationVariance / sampled * correction;
+      }
+    }
+
+    HashMap<GitRepoMetric, Long> toMap() {
+      HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+      metrics.put(numberOfSampledObjects, sampledObjects);
+      for (int i = 0; i < estimatedCounts.length; i++) {
+        metrics.put(estimates.get(i), Math.round(estimatedCounts[i]));
+        metrics.put(errorMargins.get(i), Math.round(CONFIDENCE_Z * Math.sqrt(variances[i])));
+      }
+      return metrics;
+    }
+  }
+
+  @Override
+  public String getMetricsCollectorName() {
+    return COLLECTOR_NAME;
+  }
+
+  @Override
+  public ImmutableList<GitRepoMetric> availableMetrics() {
+    return availableMetrics;
+  }
+}
@@ -0,0 +1,314 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Reads the type and inflated size of single objects of a pack, addressed by their position in the
+ * version 2 pack index, without loading the index or the pack.
+ *
+ * <p>Every read is a positional read of a few bytes, so that the cost of sampling an object does
+ * not depend on the size of the pack. The type of a delta is the one of its base, found by
+ * following the delta chain, while its size is read from the header of the delta data.
+ */
+class PackIndexSampler implements AutoCloseable {
+  static final int OBJ_COMMIT = 1;
+  static final int OBJ_TREE = 2;
+  static final int OBJ_BLOB = 3;
+  static final int OBJ_TAG = 4;
+  static final int OBJ_UNKNOWN = -1;
+
+  private static final int OBJ_OFS_DELTA = 6;
+  private static final int OBJ_REF_DELTA = 7;
+  private static final int INDEX_V2_MAGIC = 0xff744f63;
+  private static final int INDEX_V2_VERSION = 2;
+  private static final int FANOUT_OFFSET = 8;
+  private static final int FANOUT_LENGTH = 256 * Integer.BYTES;
+  private static final int OBJECT_ID_LENGTH = 20;
+  private static final int CRC_LENGTH = Integer.BYTES;
+  private static final long LARGE_OFFSET_FLAG = 0x80000000L;
+  // Type and size varint, followed by at most the base offset varint or object id
+  private static final int OBJECT_HEADER_LENGTH = 32;
+  private static final int DELTA_HEADER_CHUNK = 64;
+  private static final int MAX_DELTA_DEPTH = 128;
+
+  /** Type and inflated size of a sampled object. */
+  static class SampledObject {
+    final int type;
+    final long size;
+
+    SampledObject(int type, long size) {
+      this.type = type;
+      this.size = size;
+    }
+  }
+
+  private final FileChannel index;
+  private final FileChannel pack;
+  private final ByteBuffer fanout;
+  private final long objectCount;
+
+  PackIndexSampler(Path indexFile, Path packFile) throws IOException {
+    index = FileChannel.open(indexFile);
+    try {
+      checkVersion(index, indexFile);
+      fanout = read(index, FANOUT_OFFSET, FANOUT_LENGTH);
+      objectCount = fanoutEntry(255);
+      pack = FileChannel.open(packFile);
+    } catch (IOException e) {
+      index.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the number of objects of a pack out of the last fanout entry of its index, without
+   * opening the pack.
+   *
+   * @param indexFile the version 2 index of the pack
+   * @return the number of objects of the pack
+   * @throws IOException if the index cannot be read or has another version
+   */
+  static long readObjectCount(Path indexFile) throws IOException {
+    try (FileChannel index = FileChannel.open(indexFile)) {
+      checkVersion(index, indexFile);
+      return Integer.toUnsignedLong(
+          read(index, FANOUT_OFFSET + FANOUT_LENGTH - Integer.BYTES, Integer.BYTES).getInt());
+    }
+  }
+
+  private static void checkVersion(FileChannel index, Path indexFile) throws IOException {
+    ByteBuffer header = read(index, 0, FANOUT_OFFSET);
+    if (header.getInt(0) != INDEX_V2_MAGIC || header.getInt(Integer.BYTES) != INDEX_V2_VERSION) {
+      throw new IOException("Unsupported pack index version in " + indexFile);
+    }
+  }
+
+  long getObjectCount() {
+    return objectCount;
+  }
+
+  /**
+   * Reads the object at the given position of the index.
+   *
+   * @param position position of the object, between 0 and {@link #getObjectCount()} excluded
+   * @return the type and the inflated size of the object, where the type is {@link #OBJ_UNKNOWN}
+   *     when the base of a delta is not in the pack or the delta chain is too deep
+   * @throws IOException if the index or the pack cannot be read
+   */
+  SampledObject readObject(long position) throws IOException {
+    return readObject(position, 0L);
+  }
+
+  /**
+   * Reads the object at the given position of the index, unless it is smaller than the given size.
+   *
+   * <p>The size of an object is known before resolving its type, so that the delta chains of the
+   * objects that are too small are never followed.
+   *
+   * @param position position of the object, between 0 and {@link #getObjectCount()} excluded
+   * @param minimumSize size below which the object is skipped
+   * @return the type and the inflated size of the object, or {@code null} if it is smaller than
+   *     {@code minimumSize}
+   * @throws IOException if the index or the pack cannot be read
+   */
+  SampledObject readObject(long position, long minimumSize) throws IOException {
+    long offset = packOffset(position);
+    long size = -1L;
+    for (int depth = 0; depth < MAX_DELTA_DEPTH; depth++) {
+      ByteBuffer header = read(pack, offset, OBJECT_HEADER_LENGTH, true);
+      int c = header.get() & 0xff;
+      int type = (c >> 4) & 0x7;
+      long objectSize = c & 0x0f;
+      for (int shift = 4; (c & 0x80) != 0; shift += 7) {
+        c = header.get() & 0xff;
+        objectSize += (long) (c & 0x7f) << shift;
+      }
+
+      long baseOffset;
+      switch (type) {
+        case OBJ_OFS_DELTA:
+          c = header.get() & 0xff;
+          long distance = c & 0x7f;
+          while ((c & 0x80) != 0) {
+            c = header.get() & 0xff;
+            distance = ((distance + 1) << 7) + (c & 0x7f);
+          }
+          baseOffset = offset - distance;
+          break;
+        case OBJ_REF_DELTA:
+          byte[] baseId = new byte[OBJECT_ID_LENGTH];
+          header.get(baseId);
+          long basePosition = findPosition(baseId);
+          if (basePosition < 0) {
+            return new SampledObject(OBJ_UNKNOWN, size);
+          }
+          baseOffset = packOffset(basePosition);
+          break;
+        default:
+          if (size < 0 && objectSize < minimumSize) {
+            return null;
+          }
+          return new SampledObject(type, size < 0 ? objectSize : size);
+      }
+
+      if (size < 0) {
+        size = deltaResultSize(offset + header.position());
+        if (size < minimumSize) {
+          return null;
+        }
+      }
+      offset = baseOffset;
+    }
+    return new SampledObject(OBJ_UNKNOWN, size);
+  }
+
+  /**
+   * Reads the id of the object at the given position of the index.
+   *
+   * @param position position of the object, between 0 and {@link #getObjectCount()} excluded
+   * @return the object id
+   * @throws IOException if the index cannot be read
+   */
+  ObjectId readObjectId(long position) throws IOException {
+    byte[] objectId = new byte[OBJECT_ID_LENGTH];
+    read(index, FANOUT_OFFSET + FANOUT_LENGTH + position * OBJECT_ID_LENGTH, OBJECT_ID_LENGTH)
+        .get(objectId);
+    return ObjectId.fromRaw(objectId);
+  }
+
+  private long packOffset(long position) throws IOException {
+    long offsetsTable =
+        FANOUT_OFFSET + FANOUT_LENGTH + objectCount * (OBJECT_ID_LENGTH + CRC_LENGTH);
+    long offset =
+        Integer.toUnsignedLong(
+            read(index, offsetsTable + position * Integer.BYTES, Integer.BYTES).getInt());
+    if ((offset & LARGE_OFFSET_FLAG) == 0) {
+      return offset;
+    }
+    long largeOffsetsTable = offsetsTable + objectCount * Integer.BYTES;
+    return read(index, largeOffsetsTable + (offset & ~LARGE_OFFSET_FLAG) * Long.BYTES, Long.BYTES)
+        .getLong();
+  }
+
+  /** Binary searches the object id within its fanout bucket of the sorted object ids. */
+  private long findPosition(byte[] objectId) throws IOException {
+    int bucket = objectId[0] & 0xff;
+    long low = bucket == 0 ? 0L : fanoutEntry(bucket - 1);
+    long high = fanoutEntry(bucket);
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      byte[] middleId = new byte[OBJECT_ID_LENGTH];
+      read(index, FANOUT_OFFSET + FANOUT_LENGTH + middle * OBJECT_ID_LENGTH, OBJECT_ID_LENGTH)
+          .get(middleId);
+      int cmp = Arrays.compareUnsigned(middleId, objectId);
+      if (cmp == 0) {
+        return middle;
+      } else if (cmp < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return -1L;
+  }
+
+  private long fanoutEntry(int bucket) {
+    return Integer.toUnsignedLong(fanout.getInt(bucket * Integer.BYTES));
+  }
+
+  /** Inflates just the beginning of the delta data, holding the base and the result sizes. */
+  private long deltaResultSize(long dataOffset) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      byte[] sizes = new byte[2 * 10];
+      int inflated = 0;
+      long position = dataOffset;
+      while (inflated < sizes.length && !inflater.finished()) {
+        if (inflater.needsInput()) {
+          ByteBuffer compressed = read(pack, position, DELTA_HEADER_CHUNK, true);
+          position += compressed.remaining();
+          inflater.setInput(compressed);
+        }
+        inflated += inflater.inflate(sizes, inflated, sizes.length - inflated);
+      }
+
+      ByteBuffer delta = ByteBuffer.wrap(sizes, 0, inflated);
+      readVarint(delta); // Size of the base
+      return readVarint(delta);
+    } catch (DataFormatException e) {
+      throw new IOException("Invalid delta data at offset " + dataOffset, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static long readVarint(ByteBuffer buffer) throws IOException {
+    long value = 0L;
+    int c;
+    int shift = 0;
+    do {
+      if (!buffer.hasRemaining()) {
+        throw new EOFException("Truncated delta header");
+      }
+      c = buffer.get() & 0xff;
+      value |= (long) (c & 0x7f) << shift;
+      shift += 7;
+    } while ((c & 0x80) != 0);
+    return value;
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    return read(channel, position, length, false);
+  }
+
+  /**
+   * Reads up to {@code length} bytes at the given position, accepting fewer bytes only when {@code
+   * allowShort} is set and the end of the file is reached.
+   */
+  private static ByteBuffer read(FileChannel channel, long position, int length, boolean allowShort)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        if (allowShort && buffer.position() > 0) {
+          break;
+        }
+        throw new EOFException("Truncated file at offset " + (position + buffer.position()));
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      index.close();
+    } finally {
+      pack.close();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.gitrepometrics.GitRepoMetricsConfig;
+import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+
+/**
+ * Collects the size distribution of the pack files, out of a single listing of the pack directory
+ * and the object counts in the headers of the pack indexes.
+ */
+public class PackMetricsCollector implements MetricsCollector {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public static final String COLLECTOR_NAME = "pack-statistics";
+  private static final long DEFAULT_SMALL_PACK_THRESHOLD = 10L * 1024 * 1024;
+  private static final long DEFAULT_GEOMETRIC_FACTOR = 2L;
+  private static final String PACK_EXT = ".pack";
+
+  protected static final GitRepoMetric largestPackSize =
+      new GitRepoMetric("largestPackSize", "Size of the largest pack file", "Bytes");
+  protected static final GitRepoMetric smallestPackSize =
+      new GitRepoMetric("smallestPackSize", "Size of the smallest pack file", "Bytes");
+  protected static final GitRepoMetric numberOfSmallPackFiles =
+      new GitRepoMetric(
+          "numberOfSmallPackFiles", "Number of pack files below the small pack threshold", "Count");
+  protected static final GitRepoMetric numberOfGeometricRepackViolations =
+      new GitRepoMetric(
+          "numberOfGeometricRepackViolations",
+          "Number of pack files breaking the geometric progression of the pack object counts",
+          "Count");
+  protected static final GitRepoMetric sizeOfKeptPacks =
+      new GitRepoMetric("sizeOfKeptPacks", "Size of the pack files with a .keep file", "Bytes");
+  protected static final GitRepoMetric sizeOfPromisorPacks =
+      new GitRepoMetric(
+          "sizeOfPromisorPacks", "Size of the pack files with a .promisor file", "Bytes");
+  protected static final GitRepoMetric sizeOfCruftPacks =
+      new GitRepoMetric(
+          "sizeOfCruftPacks", "Size of the cruft pack files with a .mtimes file", "Bytes");
+
+  private static final ImmutableList<GitRepoMetric> availableMetrics =
+      ImmutableList.of(
+          largestPackSize,
+          smallestPackSize,
+          numberOfSmallPackFiles,
+          numberOfGeometricRepackViolations,
+          sizeOfKeptPacks,
+          sizeOfPromisorPacks,
+          sizeOfCruftPacks);
+
+  private final ExecutorService executorService;
+  private final long smallPackThreshold;
+  private final long geometricFactor;
+
+  @Inject
+  PackMetricsCollector(
+      @UpdateGitMetricsExecutor ScheduledExecutorService executorService,
+      GitRepoMetricsConfig config) {
+    this.executorService = executorService;
+    this.smallPackThreshold =
+        config.getCollectorSetting(
+            COLLECTOR_NAME, "smallPackThreshold", DEFAULT_SMALL_PACK_THRESHOLD);
+    this.geometricFactor =
+        config.getCollectorSetting(COLLECTOR_NAME, "geometricFactor", DEFAULT_GEOMETRIC_FACTOR);
+  }
+
+  @Override
+  public void collect(
+      FileRepository repository,
+      String projectName,
+      Consumer<HashMap<GitRepoMetric, Long>> populateMetrics) {
+    executorService.submit(
+        () -> {
+          try {
+            populateMetrics.accept(packMetrics(repository.getObjectsDirectory().toPath()));
+          } catch (IOException e) {
+            logger.atSevere().withCause(e).log(
+                "Error listing the pack files of project %s", projectName);
+          }
+        });
+  }
+
+  HashMap<GitRepoMetric, Long> packMetrics(Path objectsDirectory) throws IOException {
+    Map<String, Long> packSizes = new HashMap<>();
+    Set<String> keptPacks = new HashSet<>();
+    Set<String> promisorPacks = new HashSet<>();
+    Set<String> cruftPacks = new HashSet<>();
+
+    Path packDirectory = objectsDirectory.resolve("pack");
+    if (Files.isDirectory(packDirectory)) {
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(packDirectory)) {
+        for (Path entry : entries) {
+          String fileName = entry.getFileName().toString();
+          int extension = fileName.lastIndexOf('.');
+          if (extension < 0) {
+            continue;
+          }
+
+          String packName = fileName.substring(0, extension);
+          switch (fileName.substring(extension)) {
+            case PACK_EXT:
+              try {
+                packSizes.put(
+                    packName, Files.readAttributes(entry, BasicFileAttributes.class).size());
+              } catch (NoSuchFileException e) {
+                // Concurrently removed by a repack
+              }
+              break;
+            case ".keep":
+              keptPacks.add(packName);
+              break;
+            case ".promisor":
+              promisorPacks.add(packName);
+              break;
+            case ".mtimes":
+              cruftPacks.add(packName);
+              break;
+            default:
+              break;
+          }
+        }
+      }
+    }
+
+    Set<String> excludedPacks = new HashSet<>(keptPacks);
+    excludedPacks.addAll(promisorPacks);
+    excludedPacks.addAll(cruftPacks);
+    long[] sizes = packSizes.values().stream().mapToLong(Long::longValue).toArray();
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    metrics.put(largestPackSize, Arrays.stream(sizes).max().orElse(0L));
+    metrics.put(smallestPackSize, Arrays.stream(sizes).min().orElse(0L));
+    metrics.put(
+        numberOfSmallPackFiles, Arrays.stream(sizes).filter(s -> s < smallPackThreshold).count());
+    metrics.put(
+        numberOfGeometricRepackViolations,
+        GeometricSequence.violations(
+            geometricObjectCounts(packDirectory, packSizes.keySet(), excludedPacks),
+            geometricFactor));
+    metrics.put(sizeOfKeptPacks, totalSize(packSizes, keptPacks));
+    metrics.put(sizeOfPromisorPacks, totalSize(packSizes, promisorPacks));
+    metrics.put(sizeOfCruftPacks, totalSize(packSizes, cruftPacks));
+    return metrics;
+  }
+
+  /**
+   * Reads the object counts of the packs that {@code git repack --geometric} would consider, i.e.
+   * all the packs but the kept, promisor and cruft ones.
+   */
+  private static long[] geometricObjectCounts(
+      Path packDirectory, Set<String> packNames, Set<String> excludedPacks) {
+    List<Long> objectCounts = new ArrayList<>();
+    for (String packName : packNames) {
+      if (excludedPacks.contains(packName)) {
+        continue;
+      }
+
+      Path indexFile = packDirectory.resolve(packName + ".idx");
+      try {
+        objectCounts.add(PackIndexSampler.readObjectCount(indexFile));
+      } catch (NoSuchFileException e) {
+        // Still being written or concurrently removed by a repack
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Skipping the object count of %s", indexFile);
+      }
+    }
+    return objectCounts.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static long totalSize(Map<String, Long> packSizes, Set<String> packNames) {
+    return packNames.stream().mapToLong(packName -> packSizes.getOrDefault(packName, 0L)).sum();
+  }
+
+  @Override
+  public String getMetricsCollectorName() {
+    return COLLECTOR_NAME;
+  }
+
+  @Override
+  public ImmutableList<GitRepoMetric> availableMetrics() {
+    return availableMetrics;
+  }
+}
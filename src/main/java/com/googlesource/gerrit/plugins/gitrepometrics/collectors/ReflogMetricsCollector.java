@@ -0,0 +1,163 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.gitrepometrics.GitRepoMetricsConfig;
+import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+
+/**
+ * Collects the footprint of the reflogs of the repositories.
+ *
+ * <p>The {@code logs} directory is walked once, using only the attributes returned by the walk
+ * itself, without opening any reflog.
+ */
+public class ReflogMetricsCollector implements MetricsCollector {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public static final String COLLECTOR_NAME = "reflog-statistics";
+  private static final long DEFAULT_TOP_REFLOGS = 10L;
+
+  protected static final GitRepoMetric numberOfReflogs =
+      new GitRepoMetric("numberOfReflogs", "Number of reflog files", "Count");
+  protected static final GitRepoMetric sizeOfReflogs =
+      new GitRepoMetric("sizeOfReflogs", "Size of the reflog files", "Bytes");
+  protected static final GitRepoMetric largestReflogSize =
+      new GitRepoMetric("largestReflogSize", "Size of the largest reflog file", "Bytes");
+  protected static final GitRepoMetric sizeOfLargestReflogs =
+      new GitRepoMetric(
+          "sizeOfLargestReflogs", "Size of the largest reflog files, up to topReflogs", "Bytes");
+
+  private static final ImmutableList<GitRepoMetric> availableMetrics =
+      ImmutableList.of(numberOfReflogs, sizeOfReflogs, largestReflogSize, sizeOfLargestReflogs);
+
+  private final ExecutorService executorService;
+  private final int topReflogs;
+
+  @Inject
+  ReflogMetricsCollector(
+      @UpdateGitMetricsExecutor ScheduledExecutorService executorService,
+      GitRepoMetricsConfig config) {
+    this.executorService = executorService;
+    long topReflogs =
+        config.getCollectorSetting(COLLECTOR_NAME, "topReflogs", DEFAULT_TOP_REFLOGS);
+    this.topReflogs = (int) Math.min(Math.max(topReflogs, 1L), Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void collect(
+      FileRepository repository,
+      String projectName,
+      Consumer<HashMap<GitRepoMetric, Long>> populateMetrics) {
+    executorService.submit(
+        () -> {
+          Footprint footprint = new Footprint(topReflogs);
+          try {
+            reflogFootprint(repository.getDirectory().toPath().resolve("logs"), footprint);
+          } catch (IOException e) {
+            logger.atSevere().withCause(e).log(
+                "Error walking the reflogs of project %s", projectName);
+          }
+          populateMetrics.accept(footprint.toMap());
+        });
+  }
+
+  static void reflogFootprint(Path logsDirectory, Footprint footprint) throws IOException {
+    if (!Files.isDirectory(logsDirectory)) {
+      return;
+    }
+
+    Files.walkFileTree(
+        logsDirectory,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (attrs.isRegularFile()) {
+              footprint.foundReflog(attrs.size());
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+            if (e instanceof NoSuchFileException) {
+              // Concurrently deleted together with its ref
+              return FileVisitResult.CONTINUE;
+            }
+            throw e;
+          }
+        });
+  }
+
+  /** Totals of the reflog files, keeping the sizes of the largest ones in a bounded heap. */
+  static class Footprint {
+    private final int topReflogs;
+    private final PriorityQueue<Long> largestSizes;
+    private long count;
+    private long totalSize;
+
+    Footprint(int topReflogs) {
+      this.topReflogs = topReflogs;
+      this.largestSizes = new PriorityQueue<>(topReflogs);
+    }
+
+    void foundReflog(long size) {
+      count++;
+      totalSize += size;
+      if (largestSizes.size() < topReflogs) {
+        largestSizes.add(size);
+      } else if (size > largestSizes.peek()) {
+        // Smaller reflogs are discarded by a single comparison with the head of the heap
+        largestSizes.poll();
+        largestSizes.add(size);
+      }
+    }
+
+    HashMap<GitRepoMetric, Long> toMap() {
+      HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+      metrics.put(numberOfReflogs, count);
+      metrics.put(sizeOfReflogs, totalSize);
+      metrics.put(
+          largestReflogSize, largestSizes.stream().mapToLong(Long::longValue).max().orElse(0L));
+      metrics.put(sizeOfLargestReflogs, largestSizes.stream().mapToLong(Long::longValue).sum());
+      return metrics;
+    }
+  }
+
+  @Override
+  public String getMetricsCollectorName() {
+    return COLLECTOR_NAME;
+  }
+
+  @Override
+  public ImmutableList<GitRepoMetric> availableMetrics() {
+    return availableMetrics;
+  }
+}
@@ -0,0 +1,200 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.gitrepometrics.UpdateGitMetricsExecutor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+
+/**
+ * Collects the metrics of the reftable stack of the repositories using reftable.
+ *
+ * <p>Only the {@code tables.list} file and the fixed-size header of every table are read, without
+ * loading any ref. Repositories without reftable report no metrics.
+ */
+public class ReftableMetricsCollector implements MetricsCollector {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  public static final String COLLECTOR_NAME = "reftable-statistics";
+  private static final byte[] REFTABLE_MAGIC = "REFT".getBytes(UTF_8);
+  // Magic, version, block size, min and max update indexes
+  private static final int HEADER_LENGTH = 24;
+  private static final int MAX_UPDATE_INDEX_OFFSET = 16;
+  // Compaction factor of the JGit and Git reftable stacks
+  private static final long COMPACTION_FACTOR = 2L;
+  // Attempts to read a stack whose tables are concurrently compacted
+  private static final int MAX_READ_ATTEMPTS = 3;
+
+  protected static final GitRepoMetric numberOfReftables =
+      new GitRepoMetric("numberOfReftables", "Number of tables in the reftable stack", "Count");
+  protected static final GitRepoMetric sizeOfReftables =
+      new GitRepoMetric("sizeOfReftables", "Size of the tables in the reftable stack", "Bytes");
+  protected static final GitRepoMetric reftableSizeRatio =
+      new GitRepoMetric(
+          "reftableSizeRatio", "Ratio between the largest and the smallest table sizes", "Ratio");
+  protected static final GitRepoMetric ageOfOldestReftable =
+      new GitRepoMetric(
+          "ageOfOldestReftable", "Age of the oldest table in the reftable stack", "Seconds");
+  protected static final GitRepoMetric numberOfPendingReftableCompactions =
+      new GitRepoMetric(
+          "numberOfPendingReftableCompactions",
+          "Number of tables that the geometric auto-compaction would merge",
+          "Count");
+  protected static final GitRepoMetric numberOfUncompactedRefUpdates =
+      new GitRepoMetric(
+          "numberOfUncompactedRefUpdates",
+          "Number of ref update indexes stored after the base table of the reftable stack",
+          "Count");
+
+  private static final ImmutableList<GitRepoMetric> availableMetrics =
+      ImmutableList.of(
+          numberOfReftables,
+          sizeOfReftables,
+          reftableSizeRatio,
+          ageOfOldestReftable,
+          numberOfPendingReftableCompactions,
+          numberOfUncompactedRefUpdates);
+
+  private final ExecutorService executorService;
+
+  @Inject
+  ReftableMetricsCollector(@UpdateGitMetricsExecutor ScheduledExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
+  @Override
+  public void collect(
+      FileRepository repository,
+      String projectName,
+      Consumer<HashMap<GitRepoMetric, Long>> populateMetrics) {
+    executorService.submit(
+        () -> {
+          HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+          try {
+            metrics =
+                reftableMetrics(
+                    repository.getDirectory().toPath().resolve("reftable"),
+                    System.currentTimeMillis());
+          } catch (IOException e) {
+            logger.atSevere().withCause(e).log(
+                "Error reading the reftable stack of project %s", projectName);
+          }
+          populateMetrics.accept(metrics);
+        });
+  }
+
+  HashMap<GitRepoMetric, Long> reftableMetrics(Path reftableDirectory, long nowMs)
+      throws IOException {
+    for (int attempt = 1; ; attempt++) {
+      List<String> tableNames;
+      try {
+        tableNames = Files.readAllLines(reftableDirectory.resolve("tables.list"), UTF_8);
+      } catch (NoSuchFileException e) {
+        return new HashMap<>();
+      }
+      tableNames.removeIf(String::isBlank);
+
+      try {
+        return stackMetrics(reftableDirectory, tableNames, nowMs);
+      } catch (NoSuchFileException e) {
+        // A table was removed by a concurrent compaction, which also rewrote tables.list
+        if (attempt == MAX_READ_ATTEMPTS) {
+          throw e;
+        }
+        logger.atFine().log(
+            "Table %s compacted while reading the reftable stack, reading it again", e.getFile());
+      }
+    }
+  }
+
+  private static HashMap<GitRepoMetric, Long> stackMetrics(
+      Path reftableDirectory, List<String> tableNames, long nowMs) throws IOException {
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    long[] sizes = new long[tableNames.size()];
+    long oldestModifiedMs = nowMs;
+    long baseMaxUpdateIndex = 0L;
+    long lastMaxUpdateIndex = 0L;
+    for (int i = 0; i < tableNames.size(); i++) {
+      Path table = reftableDirectory.resolve(tableNames.get(i).trim());
+      BasicFileAttributes attributes = Files.readAttributes(table, BasicFileAttributes.class);
+      sizes[i] = attributes.size();
+      oldestModifiedMs = Math.min(oldestModifiedMs, attributes.lastModifiedTime().toMillis());
+
+      long maxUpdateIndex = readMaxUpdateIndex(table);
+      if (i == 0) {
+        baseMaxUpdateIndex = maxUpdateIndex;
+      }
+      lastMaxUpdateIndex = maxUpdateIndex;
+    }
+
+    long largest = Arrays.stream(sizes).max().orElse(0L);
+    long smallest = Arrays.stream(sizes).min().orElse(0L);
+    metrics.put(numberOfReftables, (long) sizes.length);
+    metrics.put(sizeOfReftables, Arrays.stream(sizes).sum());
+    metrics.put(reftableSizeRatio, smallest > 0 ? largest / smallest : 0L);
+    metrics.put(
+        ageOfOldestReftable,
+        sizes.length == 0 ? 0L : TimeUnit.MILLISECONDS.toSeconds(nowMs - oldestModifiedMs));
+    metrics.put(
+        numberOfPendingReftableCompactions,
+        GeometricSequence.stackViolations(sizes, COMPACTION_FACTOR));
+    metrics.put(
+        numberOfUncompactedRefUpdates, Math.max(lastMaxUpdateIndex - baseMaxUpdateIndex, 0L));
+    return metrics;
+  }
+
+  private static long readMaxUpdateIndex(Path table) throws IOException {
+    byte[] header = new byte[HEADER_LENGTH];
+    try (InputStream in = Files.newInputStream(table)) {
+      if (in.readNBytes(header, 0, HEADER_LENGTH) < HEADER_LENGTH || !hasReftableMagic(header)) {
+        throw new IOException("Invalid reftable header in " + table);
+      }
+    }
+    return ByteBuffer.wrap(header, MAX_UPDATE_INDEX_OFFSET, Long.BYTES).getLong();
+  }
+
+  private static boolean hasReftableMagic(byte[] header) {
+    return Arrays.equals(
+        header, 0, REFTABLE_MAGIC.length, REFTABLE_MAGIC, 0, REFTABLE_MAGIC.length);
+  }
+
+  @Override
+  public String getMetricsCollectorName() {
+    return COLLECTOR_NAME;
+  }
+
+  @Override
+  public ImmutableList<GitRepoMetric> availableMetrics() {
+    return availableMetrics;
+  }
+}
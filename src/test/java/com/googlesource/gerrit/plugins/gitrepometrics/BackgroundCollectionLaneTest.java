@@ -0,0 +1,121 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackgroundCollectionLaneTest {
+  private final Map<String, CompletableFuture<Void>> collections = new ConcurrentHashMap<>();
+
+  private UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory;
+  private ProjectCollectionCostTracker collectionCostTracker;
+
+  @Before
+  public void setUp() {
+    updateGitMetricsTaskFactory = mock(UpdateGitMetricsTask.Factory.class);
+    when(updateGitMetricsTaskFactory.create(any()))
+        .thenAnswer(
+            invocation -> {
+              UpdateGitMetricsTask task = mock(UpdateGitMetricsTask.class);
+              when(task.collected())
+                  .thenReturn(
+                      collections.computeIfAbsent(
+                          invocation.getArgument(0), p -> new CompletableFuture<>()));
+              return task;
+            });
+    collectionCostTracker = new ProjectCollectionCostTracker();
+  }
+
+  @Test
+  public void shouldSkipProjectsAlreadyQueued() throws Exception {
+    List<Runnable> queued = new ArrayList<>();
+    BackgroundCollectionLane lane = newLane(queuingExecutor(queued), "1 min");
+
+    lane.submit(List.of("project1", "project2"));
+    lane.submit(List.of("project1"));
+    assertThat(queued).hasSize(2);
+
+    collections.put("project1", CompletableFuture.completedFuture(null));
+    queued.get(0).run();
+    lane.submit(List.of("project1"));
+    assertThat(queued).hasSize(3);
+  }
+
+  @Test
+  public void shouldWaitForEachCollectionBeforeStartingTheNextOne() throws Exception {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    try {
+      BackgroundCollectionLane lane = newLane(executor, "1 min");
+      CompletableFuture<Void> firstCollection = new CompletableFuture<>();
+      collections.put("project1", firstCollection);
+
+      lane.submit(List.of("project1", "project2"));
+      verify(updateGitMetricsTaskFactory, timeout(10_000)).create("project1");
+      Thread.sleep(100);
+      verify(updateGitMetricsTaskFactory, never()).create("project2");
+
+      firstCollection.complete(null);
+      verify(updateGitMetricsTaskFactory, timeout(10_000)).create("project2");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldGiveUpWaitingForCollectionAfterTimeout() throws Exception {
+    List<Runnable> queued = new ArrayList<>();
+    BackgroundCollectionLane lane = newLane(queuingExecutor(queued), "100 ms");
+
+    lane.submit(List.of("project1"));
+    queued.get(0).run();
+
+    assertThat(collections.get("project1").isDone()).isFalse();
+    assertThat(collectionCostTracker.estimatedCostMs("project1")).isEqualTo(100L);
+  }
+
+  private BackgroundCollectionLane newLane(
+      ScheduledExecutorService executor, String collectionTimeout) throws Exception {
+    return new BackgroundCollectionLane(
+        executor,
+        updateGitMetricsTaskFactory,
+        collectionCostTracker,
+        new ConfigSetupUtils(List.of())
+            .withPluginSetting("backgroundCollectionTimeout", collectionTimeout)
+            .getGitRepoMetricsConfig());
+  }
+
+  private static ScheduledExecutorService queuingExecutor(List<Runnable> queued) {
+    ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(executor).execute(any());
+    return executor;
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CollectorIntervalsTest {
+  private static final String CHEAP_COLLECTOR = "repo-ref-statistics";
+  private static final String EXPENSIVE_COLLECTOR = "filesystem-statistics";
+  private static final long ONE_HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+  private CollectorIntervals collectorIntervals;
+
+  @Before
+  public void setUp() throws Exception {
+    collectorIntervals =
+        new CollectorIntervals(
+            new ConfigSetupUtils(List.of())
+                .withSetting("collector", EXPENSIVE_COLLECTOR, "interval", "1h")
+                .withSetting("project", "platform/*", "interval", "2h")
+                .getGitRepoMetricsConfig());
+  }
+
+  @Test
+  public void shouldAlwaysRunCollectorsWithoutInterval() {
+    assertThat(runIfDue("project", CHEAP_COLLECTOR, 0L)).isTrue();
+    assertThat(runIfDue("project", CHEAP_COLLECTOR, 1L)).isTrue();
+  }
+
+  @Test
+  public void shouldRunCollectorOnlyOncePerInterval() {
+    assertThat(runIfDue("project", EXPENSIVE_COLLECTOR, 0L)).isTrue();
+    assertThat(runIfDue("project", EXPENSIVE_COLLECTOR, ONE_HOUR_MS - 1)).isFalse();
+    assertThat(runIfDue("project", EXPENSIVE_COLLECTOR, ONE_HOUR_MS)).isTrue();
+  }
+
+  @Test
+  public void shouldTrackIntervalsPerProject() {
+    assertThat(runIfDue("project1", EXPENSIVE_COLLECTOR, 0L)).isTrue();
+    assertThat(runIfDue("project2", EXPENSIVE_COLLECTOR, 1L)).isTrue();
+  }
+
+  @Test
+  public void shouldApplyProjectPatternInterval() {
+    assertThat(runIfDue("platform/build", CHEAP_COLLECTOR, 0L)).isTrue();
+    assertThat(runIfDue("platform/build", CHEAP_COLLECTOR, ONE_HOUR_MS)).isFalse();
+    assertThat(runIfDue("platform/build", CHEAP_COLLECTOR, 2 * ONE_HOUR_MS)).isTrue();
+  }
+
+  @Test
+  public void shouldRetryCollectorWhoseRunWasNotRecorded() {
+    assertThat(collectorIntervals.isDue("project", EXPENSIVE_COLLECTOR, 0L)).isTrue();
+    assertThat(collectorIntervals.isDue("project", EXPENSIVE_COLLECTOR, 1L)).isTrue();
+  }
+
+  @Test
+  public void shouldForgetRunsOfDroppedProject() {
+    assertThat(runIfDue("project", EXPENSIVE_COLLECTOR, 0L)).isTrue();
+
+    collectorIntervals.onProjectDropped("project");
+
+    assertThat(runIfDue("project", EXPENSIVE_COLLECTOR, 1L)).isTrue();
+  }
+
+  private boolean runIfDue(String projectName, String collectorName, long nowMs) {
+    if (!collectorIntervals.isDue(projectName, collectorName, nowMs)) {
+      return false;
+    }
+    collectorIntervals.recordRun(projectName, collectorName, nowMs);
+    return true;
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CollectorRunTest {
+  private static final GitRepoMetric METRIC = new GitRepoMetric("metric", "Metric", "Count");
+
+  private ScheduledExecutorService delegate;
+  private ScheduledExecutorService executor;
+  private final Map<GitRepoMetric, Long> reportedMetrics = new HashMap<>();
+  private final AtomicInteger completions = new AtomicInteger();
+  private final CompletableFuture<Long> durationNanos = new CompletableFuture<>();
+
+  @Before
+  public void setUp() {
+    delegate = new ScheduledThreadPoolExecutor(1);
+    executor = new CollectorTimingExecutor(delegate);
+  }
+
+  @After
+  public void tearDown() {
+    delegate.shutdownNow();
+  }
+
+  @Test
+  public void shouldCompleteSynchronousCollectorOnReport() throws Exception {
+    newRun().dispatch(callback -> callback.accept(metrics()));
+
+    assertThat(reportedMetrics).containsExactly(METRIC, 1L);
+    assertThat(durationNanos.get(0, TimeUnit.SECONDS)).isAtLeast(0L);
+    assertThat(completions.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCompleteRunOnceWhenReportingFromExecutor() throws Exception {
+    newRun().dispatch(callback -> executor.submit(() -> callback.accept(metrics())));
+
+    durationNanos.get(10, TimeUnit.SECONDS);
+    delegate.shutdown();
+    delegate.awaitTermination(10, TimeUnit.SECONDS);
+    assertThat(reportedMetrics).containsExactly(METRIC, 1L);
+    assertThat(completions.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCompleteRunOfCollectorFailingWithoutReporting() throws Exception {
+    newRun()
+        .dispatch(
+            callback ->
+                executor.submit(
+                    () -> {
+                      throw new IllegalStateException("collector failure");
+                    }));
+
+    assertThat(durationNanos.get(10, TimeUnit.SECONDS)).isAtLeast(0L);
+    assertThat(reportedMetrics).isEmpty();
+  }
+
+  @Test
+  public void shouldCompleteRunOfCollectorFailingOnDispatch() throws Exception {
+    newRun()
+        .dispatch(
+            callback -> {
+              throw new IllegalStateException("collector failure");
+            });
+
+    assertThat(durationNanos.get(0, TimeUnit.SECONDS)).isAtLeast(0L);
+    assertThat(completions.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldExcludeQueueWaitFromDuration() throws Exception {
+    long queueWaitMs = 500L;
+    CountDownLatch release = new CountDownLatch(1);
+    delegate.submit(
+        () -> {
+          release.await();
+          return null;
+        });
+
+    newRun().dispatch(callback -> executor.submit(() -> callback.accept(metrics())));
+    Thread.sleep(queueWaitMs);
+    release.countDown();
+
+    assertThat(durationNanos.get(10, TimeUnit.SECONDS))
+        .isLessThan(TimeUnit.MILLISECONDS.toNanos(queueWaitMs));
+  }
+
+  private CollectorRun newRun() {
+    return new CollectorRun(
+        "collector",
+        reportedMetrics::putAll,
+        duration -> {
+          completions.incrementAndGet();
+          durationNanos.complete(duration);
+        });
+  }
+
+  private static HashMap<GitRepoMetric, Long> metrics() {
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    metrics.put(METRIC, 1L);
+    return metrics;
+  }
+}
@@ -23,7 +23,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.eclipse.jgit.lib.Config;
 import org.junit.Ignore;
 
@@ -35,6 +37,7 @@ public class ConfigSetupUtils {
   private final List<String> projects;
   private final String gracePeriod;
   private final boolean collectAllRepositories;
+  private final List<Consumer<Config>> settings = new ArrayList<>();
 
   public ConfigSetupUtils(List<String> projects) throws IOException {
     this(projects, "0");
@@ -53,6 +56,21 @@ public class ConfigSetupUtils {
     this.collectAllRepositories = collectAllRepositories;
   }
 
+  public ConfigSetupUtils withPluginSetting(String name, String value) {
+    return withSetting(pluginName, null, name, value);
+  }
+
+  public ConfigSetupUtils withPluginSettings(String name, List<String> values) {
+    settings.add(c -> c.setStringList(pluginName, null, name, values));
+    return this;
+  }
+
+  public ConfigSetupUtils withSetting(
+      String section, String subsection, String name, String value) {
+    settings.add(c -> c.setString(section, subsection, name, value));
+    return this;
+  }
+
   public GitRepoMetricsConfig getGitRepoMetricsConfig() {
     PluginConfigFactory pluginConfigFactory = mock(PluginConfigFactory.class);
 
@@ -68,6 +86,7 @@ public class ConfigSetupUtils {
     c.setStringList(pluginName, null, "project", projects);
     c.setString(pluginName, null, "gracePeriod", gracePeriod);
     c.setString("gerrit", null, "basePath", gitBasePath.toString());
+    settings.forEach(setting -> setting.accept(c));
     return c;
   }
 
@@ -0,0 +1,100 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Range;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConsistentHashRingTest {
+  private static final int VIRTUAL_NODES = 100;
+  private static final int PROJECTS = 10_000;
+
+  @Test
+  public void shouldAssignKeysRegardlessOfTheNodesOrder() {
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("node-1", "node-2"), VIRTUAL_NODES);
+    ConsistentHashRing reversedRing =
+        new ConsistentHashRing(List.of("node-2", "node-1"), VIRTUAL_NODES);
+
+    for (int i = 0; i < PROJECTS; i++) {
+      assertThat(reversedRing.getNode(projectName(i))).isEqualTo(ring.getNode(projectName(i)));
+    }
+  }
+
+  @Test
+  public void shouldSpreadKeysEvenly() {
+    ConsistentHashRing ring =
+        new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), VIRTUAL_NODES);
+
+    Map<String, Integer> keysPerNode = new HashMap<>();
+    for (int i = 0; i < PROJECTS; i++) {
+      keysPerNode.merge(ring.getNode(projectName(i)).get(), 1, Integer::sum);
+    }
+
+    assertThat(keysPerNode.keySet()).containsExactly("node-1", "node-2", "node-3");
+    for (int keys : keysPerNode.values()) {
+      assertThat(keys).isIn(Range.closed(PROJECTS / 4, PROJECTS / 2));
+    }
+  }
+
+  @Test
+  public void shouldOnlyMoveKeysToAnAddedNode() {
+    ConsistentHashRing ring =
+        new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), VIRTUAL_NODES);
+    ConsistentHashRing grownRing =
+        new ConsistentHashRing(List.of("node-1", "node-2", "node-3", "node-4"), VIRTUAL_NODES);
+
+    int movedKeys = 0;
+    for (int i = 0; i < PROJECTS; i++) {
+      String owner = ring.getNode(projectName(i)).get();
+      String newOwner = grownRing.getNode(projectName(i)).get();
+      if (!newOwner.equals(owner)) {
+        assertThat(newOwner).isEqualTo("node-4");
+        movedKeys++;
+      }
+    }
+    assertThat(movedKeys).isLessThan(PROJECTS / 2);
+  }
+
+  @Test
+  public void shouldOnlyMoveKeysOfARemovedNode() {
+    ConsistentHashRing ring =
+        new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), VIRTUAL_NODES);
+    ConsistentHashRing shrunkRing =
+        new ConsistentHashRing(List.of("node-1", "node-3"), VIRTUAL_NODES);
+
+    for (int i = 0; i < PROJECTS; i++) {
+      String owner = ring.getNode(projectName(i)).get();
+      if (!owner.equals("node-2")) {
+        assertThat(shrunkRing.getNode(projectName(i)).get()).isEqualTo(owner);
+      }
+    }
+  }
+
+  @Test
+  public void shouldNotAssignKeysWithoutNodes() {
+    ConsistentHashRing ring = new ConsistentHashRing(List.of(), VIRTUAL_NODES);
+
+    assertThat(ring.getNode(projectName(0)).isPresent()).isFalse();
+  }
+
+  private static String projectName(int i) {
+    return "project-" + i;
+  }
+}
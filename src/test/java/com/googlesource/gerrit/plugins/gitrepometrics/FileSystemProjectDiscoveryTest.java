@@ -0,0 +1,97 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileSystemProjectDiscoveryTest {
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path basePath;
+  private FileSystemProjectDiscovery discovery;
+
+  @Before
+  public void setUp() throws Exception {
+    basePath = dir.newFolder("git").toPath();
+    discovery = new FileSystemProjectDiscovery(basePath, 2);
+  }
+
+  @After
+  public void tearDown() {
+    discovery.stop();
+  }
+
+  @Test
+  public void shouldDiscoverNestedBareRepositories() throws Exception {
+    createBareRepository("project1.git");
+    createBareRepository("@hashed/ab/cd/abcd1234.git");
+    createBareRepository("parent/child");
+
+    assertThat(discovery.listProjectNames())
+        .containsExactly("project1", "@hashed/ab/cd/abcd1234", "parent/child");
+  }
+
+  @Test
+  public void shouldIgnoreDirectoriesWithoutRepositoryLayout() throws Exception {
+    createBareRepository("project1.git");
+    basePath.resolve("not-a-repo/objects").toFile().mkdirs();
+
+    assertThat(discovery.listProjectNames()).containsExactly("project1");
+  }
+
+  @Test
+  public void shouldRefreshAddedAndRemovedRepositories() throws Exception {
+    createBareRepository("group/project1.git");
+    assertThat(discovery.listProjectNames()).containsExactly("group/project1");
+
+    createBareRepository("group/project2.git");
+    assertThat(discovery.listProjectNames()).containsExactly("group/project1", "group/project2");
+
+    FileUtils.delete(basePath.resolve("group/project1.git").toFile(), FileUtils.RECURSIVE);
+    assertThat(discovery.listProjectNames()).containsExactly("group/project2");
+  }
+
+  @Test
+  public void shouldNotLoopOnSymbolicLinkToParentDirectory() throws Exception {
+    createBareRepository("group/project1.git");
+    Files.createSymbolicLink(basePath.resolve("group/loop"), basePath);
+
+    assertThat(discovery.listProjectNames()).containsExactly("group/project1");
+  }
+
+  @Test
+  public void shouldSkipNonBareRepositories() throws Exception {
+    createBareRepository("project1.git");
+    Git.init().setDirectory(basePath.resolve("worktree").toFile()).call().close();
+
+    assertThat(discovery.listProjectNames()).containsExactly("project1");
+  }
+
+  private void createBareRepository(String path) throws Exception {
+    File gitDir = basePath.resolve(path).toFile();
+    Git.init().setBare(true).setDirectory(gitDir).call().close();
+  }
+}
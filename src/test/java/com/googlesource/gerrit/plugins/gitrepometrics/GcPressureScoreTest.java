@@ -0,0 +1,72 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.gitrepometrics.GcPressureScore.GC_PRESSURE_SCORE;
+import static com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitStatsMetricsCollector.numberOfLooseObjects;
+import static com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitStatsMetricsCollector.numberOfPackFiles;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GcPressureScoreTest {
+  private GcPressureScore gcPressureScore;
+
+  @Before
+  public void setUp() throws Exception {
+    gcPressureScore =
+        new GcPressureScore(
+            new ConfigSetupUtils(List.of())
+                .withSetting("gcScore", "numberOfPackFiles", "weight", "10")
+                .getGitRepoMetricsConfig());
+  }
+
+  @Test
+  public void shouldScoreWeightedLatestValues() {
+    assertThat(gcPressureScore.derive("project", Map.of(numberOfPackFiles, 5L), 0L))
+        .containsExactly(GC_PRESSURE_SCORE, 50L);
+    assertThat(gcPressureScore.derive("project", Map.of(numberOfLooseObjects, 7L), 0L))
+        .containsExactly(GC_PRESSURE_SCORE, 57L);
+  }
+
+  @Test
+  public void shouldNotScoreWithoutInputMetrics() {
+    assertThat(gcPressureScore.derive("project", Map.of(), 0L)).isEmpty();
+  }
+
+  @Test
+  public void shouldRankTopProjects() {
+    gcPressureScore.derive("low", Map.of(numberOfPackFiles, 1L), 0L);
+    gcPressureScore.derive("high", Map.of(numberOfPackFiles, 10L), 0L);
+    gcPressureScore.derive("medium", Map.of(numberOfPackFiles, 5L), 0L);
+
+    assertThat(gcPressureScore.topProjects(2))
+        .containsExactly(Map.entry("high", 100L), Map.entry("medium", 50L))
+        .inOrder();
+  }
+
+  @Test
+  public void shouldNotRankDroppedProjects() {
+    gcPressureScore.derive("dropped", Map.of(numberOfPackFiles, 10L), 0L);
+    gcPressureScore.derive("kept", Map.of(numberOfPackFiles, 5L), 0L);
+
+    gcPressureScore.onProjectDropped("dropped");
+
+    assertThat(gcPressureScore.topProjects(2)).containsExactly(Map.entry("kept", 50L));
+  }
+}
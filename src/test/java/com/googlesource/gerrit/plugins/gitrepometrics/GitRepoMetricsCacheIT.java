@@ -35,7 +35,6 @@ import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.FSMetricsCollector;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRefsMetricsCollector;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitStatsMetricsCollector;
-import java.io.IOException;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
@@ -59,6 +58,7 @@ public class GitRepoMetricsCacheIT extends LightweightPluginDaemonTest {
   private GitStatsMetricsCollector gitStatsMetricsCollector;
   private GitRefsMetricsCollector gitRefsMetricsCollector;
   private GitRepoMetricsCache gitRepoMetricsCache;
+  private UpdateGitMetricsTask.Factory updateGitMetricsTaskFactory;
   private Slf4jReporter metricReporter;
 
   private final Project.NameKey testProject1 = Project.nameKey("testProject1");
@@ -71,6 +71,8 @@ public class GitRepoMetricsCacheIT extends LightweightPluginDaemonTest {
     createProjectWithEmptyCommit(testProject1.get());
     createProjectWithEmptyCommit(testProject2.get());
     gitRepoMetricsCache = plugin.getSysInjector().getInstance(GitRepoMetricsCache.class);
+    updateGitMetricsTaskFactory =
+        plugin.getSysInjector().getInstance(UpdateGitMetricsTask.Factory.class);
     fsMetricsCollector = plugin.getSysInjector().getInstance(FSMetricsCollector.class);
     gitStatsMetricsCollector = plugin.getSysInjector().getInstance(GitStatsMetricsCollector.class);
     gitRefsMetricsCollector = plugin.getSysInjector().getInstance(GitRefsMetricsCollector.class);
@@ -96,22 +98,10 @@ public class GitRepoMetricsCacheIT extends LightweightPluginDaemonTest {
       pluginName = "git-repo-metrics",
       name = "git-repo-metrics.project",
       values = {"testProject1", "testProject2"})
-  public void shouldRegisterAllMetrics() throws IOException {
-    ConfigSetupUtils configSetupUtils =
-        new ConfigSetupUtils(Arrays.asList("testProject1", "testProject2"));
+  public void shouldRegisterAllMetrics() {
     List<Project.NameKey> availableProjects = Arrays.asList(testProject1, testProject2);
-    new UpdateGitMetricsTask(
-            gitRepoMetricsCache,
-            repoManager,
-            configSetupUtils.getGitRepoMetricsConfig(),
-            testProject1.get())
-        .run();
-    new UpdateGitMetricsTask(
-            gitRepoMetricsCache,
-            repoManager,
-            configSetupUtils.getGitRepoMetricsConfig(),
-            testProject2.get())
-        .run();
+    updateGitMetricsTaskFactory.create(testProject1.get()).run();
+    updateGitMetricsTaskFactory.create(testProject2.get()).run();
 
     int expectedMetricsCount =
         fsMetricsCollector.availableMetrics().size()
@@ -23,9 +23,12 @@ import com.google.gerrit.extensions.registration.DynamicSet;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
 import com.googlesource.gerrit.plugins.gitrepometrics.collectors.MetricsCollector;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -55,9 +58,17 @@ public class GitRepoMetricsCacheTest {
   public void shouldRegisterMetrics() {
     gitRepoMetricsConfig = configSetupUtils.getGitRepoMetricsConfig();
     gitRepoMetricsCache =
-        new GitRepoMetricsCache(ds, fakeMetricMaker, newMetricsTracker(), gitRepoMetricsConfig);
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
-    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), "anyRepo");
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
 
     assertThat(fakeMetricMaker.callsCounter).isEqualTo(1);
   }
@@ -68,15 +79,19 @@ public class GitRepoMetricsCacheTest {
     gitRepoMetricsCache =
         new GitRepoMetricsCache(
             ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
             fakeMetricMaker,
             new ProjectlessMetricsTracker("git-repo-metrics", metricRegistry),
-            gitRepoMetricsConfig);
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
-    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), "anyRepo");
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
 
     assertThat(fakeMetricMaker.callsCounter).isEqualTo(1);
 
-    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), "anyRepo");
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
 
     assertThat(fakeMetricMaker.callsCounter).isEqualTo(1);
   }
@@ -86,7 +101,15 @@ public class GitRepoMetricsCacheTest {
     gitRepoMetricsConfig = configSetupUtils.getGitRepoMetricsConfig();
 
     gitRepoMetricsCache =
-        new GitRepoMetricsCache(ds, fakeMetricMaker, newMetricsTracker(), gitRepoMetricsConfig);
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
     assertThat(gitRepoMetricsCache.shouldCollectStats(enabledRepo)).isTrue();
   }
@@ -96,7 +119,15 @@ public class GitRepoMetricsCacheTest {
     gitRepoMetricsConfig = new ConfigSetupUtils(List.of(), "0", true).getGitRepoMetricsConfig();
 
     gitRepoMetricsCache =
-        new GitRepoMetricsCache(ds, fakeMetricMaker, newMetricsTracker(), gitRepoMetricsConfig);
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
     assertThat(gitRepoMetricsCache.shouldCollectStats("new-repo")).isTrue();
   }
@@ -106,7 +137,15 @@ public class GitRepoMetricsCacheTest {
     String disabledRepo = "disabledRepo";
     gitRepoMetricsConfig = configSetupUtils.getGitRepoMetricsConfig();
     gitRepoMetricsCache =
-        new GitRepoMetricsCache(ds, fakeMetricMaker, newMetricsTracker(), gitRepoMetricsConfig);
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
     assertThat(gitRepoMetricsCache.shouldCollectStats(disabledRepo)).isFalse();
   }
@@ -117,13 +156,203 @@ public class GitRepoMetricsCacheTest {
         new ConfigSetupUtils(Collections.singletonList(enabledRepo));
     gitRepoMetricsConfig = configSetupUtils.getGitRepoMetricsConfig();
     gitRepoMetricsCache =
-        new GitRepoMetricsCache(ds, fakeMetricMaker, newMetricsTracker(), gitRepoMetricsConfig);
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
     gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
 
     assertThat(gitRepoMetricsCache.shouldCollectStats(enabledRepo)).isTrue();
   }
 
+  @Test
+  public void shouldNotifyRefreshPolicyOnScrape() {
+    AtomicInteger scrapes = new AtomicInteger();
+    gitRepoMetricsConfig = configSetupUtils.getGitRepoMetricsConfig();
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh() {
+              @Override
+              public void onScrape() {
+                scrapes.incrementAndGet();
+              }
+            },
+            StandaloneCollectionCoordinator::new);
+
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
+
+    assertThat(scrapes.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldReturnProjectsCollectedBeforeTime() {
+    gitRepoMetricsConfig = configSetupUtils.getGitRepoMetricsConfig();
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
+
+    assertThat(gitRepoMetricsCache.getLastCollectionTimeMs(enabledRepo)).isPresent();
+    assertThat(gitRepoMetricsCache.getProjectsCollectedBefore(System.currentTimeMillis() + 1))
+        .containsExactly(enabledRepo);
+    assertThat(gitRepoMetricsCache.getProjectsCollectedBefore(0L)).isEmpty();
+  }
+
+  @Test
+  public void shouldDropMetricsOfProjectsNoLongerSelectedOnReload() throws IOException {
+    gitRepoMetricsConfig =
+        new ConfigSetupUtils(List.of(enabledRepo, "otherRepo")).getGitRepoMetricsConfig();
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), "otherRepo");
+
+    gitRepoMetricsConfig.reload(configSetupUtils.getConfig());
+    gitRepoMetricsCache.onConfigReloaded(gitRepoMetricsConfig);
+
+    assertThat(gitRepoMetricsCache.getMetrics().get("anymetrics").keySet())
+        .containsExactly(enabledRepo.toLowerCase(Locale.ROOT));
+    assertThat(gitRepoMetricsCache.getLastCollectionTimeMs("otherRepo")).isEmpty();
+    assertThat(gitRepoMetricsCache.shouldCollectStats("otherRepo")).isFalse();
+  }
+
+  @Test
+  public void shouldDropHistoryOfProjectsNoLongerSelectedOnReload() throws IOException {
+    gitRepoMetricsConfig =
+        new ConfigSetupUtils(List.of(enabledRepo, "otherRepo"))
+            .withPluginSetting("historySize", "3")
+            .withPluginSetting("historyMetric", "anyMetrics")
+            .getGitRepoMetricsConfig();
+    MetricsHistory metricsHistory = new MetricsHistory(gitRepoMetricsConfig);
+    DynamicSet<DerivedMetrics> derivedMetrics = new DynamicSet<>();
+    derivedMetrics.add("git-repo-metrics", metricsHistory);
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            derivedMetrics,
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+    for (String projectName : List.of(enabledRepo, "otherRepo")) {
+      metricsHistory.derive(projectName, getCollectedMetrics(), System.currentTimeMillis());
+      gitRepoMetricsCache.setMetrics(getCollectedMetrics(), projectName);
+    }
+
+    gitRepoMetricsConfig.reload(configSetupUtils.getConfig());
+    gitRepoMetricsCache.onConfigReloaded(gitRepoMetricsConfig);
+
+    assertThat(metricsHistory.getHistory(enabledRepo)).isNotEmpty();
+    assertThat(metricsHistory.getHistory("otherRepo")).isEmpty();
+  }
+
+  @Test
+  public void shouldNotifyDroppedProjectListenersOnReload() throws IOException {
+    gitRepoMetricsConfig =
+        new ConfigSetupUtils(List.of(enabledRepo, "otherRepo")).getGitRepoMetricsConfig();
+    List<String> droppedProjects = new ArrayList<>();
+    DynamicSet<DroppedProjectListener> droppedProjectListeners = new DynamicSet<>();
+    droppedProjectListeners.add("git-repo-metrics", droppedProjects::add);
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            droppedProjectListeners,
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), "otherRepo");
+
+    gitRepoMetricsConfig.reload(configSetupUtils.getConfig());
+    gitRepoMetricsCache.onConfigReloaded(gitRepoMetricsConfig);
+
+    assertThat(droppedProjects).containsExactly("otherRepo");
+  }
+
+  @Test
+  public void shouldIgnoreMetricsOfProjectsNoLongerSelected() throws IOException {
+    gitRepoMetricsConfig =
+        new ConfigSetupUtils(List.of(enabledRepo, "otherRepo")).getGitRepoMetricsConfig();
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), enabledRepo);
+
+    gitRepoMetricsConfig.reload(configSetupUtils.getConfig());
+    gitRepoMetricsCache.onConfigReloaded(gitRepoMetricsConfig);
+    gitRepoMetricsCache.setMetrics(getCollectedMetrics(), "otherRepo");
+
+    assertThat(gitRepoMetricsCache.getMetrics().get("anymetrics").keySet())
+        .containsExactly(enabledRepo.toLowerCase(Locale.ROOT));
+    assertThat(gitRepoMetricsCache.getLastCollectionTimeMs("otherRepo")).isEmpty();
+  }
+
+  @Test
+  public void shouldDropImportedMetricsOfProjectsNoLongerSelectedOnReload() throws IOException {
+    gitRepoMetricsConfig =
+        new ConfigSetupUtils(List.of("importedrepo", "otherrepo")).getGitRepoMetricsConfig();
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            fakeMetricMaker,
+            newMetricsTracker(),
+            gitRepoMetricsConfig,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+    gitRepoMetricsCache.importMetrics(
+        ImmutableMap.of(
+            new GitRepoMetric("anyMetrics", "anyMetric description", "Count"),
+            ImmutableMap.of("importedrepo", 1L, "otherrepo", 2L)));
+
+    gitRepoMetricsConfig.reload(new ConfigSetupUtils(List.of("importedrepo")).getConfig());
+    gitRepoMetricsCache.onConfigReloaded(gitRepoMetricsConfig);
+
+    assertThat(gitRepoMetricsCache.getMetrics().get("anymetrics").keySet())
+        .containsExactly("importedrepo");
+  }
+
   private HashMap<GitRepoMetric, Long> getCollectedMetrics() {
     return Maps.newHashMap(
         ImmutableMap.of(new GitRepoMetric("anyMetrics", "anyMetric description", "Count"), 1L));
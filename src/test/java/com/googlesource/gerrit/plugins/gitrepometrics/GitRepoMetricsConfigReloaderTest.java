@@ -0,0 +1,177 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.config.SitePaths;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.lib.Config;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GitRepoMetricsConfigReloaderTest {
+  private static final GitRepoMetric METRIC = new GitRepoMetric("metric", "Metric", "Count");
+  private static final String KEPT_PROJECT = "keptProject";
+  private static final String DESELECTED_PROJECT = "deselectedProject";
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path configFile;
+  private ScheduledExecutorService executor;
+  private GitRepoMetricsConfig config;
+  private GitRepoMetricsConfigListener listener;
+  private GitRepoMetricsCache cache;
+  private GitRepoMetricsConfigReloader reloader;
+
+  @Before
+  public void setUp() throws Exception {
+    SitePaths sitePaths = new SitePaths(dir.getRoot().toPath());
+    Files.createDirectories(sitePaths.etc_dir);
+    configFile = sitePaths.etc_dir.resolve(ConfigSetupUtils.pluginName + ".config");
+    ConfigSetupUtils configSetupUtils =
+        new ConfigSetupUtils(List.of(KEPT_PROJECT, DESELECTED_PROJECT))
+            .withPluginSetting("configReloadInterval", "1 min");
+    writeConfig(configSetupUtils.getConfig(), 3);
+
+    executor = mock(ScheduledExecutorService.class);
+    config = configSetupUtils.getGitRepoMetricsConfig();
+    listener = mock(GitRepoMetricsConfigListener.class);
+    cache =
+        new GitRepoMetricsCache(
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            new DisabledMetricMaker(),
+            new ProjectlessMetricsTracker(ConfigSetupUtils.pluginName, new MetricRegistry()),
+            config,
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
+    DynamicSet<GitRepoMetricsConfigListener> listeners = new DynamicSet<>();
+    listeners.add(ConfigSetupUtils.pluginName, listener);
+    listeners.add(ConfigSetupUtils.pluginName, cache);
+    reloader =
+        new GitRepoMetricsConfigReloader(
+            executor, config, listeners, sitePaths, ConfigSetupUtils.pluginName);
+  }
+
+  @Test
+  public void shouldPollConfigAtReloadInterval() {
+    reloader.start();
+
+    verify(executor)
+        .scheduleAtFixedRate(
+            eq(reloader),
+            eq(TimeUnit.MINUTES.toMillis(1)),
+            eq(TimeUnit.MINUTES.toMillis(1)),
+            eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void shouldNotReloadUnchangedConfig() {
+    reloader.start();
+    reloader.run();
+
+    verify(listener, never()).onConfigReloaded(any());
+  }
+
+  @Test
+  public void shouldReloadChangedConfig() throws Exception {
+    reloader.start();
+    writeConfig(
+        new ConfigSetupUtils(List.of(KEPT_PROJECT))
+            .withPluginSetting("configReloadInterval", "1 min")
+            .withPluginSetting("poolSize", "4")
+            .getConfig(),
+        1);
+    reloader.run();
+    reloader.run();
+
+    verify(listener, times(1)).onConfigReloaded(config);
+    assertThat(config.getPoolSize()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldDropMetricsOfDeselectedProjects() throws Exception {
+    cache.setMetrics(Map.of(METRIC, 1L), KEPT_PROJECT);
+    cache.setMetrics(Map.of(METRIC, 2L), DESELECTED_PROJECT);
+
+    reloader.start();
+    writeConfig(
+        new ConfigSetupUtils(List.of(KEPT_PROJECT))
+            .withPluginSetting("configReloadInterval", "1 min")
+            .getConfig(),
+        1);
+    reloader.run();
+
+    assertThat(cache.getMetrics().get("metric").keySet())
+        .containsExactly(KEPT_PROJECT.toLowerCase(Locale.ROOT));
+    assertThat(cache.getLastCollectionTimeMs(DESELECTED_PROJECT)).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepCurrentConfigWhenProjectPatternIsInvalid() throws Exception {
+    reloader.start();
+    writeConfig(
+        new ConfigSetupUtils(List.of("^invalid(regex"))
+            .withPluginSetting("configReloadInterval", "1 min")
+            .withPluginSetting("poolSize", "4")
+            .getConfig(),
+        2);
+    reloader.run();
+
+    verify(listener, never()).onConfigReloaded(any());
+    assertThat(config.getPoolSize()).isNotEqualTo(4);
+    assertThat(config.getRepositoryNames()).containsExactly(KEPT_PROJECT, DESELECTED_PROJECT);
+    assertThat(config.getProjectFilter().matches(DESELECTED_PROJECT)).isTrue();
+
+    writeConfig(
+        new ConfigSetupUtils(List.of(KEPT_PROJECT))
+            .withPluginSetting("configReloadInterval", "1 min")
+            .getConfig(),
+        1);
+    reloader.run();
+
+    verify(listener).onConfigReloaded(config);
+    assertThat(config.getProjectFilter().matches(DESELECTED_PROJECT)).isFalse();
+  }
+
+  private void writeConfig(Config settings, int hoursAgo) throws Exception {
+    Files.writeString(configFile, settings.toText());
+    // Date the file well in the past, so that its snapshot is never racily clean
+    Files.setLastModifiedTime(
+        configFile,
+        FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hoursAgo)));
+  }
+}
@@ -16,10 +16,15 @@ package com.googlesource.gerrit.plugins.gitrepometrics;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.googlesource.gerrit.plugins.gitrepometrics.GitRepoUpdateListener.REF_REPLICATED_EVENT_SUFFIX;
+import static com.googlesource.gerrit.plugins.gitrepometrics.GitRepoUpdateListener.REF_REPLICATION_DONE_EVENT_SUFFIX;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
 import com.codahale.metrics.MetricRegistry;
@@ -44,6 +49,7 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Test;
@@ -51,6 +57,7 @@ import org.mockito.ArgumentCaptor;
 
 public class GitUpdateListenerTest {
   private final int MAX_WAIT_TIME_FOR_METRICS_SECS = 5;
+  private static final long BATCH_WINDOW_MS = 10_000L;
   private final GitRepositoryManager repoManager = new InMemoryRepositoryManager();
   private final ScheduledExecutorService mockedExecutorService =
       mock(ScheduledExecutorService.class);
@@ -72,10 +79,14 @@ public class GitUpdateListenerTest {
         new ConfigSetupUtils(Collections.singletonList(enabledProject));
     gitRepoMetricsCache =
         new GitRepoMetricsCache(
+            new DynamicSet<>(),
+            new DynamicSet<>(),
             new DynamicSet<>(),
             new DisabledMetricMaker(),
             new ProjectlessMetricsTracker("git-repo-metrics", new MetricRegistry()),
-            configSetupUtils.getGitRepoMetricsConfig());
+            configSetupUtils.getGitRepoMetricsConfig(),
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
     AbstractModule m =
         new AbstractModule() {
@@ -103,7 +114,10 @@ public class GitUpdateListenerTest {
             mockedExecutorService,
             updateGitMetricsTaskFactory,
             gitRepoMetricsCache,
-            new ProjectMetricsUnlimited());
+            new ProjectMetricsUnlimited(),
+            new ImmediateMetricsRefresh(),
+            new StandaloneCollectionCoordinator(),
+            new ReplicationEventBatcher(mockedExecutorService, 0L));
   }
 
   @Test
@@ -169,7 +183,10 @@ public class GitUpdateListenerTest {
             Executors.newSingleThreadScheduledExecutor(),
             updateGitMetricsTaskFactory,
             gitRepoMetricsCache,
-            (project) -> acquireCount.incrementAndGet());
+            (project) -> acquireCount.incrementAndGet(),
+            new ImmediateMetricsRefresh(),
+            new StandaloneCollectionCoordinator(),
+            new ReplicationEventBatcher(mockedExecutorService, 0L));
     limitedGitRepoUpdateListener.onEvent(getRefUpdatedEvent(enabledProject));
 
     try {
@@ -180,6 +197,143 @@ public class GitUpdateListenerTest {
     }
   }
 
+  @Test
+  public void shouldNotUpdateMetricsWhenRefreshIsDeferred() {
+    GitRepoUpdateListener lazyGitRepoUpdateListener =
+        new GitRepoUpdateListener(
+            producerInstanceId,
+            mockedExecutorService,
+            updateGitMetricsTaskFactory,
+            gitRepoMetricsCache,
+            new ProjectMetricsUnlimited(),
+            new ImmediateMetricsRefresh() {
+              @Override
+              public boolean deferRefresh(String projectName) {
+                return true;
+              }
+            },
+            new StandaloneCollectionCoordinator(),
+            new ReplicationEventBatcher(mockedExecutorService, 0L));
+
+    lazyGitRepoUpdateListener.onEvent(getRefUpdatedEvent(enabledProject));
+    assertMetricsUpdateTaskIsNotExecuted();
+  }
+
+  @Test
+  public void shouldUpdateMetricsOfOwnedProjectOnRefUpdatedFromOtherNode() {
+    newCoordinatedGitRepoUpdateListener(enabledProject)
+        .onEvent(getRefUpdatedEvent(enabledProject, "another-node-instance-id"));
+    assertMetricsUpdateTaskIsExecuted();
+  }
+
+  @Test
+  public void shouldNotUpdateMetricsOfProjectOwnedByOtherNode() {
+    newCoordinatedGitRepoUpdateListener("anotherProject")
+        .onEvent(getRefUpdatedEvent(enabledProject));
+    assertMetricsUpdateTaskIsNotExecuted();
+  }
+
+  @Test
+  public void shouldUpdateMetricsOnceForBatchOfRefReplicatedEvents() {
+    ScheduledExecutorService batchExecutorService = mock(ScheduledExecutorService.class);
+    ArgumentCaptor<Runnable> batchCaptor = ArgumentCaptor.forClass(Runnable.class);
+    GitRepoUpdateListener batchingGitRepoUpdateListener =
+        newBatchingGitRepoUpdateListener(batchExecutorService);
+
+    for (int i = 0; i < 1000; i++) {
+      batchingGitRepoUpdateListener.onEvent(
+          getRefReplicationEvent(REF_REPLICATED_EVENT_SUFFIX, enabledProject, producerInstanceId));
+    }
+    batchingGitRepoUpdateListener.onEvent(
+        getRefReplicationEvent(
+            REF_REPLICATION_DONE_EVENT_SUFFIX, enabledProject, producerInstanceId));
+
+    verify(batchExecutorService)
+        .schedule(batchCaptor.capture(), eq(BATCH_WINDOW_MS), eq(TimeUnit.MILLISECONDS));
+    verifyNoInteractions(mockedExecutorService);
+
+    batchCaptor.getValue().run();
+    verify(mockedExecutorService, times(1)).execute(any());
+  }
+
+  @Test
+  public void shouldOpenNewBatchAfterCollection() {
+    ScheduledExecutorService batchExecutorService = mock(ScheduledExecutorService.class);
+    ArgumentCaptor<Runnable> batchCaptor = ArgumentCaptor.forClass(Runnable.class);
+    GitRepoUpdateListener batchingGitRepoUpdateListener =
+        newBatchingGitRepoUpdateListener(batchExecutorService);
+
+    batchingGitRepoUpdateListener.onEvent(
+        getRefReplicationEvent(REF_REPLICATED_EVENT_SUFFIX, enabledProject, producerInstanceId));
+    verify(batchExecutorService)
+        .schedule(batchCaptor.capture(), eq(BATCH_WINDOW_MS), eq(TimeUnit.MILLISECONDS));
+    batchCaptor.getValue().run();
+    batchingGitRepoUpdateListener.onEvent(
+        getRefReplicationEvent(REF_REPLICATED_EVENT_SUFFIX, enabledProject, producerInstanceId));
+
+    verify(batchExecutorService, times(2))
+        .schedule(any(Runnable.class), eq(BATCH_WINDOW_MS), eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void shouldNotBatchRefUpdatedEvents() {
+    ScheduledExecutorService batchExecutorService = mock(ScheduledExecutorService.class);
+
+    newBatchingGitRepoUpdateListener(batchExecutorService)
+        .onEvent(getRefUpdatedEvent(enabledProject));
+
+    verifyNoInteractions(batchExecutorService);
+    assertMetricsUpdateTaskIsExecuted();
+  }
+
+  @Test
+  public void shouldNotUpdateMetricsOnReplicationDoneWithoutBatching() {
+    gitRepoUpdateListener.onEvent(
+        getRefReplicationEvent(
+            REF_REPLICATION_DONE_EVENT_SUFFIX, enabledProject, producerInstanceId));
+    assertMetricsUpdateTaskIsNotExecuted();
+  }
+
+  private GitRepoUpdateListener newBatchingGitRepoUpdateListener(
+      ScheduledExecutorService batchExecutorService) {
+    return new GitRepoUpdateListener(
+        producerInstanceId,
+        mockedExecutorService,
+        updateGitMetricsTaskFactory,
+        gitRepoMetricsCache,
+        new ProjectMetricsUnlimited(),
+        new ImmediateMetricsRefresh(),
+        new StandaloneCollectionCoordinator(),
+        new ReplicationEventBatcher(batchExecutorService, BATCH_WINDOW_MS));
+  }
+
+  private GitRepoUpdateListener newCoordinatedGitRepoUpdateListener(String ownedProject) {
+    return new GitRepoUpdateListener(
+        producerInstanceId,
+        mockedExecutorService,
+        updateGitMetricsTaskFactory,
+        gitRepoMetricsCache,
+        new ProjectMetricsUnlimited(),
+        new ImmediateMetricsRefresh(),
+        new CollectionCoordinator() {
+          @Override
+          public boolean isCollecting() {
+            return true;
+          }
+
+          @Override
+          public boolean isCollecting(String projectName) {
+            return projectName.equals(ownedProject);
+          }
+
+          @Override
+          public boolean isCoordinated() {
+            return true;
+          }
+        },
+        new ReplicationEventBatcher(mockedExecutorService, 0L));
+  }
+
   private RefUpdatedEvent getRefUpdatedEvent(String projectName) {
     return getRefUpdatedEvent(projectName, producerInstanceId);
   }
@@ -0,0 +1,131 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GrowthForecastTest {
+  private static final String PROJECT_NAME = "testProject";
+  private static final GitRepoMetric PACK_FILES =
+      new GitRepoMetric("numberOfPackFiles", "Number of pack files", "Count");
+  private static final GitRepoMetric PACKED_OBJECTS_SIZE =
+      new GitRepoMetric("sizeOfPackedObjects", "Size of packed objects", "Bytes");
+
+  private GrowthForecast growthForecast;
+
+  @Before
+  public void setUp() throws Exception {
+    growthForecast =
+        new GrowthForecast(
+            new ConfigSetupUtils(List.of(PROJECT_NAME))
+                .withSetting("forecast", "numberOfPackFiles", "threshold", "1000")
+                .getGitRepoMetricsConfig());
+  }
+
+  @Test
+  public void shouldNotForecastFromSingleSample() {
+    assertThat(growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 100L), 0L)).isEmpty();
+  }
+
+  @Test
+  public void shouldProjectTimeToThreshold() {
+    growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 100L), 0L);
+    growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 200L), 100_000L);
+
+    Map<GitRepoMetric, Long> derived =
+        growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 300L), 200_000L);
+
+    assertThat(secondsToThreshold(derived)).isEqualTo(700L);
+  }
+
+  @Test
+  public void shouldReportNotGrowingMetrics() {
+    growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 100L), 0L);
+
+    Map<GitRepoMetric, Long> derived =
+        growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 50L), 1000L);
+
+    assertThat(secondsToThreshold(derived)).isEqualTo(GrowthForecast.NOT_GROWING);
+  }
+
+  @Test
+  public void shouldReportThresholdAlreadyReached() {
+    growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 900L), 0L);
+
+    Map<GitRepoMetric, Long> derived =
+        growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 1100L), 1000L);
+
+    assertThat(secondsToThreshold(derived)).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldForecastDefaultMetrics() throws Exception {
+    growthForecast =
+        new GrowthForecast(new ConfigSetupUtils(List.of(PROJECT_NAME)).getGitRepoMetricsConfig());
+    growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 10L), 0L);
+
+    Map<GitRepoMetric, Long> derived =
+        growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 20L), 10_000_000L);
+
+    assertThat(secondsToThreshold(derived)).isEqualTo(30_000L);
+  }
+
+  @Test
+  public void shouldKeepPrecisionAfterLongSampling() throws Exception {
+    growthForecast =
+        new GrowthForecast(
+            new ConfigSetupUtils(List.of(PROJECT_NAME))
+                .withSetting("forecast", "sizeOfPackedObjects", "threshold", "10100600000")
+                .getGitRepoMetricsConfig());
+    long startMs = 1_700_000_000_000L;
+    Map<GitRepoMetric, Long> derived = Map.of();
+    // A sample every 10 minutes for about 2 years, growing by 1000 bytes each time
+    for (int i = 0; i < 100_000; i++) {
+      derived =
+          growthForecast.derive(
+              PROJECT_NAME,
+              Map.of(PACKED_OBJECTS_SIZE, 10_000_000_000L + 1000L * i),
+              startMs + 600_000L * i);
+    }
+
+    assertThat(secondsToThreshold(derived, "sizeOfPackedObjects")).isEqualTo(360_600L);
+  }
+
+  @Test
+  public void shouldDropFitsOfDroppedProjects() {
+    growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 100L), 0L);
+    growthForecast.onProjectDropped(PROJECT_NAME);
+
+    assertThat(growthForecast.derive(PROJECT_NAME, Map.of(PACK_FILES, 200L), 100_000L)).isEmpty();
+  }
+
+  private static Long secondsToThreshold(Map<GitRepoMetric, Long> derivedMetrics) {
+    return secondsToThreshold(derivedMetrics, "numberOfPackFiles");
+  }
+
+  private static Long secondsToThreshold(
+      Map<GitRepoMetric, Long> derivedMetrics, String metricName) {
+    assertThat(derivedMetrics).hasSize(1);
+    GitRepoMetric metric = derivedMetrics.keySet().iterator().next();
+    assertThat(metric.getName()).isEqualTo(metricName + "SecondsToThreshold");
+    return derivedMetrics.get(metric);
+  }
+}
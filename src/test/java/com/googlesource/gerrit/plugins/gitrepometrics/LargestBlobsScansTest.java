@@ -0,0 +1,115 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.LargestBlobsScan;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LargestBlobsScansTest {
+  private static final String PROJECT = "project";
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private ScheduledThreadPoolExecutor scanExecutor;
+  private CountDownLatch scansBlocked;
+  private LargestBlobsScans largestBlobsScans;
+
+  @Before
+  public void setUp() throws Exception {
+    File gitDir = dir.newFolder("repo.git");
+    try (FileRepository repository = new FileRepository(gitDir)) {
+      repository.create(true);
+    }
+
+    RepositoryResolver repositoryResolver = mock(RepositoryResolver.class);
+    when(repositoryResolver.openRepository(anyString()))
+        .thenAnswer(invocation -> new FileRepository(gitDir));
+    RepositoryHandlePool repositoryHandlePool =
+        new RepositoryHandlePool(
+            repositoryResolver,
+            new ConfigSetupUtils(List.of(PROJECT)).getGitRepoMetricsConfig(),
+            new DisabledMetricMaker());
+
+    scanExecutor = new ScheduledThreadPoolExecutor(1);
+    scansBlocked = new CountDownLatch(1);
+    scanExecutor.execute(
+        () -> {
+          try {
+            scansBlocked.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    largestBlobsScans = new LargestBlobsScans(scanExecutor, repositoryHandlePool);
+  }
+
+  @After
+  public void tearDown() {
+    scanExecutor.shutdownNow();
+  }
+
+  @Test
+  public void shouldNotStartScanWhenOneIsQueued() throws Exception {
+    LargestBlobsScan scan = largestBlobsScans.start(PROJECT, 10);
+
+    assertThat(largestBlobsScans.start(PROJECT, 10)).isSameInstanceAs(scan);
+    assertThat(scan.getState()).isEqualTo(LargestBlobsScan.State.QUEUED);
+  }
+
+  @Test
+  public void shouldCancelQueuedScanAtOnce() throws Exception {
+    LargestBlobsScan scan = largestBlobsScans.start(PROJECT, 10);
+
+    assertThat(largestBlobsScans.cancel(PROJECT)).hasValue(scan);
+    assertThat(scan.getState()).isEqualTo(LargestBlobsScan.State.CANCELLED);
+  }
+
+  @Test
+  public void shouldStartNewScanAfterCancellingQueuedOne() throws Exception {
+    LargestBlobsScan cancelledScan = largestBlobsScans.start(PROJECT, 10);
+    largestBlobsScans.cancel(PROJECT);
+
+    LargestBlobsScan newScan = largestBlobsScans.start(PROJECT, 10);
+    assertThat(newScan).isNotSameInstanceAs(cancelledScan);
+    assertThat(newScan.getState()).isEqualTo(LargestBlobsScan.State.QUEUED);
+
+    runQueuedScans();
+    assertThat(cancelledScan.getState()).isEqualTo(LargestBlobsScan.State.CANCELLED);
+    assertThat(newScan.getState()).isEqualTo(LargestBlobsScan.State.DONE);
+    assertThat(largestBlobsScans.get(PROJECT)).hasValue(newScan);
+  }
+
+  private void runQueuedScans() throws Exception {
+    scansBlocked.countDown();
+    scanExecutor.shutdown();
+    assertThat(scanExecutor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
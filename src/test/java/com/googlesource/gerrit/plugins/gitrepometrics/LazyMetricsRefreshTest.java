@@ -0,0 +1,89 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LazyMetricsRefreshTest {
+  private static final String PROJECT_NAME = "testProject";
+  private static final long COLLECTED_AT_MS = TimeUnit.HOURS.toMillis(1);
+  private static final long TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private final AtomicLong nowMs = new AtomicLong(COLLECTED_AT_MS);
+  private BackgroundCollectionLane backgroundCollectionLane;
+  private LazyMetricsRefresh lazyMetricsRefresh;
+
+  @Before
+  public void setUp() throws Exception {
+    GitRepoMetricsCache gitRepoMetricsCache = mock(GitRepoMetricsCache.class);
+    when(gitRepoMetricsCache.getProjectsCollectedBefore(anyLong()))
+        .thenAnswer(
+            invocation ->
+                (long) invocation.getArgument(0) > COLLECTED_AT_MS
+                    ? List.of(PROJECT_NAME)
+                    : List.of());
+    backgroundCollectionLane = mock(BackgroundCollectionLane.class);
+    lazyMetricsRefresh =
+        new LazyMetricsRefresh(
+            () -> gitRepoMetricsCache,
+            backgroundCollectionLane,
+            new ConfigSetupUtils(List.of(PROJECT_NAME))
+                .withPluginSetting("lazyCollectionTtl", "5 min")
+                .getGitRepoMetricsConfig(),
+            nowMs::get);
+  }
+
+  @Test
+  public void shouldNotRefreshMetricsWithinTtl() {
+    nowMs.set(COLLECTED_AT_MS + TTL_MS);
+    lazyMetricsRefresh.onScrape();
+
+    verify(backgroundCollectionLane, never()).submit(any());
+  }
+
+  @Test
+  public void shouldRefreshExpiredMetrics() {
+    nowMs.set(COLLECTED_AT_MS + TTL_MS + 1);
+    lazyMetricsRefresh.onScrape();
+
+    verify(backgroundCollectionLane).submit(List.of(PROJECT_NAME));
+  }
+
+  @Test
+  public void shouldCheckExpiredMetricsOncePerSecond() {
+    nowMs.set(COLLECTED_AT_MS + TTL_MS + 1);
+    lazyMetricsRefresh.onScrape();
+    lazyMetricsRefresh.onScrape();
+    nowMs.addAndGet(999);
+    lazyMetricsRefresh.onScrape();
+    verify(backgroundCollectionLane, times(1)).submit(any());
+
+    nowMs.addAndGet(1);
+    lazyMetricsRefresh.onScrape();
+    verify(backgroundCollectionLane, times(2)).submit(any());
+  }
+}
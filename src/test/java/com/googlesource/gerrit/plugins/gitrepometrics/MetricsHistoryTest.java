@@ -0,0 +1,73 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsHistoryTest {
+  private static final String PROJECT_NAME = "testProject";
+  private static final GitRepoMetric LOOSE_OBJECTS =
+      new GitRepoMetric("numberOfLooseObjects", "Number of loose objects", "Count");
+  private static final GitRepoMetric LOOSE_OBJECTS_PER_HOUR =
+      new GitRepoMetric("looseObjectsPerHour", "Growth rate of numberOfLooseObjects", "Count");
+  private static final long ONE_HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+  private MetricsHistory metricsHistory;
+
+  @Before
+  public void setUp() throws Exception {
+    metricsHistory =
+        new MetricsHistory(
+            new ConfigSetupUtils(List.of(PROJECT_NAME))
+                .withPluginSetting("historySize", "3")
+                .withSetting("rate", "looseObjectsPerHour", "metric", "numberOfLooseObjects")
+                .getGitRepoMetricsConfig());
+  }
+
+  @Test
+  public void shouldNotDeriveRateFromSingleSample() {
+    assertThat(metricsHistory.derive(PROJECT_NAME, Map.of(LOOSE_OBJECTS, 10L), 0L)).isEmpty();
+  }
+
+  @Test
+  public void shouldDeriveRateOverPeriod() {
+    metricsHistory.derive(PROJECT_NAME, Map.of(LOOSE_OBJECTS, 100L), 0L);
+
+    assertThat(metricsHistory.derive(PROJECT_NAME, Map.of(LOOSE_OBJECTS, 150L), ONE_HOUR_MS / 2))
+        .containsExactly(LOOSE_OBJECTS_PER_HOUR, 100L);
+  }
+
+  @Test
+  public void shouldKeepOnlyMostRecentSamples() {
+    for (int i = 0; i < 5; i++) {
+      metricsHistory.derive(PROJECT_NAME, Map.of(LOOSE_OBJECTS, i * 10L), i * ONE_HOUR_MS);
+    }
+
+    List<MetricsHistory.Sample> samples =
+        metricsHistory.getHistory(PROJECT_NAME).get("numberoflooseobjects");
+    assertThat(samples).hasSize(3);
+    assertThat(samples.get(0).value).isEqualTo(20L);
+    assertThat(samples.get(2).value).isEqualTo(40L);
+    assertThat(metricsHistory.derive(PROJECT_NAME, Map.of(LOOSE_OBJECTS, 60L), 5 * ONE_HOUR_MS))
+        .containsExactly(LOOSE_OBJECTS_PER_HOUR, 15L);
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.FSMetricsCollector;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectsDirectoryWatcherTest {
+  private static final String HOT_PROJECT = "hot";
+  private static final long RECONCILE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path objectsDirectory;
+  private ObjectsDirectoryWatcher watcher;
+
+  @Before
+  public void setUp() throws Exception {
+    objectsDirectory = dir.newFolder("objects").toPath();
+    Files.createDirectories(objectsDirectory.resolve("pack"));
+    Files.createDirectories(objectsDirectory.resolve("info"));
+    Files.createDirectories(objectsDirectory.resolve("ab"));
+    Files.write(objectsDirectory.resolve("ab/cdef"), new byte[1]);
+
+    watcher =
+        new ObjectsDirectoryWatcher(
+            new ConfigSetupUtils(List.of())
+                .withPluginSetting("hotProject", HOT_PROJECT)
+                .withSetting("collector", FSMetricsCollector.COLLECTOR_NAME, "incremental", "true")
+                .getGitRepoMetricsConfig());
+    watcher.openWatchService();
+  }
+
+  @After
+  public void tearDown() {
+    watcher.stop();
+  }
+
+  @Test
+  public void shouldNotWatchProjectsThatAreNotHot() {
+    assertThat(watcher.getCounts("cold", objectsDirectory, 0L).isPresent()).isFalse();
+  }
+
+  @Test
+  public void shouldCountEntriesOfObjectsDirectory() {
+    ObjectsDirectoryWatcher.Counts counts =
+        watcher.getCounts(HOT_PROJECT, objectsDirectory, 0L).get();
+
+    assertThat(counts.files).isEqualTo(1L);
+    assertThat(counts.directories).isEqualTo(4L);
+    assertThat(counts.emptyDirectories).isEqualTo(2L);
+    assertThat(counts.keepFiles).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldUpdateCountsFromEvents() throws Exception {
+    // Other platforms may poll the directories at intervals longer than the test timeout
+    assumeTrue(System.getProperty("os.name").startsWith("Linux"));
+    watcher.getCounts(HOT_PROJECT, objectsDirectory, 0L);
+
+    Files.write(objectsDirectory.resolve("pack/pack-1.pack"), new byte[1]);
+    Files.write(objectsDirectory.resolve("pack/pack-1.keep"), new byte[1]);
+    Files.createDirectories(objectsDirectory.resolve("cd"));
+    Files.write(objectsDirectory.resolve("cd/0123"), new byte[1]);
+    Files.delete(objectsDirectory.resolve("ab/cdef"));
+    watcher.processPendingEvents(500L);
+    ObjectsDirectoryWatcher.Counts counts =
+        watcher.getCounts(HOT_PROJECT, objectsDirectory, 1L).get();
+
+    assertThat(counts.files).isEqualTo(3L);
+    assertThat(counts.directories).isEqualTo(5L);
+    assertThat(counts.emptyDirectories).isEqualTo(2L);
+    assertThat(counts.keepFiles).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldWalkAgainAfterReconcileInterval() throws Exception {
+    watcher.getCounts(HOT_PROJECT, objectsDirectory, 0L);
+    // Not processing the events, as if they were lost
+    Files.write(objectsDirectory.resolve("pack/pack-1.keep"), new byte[1]);
+
+    ObjectsDirectoryWatcher.Counts counts =
+        watcher.getCounts(HOT_PROJECT, objectsDirectory, RECONCILE_INTERVAL_MS).get();
+
+    assertThat(counts.files).isEqualTo(2L);
+    assertThat(counts.keepFiles).isEqualTo(1L);
+    assertThat(counts.emptyDirectories).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldWalkAgainWhenObjectsDirectoryIsRecreated() throws Exception {
+    // Other platforms may poll the directories at intervals longer than the test timeout
+    assumeTrue(System.getProperty("os.name").startsWith("Linux"));
+    watcher.getCounts(HOT_PROJECT, objectsDirectory, 0L);
+
+    Files.delete(objectsDirectory.resolve("ab/cdef"));
+    Files.delete(objectsDirectory.resolve("ab"));
+    Files.delete(objectsDirectory.resolve("info"));
+    Files.delete(objectsDirectory.resolve("pack"));
+    Files.delete(objectsDirectory);
+    watcher.processPendingEvents(500L);
+    Files.createDirectories(objectsDirectory.resolve("pack"));
+    Files.write(objectsDirectory.resolve("pack/pack-1.pack"), new byte[1]);
+    ObjectsDirectoryWatcher.Counts counts =
+        watcher.getCounts(HOT_PROJECT, objectsDirectory, 1L).get();
+
+    assertThat(counts.files).isEqualTo(1L);
+    assertThat(counts.directories).isEqualTo(2L);
+    assertThat(counts.emptyDirectories).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldStopWatchingForgottenProject() throws Exception {
+    watcher.getCounts(HOT_PROJECT, objectsDirectory, 0L);
+
+    watcher.forget(HOT_PROJECT);
+    Files.write(objectsDirectory.resolve("pack/pack-1.keep"), new byte[1]);
+    ObjectsDirectoryWatcher.Counts counts =
+        watcher.getCounts(HOT_PROJECT, objectsDirectory, 1L).get();
+
+    assertThat(counts.files).isEqualTo(2L);
+    assertThat(counts.keepFiles).isEqualTo(1L);
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProjectCollectionCostTrackerTest {
+  private ProjectCollectionCostTracker collectionCostTracker;
+
+  @Before
+  public void setUp() {
+    collectionCostTracker = new ProjectCollectionCostTracker();
+  }
+
+  @Test
+  public void shouldHaveNoCostForUnknownProject() {
+    assertThat(collectionCostTracker.estimatedCostMs("unknown")).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldUseFirstSampleAsInitialCost() {
+    collectionCostTracker.record("project", 1000L);
+
+    assertThat(collectionCostTracker.estimatedCostMs("project")).isEqualTo(1000L);
+  }
+
+  @Test
+  public void shouldSmoothSubsequentSamples() {
+    collectionCostTracker.record("project", 1000L);
+    collectionCostTracker.record("project", 2000L);
+
+    assertThat(collectionCostTracker.estimatedCostMs("project"))
+        .isEqualTo(Math.round(1000 + ProjectCollectionCostTracker.SMOOTHING_FACTOR * 1000));
+  }
+
+  @Test
+  public void shouldSortCheapestProjectsFirst() {
+    collectionCostTracker.record("monorepo", 60000L);
+    collectionCostTracker.record("small", 10L);
+
+    assertThat(collectionCostTracker.cheapestFirst(List.of("monorepo", "small", "new")))
+        .containsExactly("new", "small", "monorepo")
+        .inOrder();
+  }
+}
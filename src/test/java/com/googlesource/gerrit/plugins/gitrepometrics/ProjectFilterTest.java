@@ -0,0 +1,84 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+import org.junit.Test;
+
+public class ProjectFilterTest {
+
+  @Test
+  public void shouldMatchExactNames() {
+    ProjectFilter filter = new ProjectFilter(false, List.of("foo", "foo/bar"), List.of());
+
+    assertThat(filter.matches("foo")).isTrue();
+    assertThat(filter.matches("foo/bar")).isTrue();
+    assertThat(filter.matches("fo")).isFalse();
+    assertThat(filter.matches("foo/baz")).isFalse();
+    assertThat(filter.hasExactIncludesOnly()).isTrue();
+    assertThat(filter.getExactIncludes()).containsExactly("foo", "foo/bar");
+  }
+
+  @Test
+  public void shouldMatchPrefixes() {
+    ProjectFilter filter = new ProjectFilter(false, List.of("platform/*"), List.of());
+
+    assertThat(filter.matches("platform/build")).isTrue();
+    assertThat(filter.matches("platform/build/soong")).isTrue();
+    assertThat(filter.matches("tools/build")).isFalse();
+    assertThat(filter.hasExactIncludesOnly()).isFalse();
+  }
+
+  @Test
+  public void shouldMatchGlobs() {
+    ProjectFilter filter =
+        new ProjectFilter(false, List.of("platform/*-test", "**/manifest"), List.of());
+
+    assertThat(filter.matches("platform/build-test")).isTrue();
+    assertThat(filter.matches("platform/build/soong-test")).isFalse();
+    assertThat(filter.matches("device/google/manifest")).isTrue();
+    assertThat(filter.matches("manifest")).isFalse();
+  }
+
+  @Test
+  public void shouldMatchRegularExpressions() {
+    ProjectFilter filter = new ProjectFilter(false, List.of("^tools/(repo|git)$"), List.of());
+
+    assertThat(filter.matches("tools/repo")).isTrue();
+    assertThat(filter.matches("tools/git")).isTrue();
+    assertThat(filter.matches("tools/gerrit")).isFalse();
+  }
+
+  @Test
+  public void shouldGiveExclusionsPrecedence() {
+    ProjectFilter filter =
+        new ProjectFilter(false, List.of("platform/*"), List.of("platform/prebuilts/*"));
+
+    assertThat(filter.matches("platform/build")).isTrue();
+    assertThat(filter.matches("platform/prebuilts/clang")).isFalse();
+  }
+
+  @Test
+  public void shouldExcludeFromAllRepositories() {
+    ProjectFilter filter = new ProjectFilter(true, List.of(), List.of("All-Users", "^archive/.*"));
+
+    assertThat(filter.matches("platform/build")).isTrue();
+    assertThat(filter.matches("All-Users")).isFalse();
+    assertThat(filter.matches("archive/old")).isFalse();
+    assertThat(filter.hasExactIncludesOnly()).isFalse();
+  }
+}
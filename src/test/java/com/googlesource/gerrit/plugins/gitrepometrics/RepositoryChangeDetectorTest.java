@@ -0,0 +1,140 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RepositoryChangeDetectorTest {
+  private static final String PROJECT_NAME = "testProject";
+  private static final String COLLECTOR_NAME = "git-statistics";
+  private static final String OTHER_COLLECTOR_NAME = "filesystem-statistics";
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private TestRepository<FileRepository> repo;
+
+  @Before
+  public void setUp() throws Exception {
+    File gitRoot = dir.newFolder(PROJECT_NAME);
+    try (Git git = Git.init().setDirectory(gitRoot).call()) {
+      repo = new TestRepository<>((FileRepository) git.getRepository());
+    }
+  }
+
+  @After
+  public void tearDown() {
+    repo.close();
+  }
+
+  @Test
+  public void shouldDetectFirstCheckAsChanged() throws Exception {
+    RepositoryChangeDetector detector = newDetector(true);
+
+    assertThat(checkAndRecord(detector)).isTrue();
+  }
+
+  @Test
+  public void shouldNotDetectChangesOnUntouchedRepository() throws Exception {
+    RepositoryChangeDetector detector = newDetector(true);
+    checkAndRecord(detector);
+
+    assertThat(checkAndRecord(detector)).isFalse();
+  }
+
+  @Test
+  public void shouldDetectNewRef() throws Exception {
+    RevCommit commit = repo.commit().create();
+    RepositoryChangeDetector detector = newDetector(true);
+    checkAndRecord(detector);
+
+    repo.update("refs/heads/new-branch", commit);
+
+    assertThat(checkAndRecord(detector)).isTrue();
+  }
+
+  @Test
+  public void shouldDetectNewLooseObject() throws Exception {
+    RepositoryChangeDetector detector = newDetector(true);
+    checkAndRecord(detector);
+
+    repo.blob("new loose object");
+
+    assertThat(checkAndRecord(detector)).isTrue();
+  }
+
+  @Test
+  public void shouldAlwaysDetectChangesWhenDisabled() throws Exception {
+    RepositoryChangeDetector detector = newDetector(false);
+    checkAndRecord(detector);
+
+    assertThat(checkAndRecord(detector)).isTrue();
+  }
+
+  @Test
+  public void shouldDetectChangesForCollectorsThatDidNotReport() throws Exception {
+    RepositoryChangeDetector detector = newDetector(true);
+    checkAndRecord(detector);
+
+    long fingerprint = detector.fingerprint(repo.getRepository()).get();
+
+    assertThat(detector.hasChanged(PROJECT_NAME, COLLECTOR_NAME, fingerprint)).isFalse();
+    assertThat(detector.hasChanged(PROJECT_NAME, OTHER_COLLECTOR_NAME, fingerprint)).isTrue();
+  }
+
+  @Test
+  public void shouldDetectChangesOfDroppedProject() throws Exception {
+    RepositoryChangeDetector detector = newDetector(true);
+    checkAndRecord(detector);
+
+    detector.onProjectDropped(PROJECT_NAME);
+
+    assertThat(checkAndRecord(detector)).isTrue();
+  }
+
+  @Test
+  public void shouldNotFingerprintWhenDisabled() throws Exception {
+    assertThat(newDetector(false).fingerprint(repo.getRepository()).isPresent()).isFalse();
+  }
+
+  private boolean checkAndRecord(RepositoryChangeDetector detector) throws Exception {
+    Optional<Long> fingerprint = detector.fingerprint(repo.getRepository());
+    if (fingerprint.isEmpty()) {
+      return true;
+    }
+    boolean changed = detector.hasChanged(PROJECT_NAME, COLLECTOR_NAME, fingerprint.get());
+    detector.recordCollection(PROJECT_NAME, COLLECTOR_NAME, fingerprint.get());
+    return changed;
+  }
+
+  private RepositoryChangeDetector newDetector(boolean enabled) throws Exception {
+    return new RepositoryChangeDetector(
+        new ConfigSetupUtils(List.of(PROJECT_NAME))
+            .withPluginSetting("skipUnchangedRepositories", Boolean.toString(enabled))
+            .getGitRepoMetricsConfig());
+  }
+}
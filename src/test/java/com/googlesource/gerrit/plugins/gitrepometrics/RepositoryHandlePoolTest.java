@@ -0,0 +1,160 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RepositoryHandlePoolTest {
+  private static final String HOT_PROJECT = "hot/project";
+  private static final String COLD_PROJECT = "cold-project";
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private File gitDir;
+  private RepositoryResolver repositoryResolver;
+  private RepositoryHandlePool repositoryHandlePool;
+
+  @Before
+  public void setUp() throws Exception {
+    gitDir = dir.newFolder("repo.git");
+    try (FileRepository repository = new FileRepository(gitDir)) {
+      repository.create(true);
+    }
+
+    repositoryResolver = mock(RepositoryResolver.class);
+    when(repositoryResolver.openRepository(anyString()))
+        .thenAnswer(invocation -> new FileRepository(gitDir));
+    repositoryHandlePool =
+        new RepositoryHandlePool(
+            repositoryResolver,
+            new ConfigSetupUtils(List.of(HOT_PROJECT, COLD_PROJECT))
+                .withPluginSetting("hotProject", "hot/*")
+                .withPluginSetting("hotRepositoryIdleTimeout", "1 min")
+                .getGitRepoMetricsConfig(),
+            new DisabledMetricMaker());
+  }
+
+  @Test
+  public void shouldReuseHandlesOfHotProjects() throws Exception {
+    try (RepositoryHandlePool.RepositoryHandle handle = repositoryHandlePool.open(HOT_PROJECT)) {
+      try (RepositoryHandlePool.RepositoryHandle other = repositoryHandlePool.open(HOT_PROJECT)) {
+        assertThat(other.getFileRepository()).isSameInstanceAs(handle.getFileRepository());
+      }
+    }
+
+    verify(repositoryResolver, times(1)).openRepository(HOT_PROJECT);
+    assertThat(repositoryHandlePool.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotPoolHandlesOfOtherProjects() throws Exception {
+    repositoryHandlePool.open(COLD_PROJECT).close();
+    repositoryHandlePool.open(COLD_PROJECT).close();
+
+    verify(repositoryResolver, times(2)).openRepository(COLD_PROJECT);
+    assertThat(repositoryHandlePool.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldEvictOnlyIdleUnusedHandles() throws Exception {
+    RepositoryHandlePool.RepositoryHandle handle = repositoryHandlePool.open(HOT_PROJECT);
+
+    repositoryHandlePool.evictIdle(Long.MAX_VALUE);
+    assertThat(repositoryHandlePool.size()).isEqualTo(1);
+
+    handle.close();
+    repositoryHandlePool.evictIdle(System.currentTimeMillis());
+    assertThat(repositoryHandlePool.size()).isEqualTo(1);
+
+    repositoryHandlePool.evictIdle(Long.MAX_VALUE);
+    assertThat(repositoryHandlePool.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldNotDelayOpeningWhileAnotherProjectIsOpening() throws Exception {
+    CountDownLatch opening = new CountDownLatch(1);
+    CountDownLatch slowOpen = new CountDownLatch(1);
+    when(repositoryResolver.openRepository("hot/slow"))
+        .thenAnswer(
+            invocation -> {
+              opening.countDown();
+              slowOpen.await();
+              return new FileRepository(gitDir);
+            });
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<RepositoryHandlePool.RepositoryHandle> slowHandle =
+          executor.submit(() -> repositoryHandlePool.open("hot/slow"));
+      assertThat(opening.await(10, TimeUnit.SECONDS)).isTrue();
+
+      repositoryHandlePool.open(HOT_PROJECT).close();
+
+      slowOpen.countDown();
+      slowHandle.get(10, TimeUnit.SECONDS).close();
+      assertThat(repositoryHandlePool.size()).isEqualTo(2);
+    } finally {
+      slowOpen.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldPoolOneHandleWhenOpenedConcurrently() throws Exception {
+    CountDownLatch opening = new CountDownLatch(2);
+    when(repositoryResolver.openRepository(HOT_PROJECT))
+        .thenAnswer(
+            invocation -> {
+              opening.countDown();
+              opening.await(10, TimeUnit.SECONDS);
+              return new FileRepository(gitDir);
+            });
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<RepositoryHandlePool.RepositoryHandle> first =
+          executor.submit(() -> repositoryHandlePool.open(HOT_PROJECT));
+      Future<RepositoryHandlePool.RepositoryHandle> second =
+          executor.submit(() -> repositoryHandlePool.open(HOT_PROJECT));
+
+      try (RepositoryHandlePool.RepositoryHandle firstHandle = first.get(10, TimeUnit.SECONDS);
+          RepositoryHandlePool.RepositoryHandle secondHandle = second.get(10, TimeUnit.SECONDS)) {
+        assertThat(secondHandle.getFileRepository())
+            .isSameInstanceAs(firstHandle.getFileRepository());
+      }
+      verify(repositoryResolver, times(2)).openRepository(HOT_PROJECT);
+      assertThat(repositoryHandlePool.size()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import java.io.File;
+import java.util.List;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RepositoryResolverTest {
+  private static final String PROJECT_NAME = "testProject";
+  private static final Project.NameKey PROJECT_NAME_KEY = Project.nameKey(PROJECT_NAME);
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private GitRepositoryManager repoManager;
+  private File gitDir;
+
+  @Before
+  public void setUp() throws Exception {
+    gitDir = new File(dir.getRoot(), PROJECT_NAME + ".git");
+    try (FileRepository repository = new FileRepository(gitDir)) {
+      repository.create(true);
+    }
+
+    repoManager = mock(GitRepositoryManager.class);
+  }
+
+  @Test
+  public void shouldOpenRepositoryThroughRepositoryManager() throws Exception {
+    when(repoManager.openRepository(PROJECT_NAME_KEY))
+        .thenAnswer(invocation -> new FileRepository(gitDir));
+    RepositoryResolver repositoryResolver = newRepositoryResolver(GitBackend.GERRIT);
+
+    try (Repository repository = repositoryResolver.openRepository(PROJECT_NAME)) {
+      assertThat(repository.getDirectory()).isEqualTo(gitDir);
+    }
+    try (Repository repository = repositoryResolver.openRepository(PROJECT_NAME)) {
+      assertThat(repository.getDirectory()).isEqualTo(gitDir);
+    }
+
+    verify(repoManager, times(2)).openRepository(PROJECT_NAME_KEY);
+  }
+
+  @Test
+  public void shouldOpenRepositoryNotServedByRepositoryManagerFromFileSystem() throws Exception {
+    when(repoManager.openRepository(PROJECT_NAME_KEY))
+        .thenThrow(new RepositoryNotFoundException(PROJECT_NAME));
+    RepositoryResolver repositoryResolver = newRepositoryResolver(GitBackend.FILESYSTEM);
+
+    try (Repository repository = repositoryResolver.openRepository(PROJECT_NAME)) {
+      assertThat(repository.getDirectory()).isEqualTo(gitDir);
+    }
+  }
+
+  @Test
+  public void shouldNotOpenRepositoryFromFileSystemWithOtherBackends() throws Exception {
+    when(repoManager.openRepository(PROJECT_NAME_KEY))
+        .thenThrow(new RepositoryNotFoundException(PROJECT_NAME));
+    RepositoryResolver repositoryResolver = newRepositoryResolver(GitBackend.GERRIT);
+
+    assertThrows(
+        RepositoryNotFoundException.class, () -> repositoryResolver.openRepository(PROJECT_NAME));
+  }
+
+  private RepositoryResolver newRepositoryResolver(GitBackend gitBackend) throws Exception {
+    return new RepositoryResolver(
+        repoManager,
+        new ConfigSetupUtils(List.of(PROJECT_NAME))
+            .withPluginSetting("gitBackend", gitBackend.name())
+            .getGitRepoMetricsConfig(),
+        dir.getRoot().toPath());
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ShardedCollectionCoordinatorTest {
+  private static final String NODE_ID = "node-1";
+  private static final int VIRTUAL_NODES = 100;
+  private static final List<String> PROJECTS =
+      IntStream.range(0, 100).mapToObj(i -> "project-" + i).collect(toList());
+  private static final GitRepoMetric METRIC =
+      new GitRepoMetric("anyMetric", "anyMetric description", "Count");
+
+  private BackgroundCollectionLane backgroundCollectionLane;
+  private GitRepoMetricsCache gitRepoMetricsCache;
+  private ShardedCollectionCoordinator coordinator;
+
+  @Before
+  public void setUp() throws Exception {
+    backgroundCollectionLane = mock(BackgroundCollectionLane.class);
+    GitRepoMetricsConfig config = newConfig(List.of("node-1", "node-2"));
+    gitRepoMetricsCache =
+        new GitRepoMetricsCache(
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            new DynamicSet<>(),
+            new DisabledMetricMaker(),
+            new ProjectlessMetricsTracker("git-repo-metrics", new MetricRegistry()),
+            config,
+            new ImmediateMetricsRefresh(),
+            () -> coordinator);
+    coordinator =
+        new ShardedCollectionCoordinator(
+            NODE_ID,
+            config,
+            gitRepoMetricsCache,
+            () -> List.of(),
+            () -> backgroundCollectionLane);
+  }
+
+  @Test
+  public void shouldCacheMetricsOfOwnShardOnly() {
+    collect(PROJECTS);
+
+    assertThat(cachedProjects()).containsExactlyElementsIn(shard(List.of("node-1", "node-2")));
+  }
+
+  @Test
+  public void shouldDropMetricsOfProjectsMovedToAnAddedNode() throws IOException {
+    collect(PROJECTS);
+
+    List<String> nodes = List.of("node-1", "node-2", "node-3");
+    coordinator.onConfigReloaded(newConfig(nodes));
+
+    List<String> shard = shard(nodes);
+    assertThat(shard.size()).isLessThan(shard(List.of("node-1", "node-2")).size());
+    assertThat(cachedProjects()).containsExactlyElementsIn(shard);
+  }
+
+  @Test
+  public void shouldIgnoreMetricsOfProjectsMovedWhileCollecting() throws IOException {
+    List<String> nodes = List.of("node-1", "node-2", "node-3");
+    coordinator.onConfigReloaded(newConfig(nodes));
+    // Collections started before the rebalance complete after it
+    collect(shard(List.of("node-1", "node-2")));
+
+    assertThat(cachedProjects()).containsExactlyElementsIn(shard(nodes));
+  }
+
+  @Test
+  public void shouldCollectProjectsMovedFromARemovedNode() throws IOException {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<String>> submitted = ArgumentCaptor.forClass(Collection.class);
+    coordinator.onConfigReloaded(newConfig(List.of("node-1")));
+
+    List<String> movedProjects =
+        PROJECTS.stream()
+            .filter(projectName -> !shard(List.of("node-1", "node-2")).contains(projectName))
+            .collect(toList());
+    assertThat(movedProjects).isNotEmpty();
+    verify(backgroundCollectionLane).submit(submitted.capture());
+    assertThat(submitted.getValue()).containsExactlyElementsIn(movedProjects);
+  }
+
+  @Test
+  public void shouldCollectAllProjectsWhenNodesAreEmptied() throws IOException {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<String>> submitted = ArgumentCaptor.forClass(Collection.class);
+    List<String> shard = shard(List.of("node-1", "node-2"));
+    collect(shard);
+
+    coordinator.onConfigReloaded(newConfig(List.of()));
+
+    assertThat(coordinator.isCollecting()).isTrue();
+    assertThat(cachedProjects()).containsExactlyElementsIn(shard);
+    verify(backgroundCollectionLane).submit(submitted.capture());
+    assertThat(submitted.getValue()).containsNoneIn(shard);
+    collect(PROJECTS);
+    assertThat(cachedProjects()).containsExactlyElementsIn(PROJECTS);
+  }
+
+  @Test
+  public void shouldKeepNodesWhenReloadedWithoutThisNode() throws IOException {
+    List<String> shard = shard(List.of("node-1", "node-2"));
+    collect(shard);
+
+    coordinator.onConfigReloaded(newConfig(List.of("node-2", "node-3")));
+
+    assertThat(coordinator.isCollecting()).isTrue();
+    assertThat(cachedProjects()).containsExactlyElementsIn(shard);
+    verify(backgroundCollectionLane, never()).submit(any());
+    collect(PROJECTS);
+    assertThat(cachedProjects()).containsExactlyElementsIn(shard);
+  }
+
+  private void collect(List<String> projectNames) {
+    projectNames.forEach(
+        projectName -> gitRepoMetricsCache.setMetrics(Map.of(METRIC, 1L), projectName));
+  }
+
+  private List<String> cachedProjects() {
+    return List.copyOf(gitRepoMetricsCache.getMetrics().get("anymetric").keySet());
+  }
+
+  private static List<String> shard(List<String> nodes) {
+    ConsistentHashRing ring = new ConsistentHashRing(nodes, VIRTUAL_NODES);
+    return PROJECTS.stream()
+        .filter(projectName -> ring.getNode(projectName).get().equals(NODE_ID))
+        .collect(toList());
+  }
+
+  private static GitRepoMetricsConfig newConfig(List<String> nodes) throws IOException {
+    return new ConfigSetupUtils(PROJECTS)
+        .withPluginSettings("shardNode", nodes)
+        .withPluginSetting("shardVirtualNodes", String.valueOf(VIRTUAL_NODES))
+        .getGitRepoMetricsConfig();
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.googlesource.gerrit.plugins.gitrepometrics.collectors.GitRepoMetric;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SharedLeaseCollectionCoordinatorTest {
+  private static final long LEASE_DURATION_MS = 60_000L;
+  private static final long SNAPSHOT_INTERVAL_MS = 10_000L;
+  private static final long NOW_MS = 1_000_000L;
+  private static final GitRepoMetric METRIC =
+      new GitRepoMetric("numberOfLooseObjects", "Number of loose objects", "Count");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+  private GitRepoMetricsCache firstCache;
+  private GitRepoMetricsCache secondCache;
+  private SharedLeaseCollectionCoordinator first;
+  private SharedLeaseCollectionCoordinator second;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = temporaryFolder.newFolder("shared").toPath();
+    firstCache = newCache();
+    secondCache = newCache();
+    first = newCoordinator(firstCache, "first");
+    second = newCoordinator(secondCache, "second");
+  }
+
+  @Test
+  public void shouldElectOneNodeOnly() {
+    first.renew(NOW_MS);
+    second.renew(NOW_MS);
+
+    assertThat(first.isCollecting(NOW_MS)).isTrue();
+    assertThat(second.isCollecting(NOW_MS)).isFalse();
+  }
+
+  @Test
+  public void shouldKeepTheLeaseWhenRenewed() {
+    first.renew(NOW_MS);
+    second.renew(NOW_MS);
+    first.renew(NOW_MS + LEASE_DURATION_MS / 2);
+    second.renew(NOW_MS + LEASE_DURATION_MS);
+
+    assertThat(first.isCollecting(NOW_MS + LEASE_DURATION_MS)).isTrue();
+    assertThat(second.isCollecting(NOW_MS + LEASE_DURATION_MS)).isFalse();
+  }
+
+  @Test
+  public void shouldTakeOverAnExpiredLease() {
+    first.renew(NOW_MS);
+    second.renew(NOW_MS + LEASE_DURATION_MS);
+    first.renew(NOW_MS + LEASE_DURATION_MS);
+
+    assertThat(first.isCollecting(NOW_MS + LEASE_DURATION_MS)).isFalse();
+    assertThat(second.isCollecting(NOW_MS + LEASE_DURATION_MS)).isTrue();
+  }
+
+  @Test
+  public void shouldTakeOverAReleasedLeaseImmediately() {
+    first.renew(NOW_MS);
+    first.release(NOW_MS + 1);
+    second.renew(NOW_MS + 2);
+
+    assertThat(first.isCollecting(NOW_MS + 2)).isFalse();
+    assertThat(second.isCollecting(NOW_MS + 2)).isTrue();
+  }
+
+  @Test
+  public void shouldServeTheMetricsPublishedByTheLeader() {
+    firstCache.setMetrics(Map.of(METRIC, 10L), "Project1");
+    first.renew(NOW_MS);
+    second.renew(NOW_MS);
+
+    assertThat(secondCache.getMetrics().get("numberoflooseobjects"))
+        .containsExactly("project1", 10L);
+
+    firstCache.setMetrics(Map.of(METRIC, 20L), "Project1");
+    first.renew(NOW_MS + SNAPSHOT_INTERVAL_MS);
+    second.renew(NOW_MS + SNAPSHOT_INTERVAL_MS);
+
+    assertThat(secondCache.getMetrics().get("numberoflooseobjects"))
+        .containsExactly("project1", 20L);
+    assertThat(secondCache.getLastCollectionTimeMs("Project1").isPresent()).isFalse();
+  }
+
+  @Test
+  public void shouldDropTheMetricsOfProjectsNoLongerPublished() {
+    secondCache.setMetrics(Map.of(METRIC, 5L), "Project2");
+    firstCache.setMetrics(Map.of(METRIC, 10L), "Project1");
+    first.renew(NOW_MS);
+    second.renew(NOW_MS);
+
+    assertThat(secondCache.getMetrics().get("numberoflooseobjects"))
+        .containsExactly("project1", 10L);
+  }
+
+  private SharedLeaseCollectionCoordinator newCoordinator(
+      GitRepoMetricsCache cache, String nodeId) {
+    return new SharedLeaseCollectionCoordinator(
+        cache, directory, LEASE_DURATION_MS, SNAPSHOT_INTERVAL_MS, nodeId);
+  }
+
+  private static GitRepoMetricsCache newCache() throws IOException {
+    return new GitRepoMetricsCache(
+        new DynamicSet<>(),
+        new DynamicSet<>(),
+        new DynamicSet<>(),
+        new DisabledMetricMaker(),
+        new ProjectlessMetricsTracker("git-repo-metrics", new MetricRegistry()),
+        new ConfigSetupUtils(List.of("Project1", "Project2")).getGitRepoMetricsConfig(),
+        new ImmediateMetricsRefresh(),
+        StandaloneCollectionCoordinator::new);
+  }
+}
@@ -21,6 +21,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.extensions.registration.DynamicSet;
 import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.metrics.MetricMaker;
 import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.gerrit.server.config.SitePath;
 import com.google.inject.AbstractModule;
@@ -51,7 +52,8 @@ public class UpdateGitMetricsTaskTest {
 
   @Before
   public void setupRepository() throws Exception {
-    ConfigSetupUtils configSetupUtils = new ConfigSetupUtils(Collections.singletonList("repo1"));
+    ConfigSetupUtils configSetupUtils =
+        new ConfigSetupUtils(Collections.singletonList(projectName));
 
     fakeStatsCollector = new FakeMetricsCollector();
     ds = new DynamicSet<>();
@@ -60,9 +62,13 @@ public class UpdateGitMetricsTaskTest {
     gitRepoMetricsCache =
         new GitRepoMetricsCache(
             ds,
+            new DynamicSet<>(),
+            new DynamicSet<>(),
             new DisabledMetricMaker(),
             new ProjectlessMetricsTracker("git-repo-metrics", new MetricRegistry()),
-            configSetupUtils.getGitRepoMetricsConfig());
+            configSetupUtils.getGitRepoMetricsConfig(),
+            new ImmediateMetricsRefresh(),
+            StandaloneCollectionCoordinator::new);
 
     AbstractModule m =
         new AbstractModule() {
@@ -71,6 +77,7 @@ public class UpdateGitMetricsTaskTest {
             install(new UpdateGitMetricsTaskModule());
             bind(GitRepoMetricsConfig.class).toInstance(configSetupUtils.getGitRepoMetricsConfig());
             bind(GitRepoMetricsCache.class).toInstance(gitRepoMetricsCache);
+            bind(MetricMaker.class).to(DisabledMetricMaker.class);
             bind(Config.class)
                 .annotatedWith(GerritServerConfig.class)
                 .toInstance(configSetupUtils.getConfig());
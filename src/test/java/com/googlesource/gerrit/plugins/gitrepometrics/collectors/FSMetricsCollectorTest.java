@@ -22,6 +22,7 @@ import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.junit.Before;
@@ -70,6 +71,62 @@ public class FSMetricsCollectorTest {
     assertThat(metrics.get(FSMetricsCollector.numberOfEmptyDirectories)).isEqualTo(1); // info
   }
 
+  @Test
+  public void shouldDetectLeftoverFiles() throws Exception {
+    File objectDirectory = repository.getObjectsDirectory();
+    File tmpPack = new File(objectDirectory, "pack/tmp_pack_abc123");
+    Files.write(tmpPack.toPath(), new byte[10]);
+    tmpPack.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+    File incoming = new File(objectDirectory, "incoming_xyz");
+    Files.write(incoming.toPath(), new byte[5]);
+    incoming.setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(30));
+    // Still being written by a running push
+    Files.write(new File(objectDirectory, "pack/tmp_pack_running").toPath(), new byte[100]);
+    new File(objectDirectory, "pack/preserved").mkdir();
+    Files.write(new File(objectDirectory, "pack/preserved/pack-1.old-pack").toPath(), new byte[1]);
+
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    new FSMetricsCollector(Executors.newScheduledThreadPool(2), true)
+        .collect(
+            repository,
+            "testRepo",
+            m -> {
+              metrics.putAll(m);
+              latch.countDown();
+            });
+    latch.await();
+
+    assertThat(metrics.get(FSMetricsCollector.numberOfLeftoverFiles)).isEqualTo(3L);
+    assertThat(metrics.get(FSMetricsCollector.sizeOfLeftoverFiles)).isEqualTo(16L);
+    assertThat(metrics.get(FSMetricsCollector.ageOfOldestLeftoverFile))
+        .isAtLeast(TimeUnit.HOURS.toSeconds(1) - 1);
+  }
+
+  @Test
+  public void shouldDetectOnlyStaleLockFiles() throws Exception {
+    File objectDirectory = repository.getObjectsDirectory();
+    File staleLock = new File(objectDirectory, "info/commit-graph.lock");
+    Files.write(staleLock.toPath(), new byte[3]);
+    staleLock.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+    Files.write(new File(objectDirectory, "pack/multi-pack-index.lock").toPath(), new byte[7]);
+
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    new FSMetricsCollector(Executors.newScheduledThreadPool(2), true)
+        .collect(
+            repository,
+            "testRepo",
+            m -> {
+              metrics.putAll(m);
+              latch.countDown();
+            });
+    latch.await();
+
+    assertThat(metrics.get(FSMetricsCollector.numberOfLeftoverFiles)).isEqualTo(1L);
+    assertThat(metrics.get(FSMetricsCollector.sizeOfLeftoverFiles)).isEqualTo(3L);
+  }
+
   private FileRepository createRepository(String repoName) throws Exception {
     File repo = dir.newFolder(repoName);
     try (Git git = Git.init().setDirectory(repo).call()) {
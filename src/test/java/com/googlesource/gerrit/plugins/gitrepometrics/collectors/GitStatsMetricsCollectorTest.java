@@ -0,0 +1,121 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GitStatsMetricsCollectorTest {
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private FileRepository repository;
+
+  @Before
+  public void setUp() throws Exception {
+    File repo = dir.newFolder("someRepo.git");
+    try (Git git = Git.init().setBare(true).setDirectory(repo).call()) {
+      repository = (FileRepository) git.getRepository();
+    }
+    try (ObjectInserter inserter = repository.newObjectInserter()) {
+      for (int i = 0; i < 100; i++) {
+        inserter.insert(Constants.OBJ_BLOB, ("blob " + i).getBytes(UTF_8));
+      }
+      inserter.flush();
+    }
+  }
+
+  @Test
+  public void shouldMatchExactStatisticsWhenSamplingAllDirectories() throws Exception {
+    GitStatsMetricsCollector collector =
+        new GitStatsMetricsCollector(Executors.newSingleThreadScheduledExecutor(), 256, 0L);
+
+    GC.RepoStatistics estimated = collector.estimatedStatistics(repository);
+    GC.RepoStatistics exact = new GC(repository).getStatistics();
+
+    assertThat(estimated.numberOfLooseObjects).isEqualTo(100L);
+    assertThat(estimated.numberOfLooseObjects).isEqualTo(exact.numberOfLooseObjects);
+    assertThat(estimated.sizeOfLooseObjects).isEqualTo(exact.sizeOfLooseObjects);
+    assertThat(estimated.numberOfObjectsSinceBitmap).isEqualTo(exact.numberOfObjectsSinceBitmap);
+  }
+
+  @Test
+  public void shouldRecountExactlyOnSlowerCadence() throws Exception {
+    GitStatsMetricsCollector collector =
+        new GitStatsMetricsCollector(
+            Executors.newSingleThreadScheduledExecutor(), 16, TimeUnit.HOURS.toMillis(1));
+
+    HashMap<GitRepoMetric, Long> first = collect(collector);
+    HashMap<GitRepoMetric, Long> second = collect(collector);
+
+    assertThat(first.get(GitStatsMetricsCollector.looseObjectsEstimated)).isEqualTo(0L);
+    assertThat(first.get(GitStatsMetricsCollector.numberOfLooseObjects)).isEqualTo(100L);
+    assertThat(second.get(GitStatsMetricsCollector.looseObjectsEstimated)).isEqualTo(1L);
+    assertThat(second.get(GitStatsMetricsCollector.numberOfLooseObjects) % 16).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldCountExactlyAfterProjectIsDropped() throws Exception {
+    GitStatsMetricsCollector collector =
+        new GitStatsMetricsCollector(
+            Executors.newSingleThreadScheduledExecutor(), 16, TimeUnit.HOURS.toMillis(1));
+    collect(collector);
+
+    collector.onProjectDropped("testRepo");
+
+    assertThat(collect(collector).get(GitStatsMetricsCollector.looseObjectsEstimated))
+        .isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldNotExportEstimateFlagByDefault() throws Exception {
+    GitStatsMetricsCollector collector =
+        new GitStatsMetricsCollector(Executors.newSingleThreadScheduledExecutor());
+
+    assertThat(collect(collector))
+        .doesNotContainKey(GitStatsMetricsCollector.looseObjectsEstimated);
+    assertThat(collector.availableMetrics())
+        .doesNotContain(GitStatsMetricsCollector.looseObjectsEstimated);
+  }
+
+  private HashMap<GitRepoMetric, Long> collect(GitStatsMetricsCollector collector)
+      throws InterruptedException {
+    HashMap<GitRepoMetric, Long> metrics = new HashMap<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    collector.collect(
+        repository,
+        "testRepo",
+        m -> {
+          metrics.putAll(m);
+          latch.countDown();
+        });
+    latch.await();
+    return metrics;
+  }
+}
@@ -0,0 +1,96 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LargestBlobsScanTest {
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path objectsDirectory;
+
+  @Before
+  public void setUp() throws Exception {
+    File workTree = dir.newFolder("repo");
+    try (Git git = Git.init().setDirectory(workTree).call()) {
+      Files.write(workTree.toPath().resolve("small.txt"), new byte[10]);
+      Files.write(workTree.toPath().resolve("medium.bin"), new byte[5000]);
+      Files.write(workTree.toPath().resolve("large.bin"), new byte[20000]);
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Add files").setSign(false).call();
+      git.gc().call();
+      objectsDirectory = ((FileRepository) git.getRepository()).getObjectsDirectory().toPath();
+    }
+  }
+
+  @Test
+  public void shouldFindLargestBlobs() throws Exception {
+    LargestBlobsScan scan = new LargestBlobsScan(2);
+    scan.run(objectsDirectory);
+
+    assertThat(scan.getState()).isEqualTo(LargestBlobsScan.State.DONE);
+    assertThat(scan.getScannedObjects()).isEqualTo(scan.getTotalObjects());
+    assertThat(scan.getLargestBlobs()).hasSize(2);
+    assertThat(scan.getLargestBlobs().get(0).size).isEqualTo(20000L);
+    assertThat(scan.getLargestBlobs().get(1).size).isEqualTo(5000L);
+  }
+
+  @Test
+  public void shouldNotPresizeHeapToLimit() throws Exception {
+    LargestBlobsScan scan = new LargestBlobsScan(Integer.MAX_VALUE);
+    scan.run(objectsDirectory);
+
+    assertThat(scan.getState()).isEqualTo(LargestBlobsScan.State.DONE);
+    assertThat(scan.getLargestBlobs()).hasSize(3);
+  }
+
+  @Test
+  public void shouldNotScanWhenCancelled() throws Exception {
+    LargestBlobsScan scan = new LargestBlobsScan(2);
+    scan.cancel();
+    scan.run(objectsDirectory);
+
+    assertThat(scan.getState()).isEqualTo(LargestBlobsScan.State.CANCELLED);
+    assertThat(scan.getScannedObjects()).isEqualTo(0L);
+    assertThat(scan.getLargestBlobs()).isEmpty();
+  }
+
+  @Test
+  public void shouldStopWhenCancelledWhileRunning() throws Exception {
+    LargestBlobsScan scan =
+        new LargestBlobsScan(2) {
+          @Override
+          void onObjectScanned(long scannedObjects) {
+            assertThat(getState()).isEqualTo(LargestBlobsScan.State.RUNNING);
+            cancel();
+          }
+        };
+    scan.run(objectsDirectory);
+
+    assertThat(scan.getState()).isEqualTo(LargestBlobsScan.State.CANCELLED);
+    assertThat(scan.getScannedObjects()).isEqualTo(1L);
+    assertThat(scan.getLargestBlobs()).isEmpty();
+  }
+}
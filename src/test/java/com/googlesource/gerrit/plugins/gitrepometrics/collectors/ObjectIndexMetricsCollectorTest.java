@@ -0,0 +1,127 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectIndexMetricsCollectorTest {
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path objectsDirectory;
+  private ObjectIndexMetricsCollector collector;
+
+  @Before
+  public void setUp() throws Exception {
+    objectsDirectory = dir.newFolder("objects").toPath();
+    Files.createDirectories(objectsDirectory.resolve("info"));
+    Files.createDirectories(objectsDirectory.resolve("pack"));
+    collector = new ObjectIndexMetricsCollector(Executors.newSingleThreadScheduledExecutor());
+  }
+
+  @Test
+  public void shouldReportMissingCommitGraph() throws Exception {
+    HashMap<GitRepoMetric, Long> metrics = collector.commitGraphMetrics(objectsDirectory);
+
+    assertThat(metrics.get(ObjectIndexMetricsCollector.hasCommitGraph)).isEqualTo(0L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfCommitGraphCommits)).isEqualTo(0L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfCommitGraphLayers)).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldReadSingleCommitGraph() throws Exception {
+    Files.write(objectsDirectory.resolve("info/commit-graph"), commitGraph(42));
+
+    HashMap<GitRepoMetric, Long> metrics = collector.commitGraphMetrics(objectsDirectory);
+
+    assertThat(metrics.get(ObjectIndexMetricsCollector.hasCommitGraph)).isEqualTo(1L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfCommitGraphCommits)).isEqualTo(42L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfCommitGraphLayers)).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldReadCommitGraphChain() throws Exception {
+    Path commitGraphs = Files.createDirectory(objectsDirectory.resolve("info/commit-graphs"));
+    Files.write(commitGraphs.resolve("graph-aaaa.graph"), commitGraph(100));
+    Files.write(commitGraphs.resolve("graph-bbbb.graph"), commitGraph(5));
+    Files.write(commitGraphs.resolve("commit-graph-chain"), List.of("aaaa", "bbbb"), UTF_8);
+
+    HashMap<GitRepoMetric, Long> metrics = collector.commitGraphMetrics(objectsDirectory);
+
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfCommitGraphCommits))
+        .isEqualTo(105L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfCommitGraphLayers)).isEqualTo(2L);
+  }
+
+  @Test
+  public void shouldCountPacksNotInMultiPackIndex() throws Exception {
+    for (String packName : List.of("pack-1", "pack-2", "pack-3")) {
+      Files.createFile(objectsDirectory.resolve("pack/" + packName + ".pack"));
+    }
+    Files.write(
+        objectsDirectory.resolve("pack/multi-pack-index"),
+        multiPackIndex("pack-1.idx", "pack-2.idx"));
+
+    HashMap<GitRepoMetric, Long> metrics = collector.multiPackIndexMetrics(objectsDirectory);
+
+    assertThat(metrics.get(ObjectIndexMetricsCollector.hasMultiPackIndex)).isEqualTo(1L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfPacksNotInMultiPackIndex))
+        .isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldCountAllPacksWithoutMultiPackIndex() throws Exception {
+    Files.createFile(objectsDirectory.resolve("pack/pack-1.pack"));
+
+    HashMap<GitRepoMetric, Long> metrics = collector.multiPackIndexMetrics(objectsDirectory);
+
+    assertThat(metrics.get(ObjectIndexMetricsCollector.hasMultiPackIndex)).isEqualTo(0L);
+    assertThat(metrics.get(ObjectIndexMetricsCollector.numberOfPacksNotInMultiPackIndex))
+        .isEqualTo(1L);
+  }
+
+  private static byte[] commitGraph(int commits) {
+    int fanoutOffset = 8 + 2 * 12;
+    ByteBuffer graph = ByteBuffer.allocate(fanoutOffset + 256 * Integer.BYTES);
+    graph.put("CGPH".getBytes(UTF_8)).put((byte) 1).put((byte) 1).put((byte) 1).put((byte) 0);
+    graph.put("OIDF".getBytes(UTF_8)).putLong(fanoutOffset);
+    graph.putInt(0).putLong(graph.capacity());
+    graph.putInt(graph.capacity() - Integer.BYTES, commits);
+    return graph.array();
+  }
+
+  private static byte[] multiPackIndex(String... indexNames) {
+    byte[] packNames = (String.join("\0", indexNames) + "\0").getBytes(UTF_8);
+    int packNamesOffset = 12 + 2 * 12;
+    ByteBuffer midx = ByteBuffer.allocate(packNamesOffset + packNames.length);
+    midx.put("MIDX".getBytes(UTF_8)).put((byte) 1).put((byte) 1).put((byte) 1).put((byte) 0);
+    midx.putInt(indexNames.length);
+    midx.put("PNAM".getBytes(UTF_8)).putLong(packNamesOffset);
+    midx.putInt(0).putLong(midx.capacity());
+    midx.put(packNames);
+    return midx.array();
+  }
+}
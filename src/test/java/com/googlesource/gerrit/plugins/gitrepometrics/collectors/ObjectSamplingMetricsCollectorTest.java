@@ -0,0 +1,182 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Set;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.pack.PackWriter;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.storage.pack.PackConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectSamplingMetricsCollectorTest {
+  private static final long NUMBER_OF_OBJECTS = 6L;
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private FileRepository repository;
+
+  @Before
+  public void setUp() throws Exception {
+    File workTree = dir.newFolder("repo");
+    try (Git git = Git.init().setDirectory(workTree).call()) {
+      Files.write(workTree.toPath().resolve("small.txt"), new byte[10]);
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Add small file").setSign(false).call();
+      Files.write(workTree.toPath().resolve("large.bin"), new byte[5000]);
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("Add large file").setSign(false).call();
+      git.gc().call();
+      repository = (FileRepository) git.getRepository();
+    }
+  }
+
+  @Test
+  public void shouldCountAllObjectsWhenSampleCoversThePacks() throws Exception {
+    HashMap<GitRepoMetric, Long> metrics = sample(NUMBER_OF_OBJECTS);
+
+    assertThat(metrics.get(ObjectSamplingMetricsCollector.numberOfSampledObjects))
+        .isEqualTo(NUMBER_OF_OBJECTS);
+    assertThat(metrics.get(estimate("Commits"))).isEqualTo(2L);
+    assertThat(metrics.get(estimate("Trees"))).isEqualTo(2L);
+    assertThat(metrics.get(estimate("Blobs"))).isEqualTo(2L);
+    assertThat(metrics.get(estimate("Tags"))).isEqualTo(0L);
+    assertThat(metrics.get(estimate("BlobsBelow4KiB"))).isEqualTo(1L);
+    assertThat(metrics.get(estimate("BlobsBelow64KiB"))).isEqualTo(1L);
+    for (GitRepoMetric errorMargin : ObjectSamplingMetricsCollector.errorMargins) {
+      assertThat(metrics.get(errorMargin)).isEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void shouldExtrapolateSample() throws Exception {
+    HashMap<GitRepoMetric, Long> metrics = sample(2);
+
+    assertThat(metrics.get(ObjectSamplingMetricsCollector.numberOfSampledObjects)).isEqualTo(2L);
+    assertThat(
+            metrics.get(estimate("Commits"))
+                + metrics.get(estimate("Trees"))
+                + metrics.get(estimate("Blobs"))
+                + metrics.get(estimate("Tags")))
+        .isEqualTo(NUMBER_OF_OBJECTS);
+  }
+
+  @Test
+  public void shouldDrawSampleSizeOutOfAllPacks() throws Exception {
+    ObjectId head = repository.resolve("HEAD");
+    try (Git git = Git.wrap(repository)) {
+      Files.write(repository.getWorkTree().toPath().resolve("other.txt"), new byte[20]);
+      git.add().addFilepattern(".").call();
+      RevCommit commit = git.commit().setMessage("Add other file").setSign(false).call();
+      writePack(repository, commit, Set.of(head), true);
+    }
+
+    HashMap<GitRepoMetric, Long> metrics = sample(3);
+
+    assertThat(metrics.get(ObjectSamplingMetricsCollector.numberOfSampledObjects)).isEqualTo(3L);
+    assertThat(
+            metrics.get(estimate("Commits"))
+                + metrics.get(estimate("Trees"))
+                + metrics.get(estimate("Blobs"))
+                + metrics.get(estimate("Tags")))
+        .isEqualTo(NUMBER_OF_OBJECTS + 3);
+  }
+
+  @Test
+  public void shouldResolveOffsetDeltas() throws Exception {
+    assertDeltasResolved(true);
+  }
+
+  @Test
+  public void shouldResolveReferenceDeltas() throws Exception {
+    assertDeltasResolved(false);
+  }
+
+  private void assertDeltasResolved(boolean deltaBaseAsOffset) throws Exception {
+    File workTree = dir.newFolder("deltas");
+    try (Git git = Git.init().setDirectory(workTree).call()) {
+      byte[] content = new byte[5000];
+      new Random(0).nextBytes(content);
+      for (int i = 0; i < 3; i++) {
+        content[i]++;
+        Files.write(workTree.toPath().resolve("file.bin"), content);
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("Change file").setSign(false).call();
+      }
+      repository = (FileRepository) git.getRepository();
+      long deltas = writePack(repository, repository.resolve("HEAD"), Set.of(), deltaBaseAsOffset);
+      assertThat(deltas).isGreaterThan(0L);
+    }
+
+    HashMap<GitRepoMetric, Long> metrics = sample(9);
+
+    // The deltas have the type of their base and the size of the resulting object
+    assertThat(metrics.get(estimate("Commits"))).isEqualTo(3L);
+    assertThat(metrics.get(estimate("Trees"))).isEqualTo(3L);
+    assertThat(metrics.get(estimate("Blobs"))).isEqualTo(3L);
+    assertThat(metrics.get(estimate("BlobsBelow64KiB"))).isEqualTo(3L);
+  }
+
+  private static long writePack(
+      FileRepository repository, ObjectId want, Set<ObjectId> have, boolean deltaBaseAsOffset)
+      throws Exception {
+    Path packDirectory = repository.getObjectsDirectory().toPath().resolve("pack");
+    Files.createDirectories(packDirectory);
+    try (PackWriter writer =
+        new PackWriter(new PackConfig(repository), repository.newObjectReader())) {
+      writer.setDeltaBaseAsOffset(deltaBaseAsOffset);
+      writer.preparePack(NullProgressMonitor.INSTANCE, Set.of(want), have);
+      Path packFile = packDirectory.resolve("incoming.pack");
+      try (OutputStream out = Files.newOutputStream(packFile)) {
+        writer.writePack(NullProgressMonitor.INSTANCE, NullProgressMonitor.INSTANCE, out);
+      }
+      String packName = "pack-" + writer.computeName().name();
+      Files.move(packFile, packDirectory.resolve(packName + ".pack"));
+      try (OutputStream out = Files.newOutputStream(packDirectory.resolve(packName + ".idx"))) {
+        writer.writeIndex(out);
+      }
+      return writer.getStatistics().getTotalDeltas();
+    }
+  }
+
+  private HashMap<GitRepoMetric, Long> sample(long sampleSize) throws Exception {
+    ObjectSamplingMetricsCollector.Estimation estimation =
+        new ObjectSamplingMetricsCollector.Estimation();
+    ObjectSamplingMetricsCollector.sampleObjects(
+        repository.getObjectsDirectory().toPath(), sampleSize, new Random(0), estimation);
+    return estimation.toMap();
+  }
+
+  private static GitRepoMetric estimate(String name) {
+    return ObjectSamplingMetricsCollector.estimates.stream()
+        .filter(m -> m.getName().equals("estimatedNumberOf" + name))
+        .findFirst()
+        .orElseThrow();
+  }
+}
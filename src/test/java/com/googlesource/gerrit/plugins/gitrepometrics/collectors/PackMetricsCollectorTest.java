@@ -0,0 +1,124 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.googlesource.gerrit.plugins.gitrepometrics.ConfigSetupUtils;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackMetricsCollectorTest {
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path objectsDirectory;
+  private ScheduledExecutorService executor;
+  private PackMetricsCollector collector;
+
+  @Before
+  public void setUp() throws Exception {
+    objectsDirectory = dir.newFolder("objects").toPath();
+    Files.createDirectory(objectsDirectory.resolve("pack"));
+    executor = Executors.newSingleThreadScheduledExecutor();
+    collector =
+        new PackMetricsCollector(
+            executor,
+            new ConfigSetupUtils(List.of())
+                .withSetting(
+                    "collector", PackMetricsCollector.COLLECTOR_NAME, "smallPackThreshold", "100")
+                .getGitRepoMetricsConfig());
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldCollectPackSizeDistribution() throws Exception {
+    createPack("pack-1", 1000, 100);
+    createPack("pack-2", 400, 40);
+    createPack("pack-3", 50, 5);
+    createPack("pack-4", 40, 4);
+    Files.createFile(objectsDirectory.resolve("pack/pack-1.keep"));
+    Files.createFile(objectsDirectory.resolve("pack/pack-2.mtimes"));
+    Files.createFile(objectsDirectory.resolve("pack/pack-3.promisor"));
+
+    HashMap<GitRepoMetric, Long> metrics = collector.packMetrics(objectsDirectory);
+
+    assertThat(metrics.get(PackMetricsCollector.largestPackSize)).isEqualTo(1000L);
+    assertThat(metrics.get(PackMetricsCollector.smallestPackSize)).isEqualTo(40L);
+    assertThat(metrics.get(PackMetricsCollector.numberOfSmallPackFiles)).isEqualTo(2L);
+    // Only pack-4 is neither kept, cruft nor promisor
+    assertThat(metrics.get(PackMetricsCollector.numberOfGeometricRepackViolations)).isEqualTo(0L);
+    assertThat(metrics.get(PackMetricsCollector.sizeOfKeptPacks)).isEqualTo(1000L);
+    assertThat(metrics.get(PackMetricsCollector.sizeOfCruftPacks)).isEqualTo(400L);
+    assertThat(metrics.get(PackMetricsCollector.sizeOfPromisorPacks)).isEqualTo(50L);
+  }
+
+  @Test
+  public void shouldCollectEmptyPackDirectory() throws Exception {
+    HashMap<GitRepoMetric, Long> metrics = collector.packMetrics(objectsDirectory);
+
+    assertThat(metrics.get(PackMetricsCollector.largestPackSize)).isEqualTo(0L);
+    assertThat(metrics.get(PackMetricsCollector.numberOfGeometricRepackViolations)).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldCheckGeometricProgressionOfObjectCounts() throws Exception {
+    createPack("pack-1", 1000, 10);
+    createPack("pack-2", 100, 100);
+    createPack("pack-3", 50, 15);
+    createPack("pack-4", 10, 11);
+    Files.createFile(objectsDirectory.resolve("pack/pack-4.keep"));
+
+    HashMap<GitRepoMetric, Long> metrics = collector.packMetrics(objectsDirectory);
+
+    // 15 objects are not twice 10, while the sizes are geometric and the kept pack is ignored
+    assertThat(metrics.get(PackMetricsCollector.numberOfGeometricRepackViolations)).isEqualTo(1L);
+  }
+
+  @Test
+  public void shouldIgnorePackWithoutIndexInGeometricProgression() throws Exception {
+    createPack("pack-1", 1000, 10);
+    Files.write(objectsDirectory.resolve("pack/pack-2.pack"), new byte[100]);
+
+    HashMap<GitRepoMetric, Long> metrics = collector.packMetrics(objectsDirectory);
+
+    assertThat(metrics.get(PackMetricsCollector.smallestPackSize)).isEqualTo(100L);
+    assertThat(metrics.get(PackMetricsCollector.numberOfGeometricRepackViolations)).isEqualTo(0L);
+  }
+
+  private void createPack(String packName, int size, int objectCount) throws Exception {
+    Files.write(objectsDirectory.resolve("pack/" + packName + ".pack"), new byte[size]);
+    // Version 2 index header and fanout table, whose last entry is the number of objects
+    ByteBuffer index = ByteBuffer.allocate(8 + 256 * Integer.BYTES);
+    index.putInt(0xff744f63).putInt(2);
+    for (int i = 0; i < 256; i++) {
+      index.putInt(objectCount);
+    }
+    Files.write(objectsDirectory.resolve("pack/" + packName + ".idx"), index.array());
+  }
+}
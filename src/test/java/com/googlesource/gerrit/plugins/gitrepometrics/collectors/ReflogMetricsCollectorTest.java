@@ -0,0 +1,61 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReflogMetricsCollectorTest {
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  @Test
+  public void shouldCollectReflogFootprint() throws Exception {
+    Path logsDirectory = dir.newFolder("logs").toPath();
+    createReflog(logsDirectory.resolve("HEAD"), 10);
+    createReflog(logsDirectory.resolve("refs/heads/master"), 500);
+    createReflog(logsDirectory.resolve("refs/heads/stable"), 200);
+    createReflog(logsDirectory.resolve("refs/heads/feature/topic"), 50);
+
+    ReflogMetricsCollector.Footprint footprint = new ReflogMetricsCollector.Footprint(2);
+    ReflogMetricsCollector.reflogFootprint(logsDirectory, footprint);
+    HashMap<GitRepoMetric, Long> metrics = footprint.toMap();
+
+    assertThat(metrics.get(ReflogMetricsCollector.numberOfReflogs)).isEqualTo(4L);
+    assertThat(metrics.get(ReflogMetricsCollector.sizeOfReflogs)).isEqualTo(760L);
+    assertThat(metrics.get(ReflogMetricsCollector.largestReflogSize)).isEqualTo(500L);
+    assertThat(metrics.get(ReflogMetricsCollector.sizeOfLargestReflogs)).isEqualTo(700L);
+  }
+
+  @Test
+  public void shouldCollectRepositoryWithoutReflogs() throws Exception {
+    ReflogMetricsCollector.Footprint footprint = new ReflogMetricsCollector.Footprint(2);
+    ReflogMetricsCollector.reflogFootprint(dir.getRoot().toPath().resolve("logs"), footprint);
+    HashMap<GitRepoMetric, Long> metrics = footprint.toMap();
+
+    assertThat(metrics.get(ReflogMetricsCollector.numberOfReflogs)).isEqualTo(0L);
+    assertThat(metrics.get(ReflogMetricsCollector.largestReflogSize)).isEqualTo(0L);
+  }
+
+  private static void createReflog(Path reflog, int size) throws Exception {
+    Files.createDirectories(reflog.getParent());
+    Files.write(reflog, new byte[size]);
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.gitrepometrics.collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReftableMetricsCollectorTest {
+  private static final long NOW_MS = 1_000_000_000L;
+
+  @Rule public TemporaryFolder dir = new TemporaryFolder();
+
+  private Path reftableDirectory;
+  private ReftableMetricsCollector collector;
+
+  @Before
+  public void setUp() throws Exception {
+    reftableDirectory = dir.newFolder("reftable").toPath();
+    collector = new ReftableMetricsCollector(Executors.newSingleThreadScheduledExecutor());
+  }
+
+  @Test
+  public void shouldCollectReftableStack() throws Exception {
+    createTable("table-1.ref", 1000, 1, 10, NOW_MS - 60_000L);
+    createTable("table-2.ref", 300, 11, 15, NOW_MS - 30_000L);
+    createTable("table-3.ref", 200, 16, 18, NOW_MS);
+    Files.write(
+        reftableDirectory.resolve("tables.list"),
+        List.of("table-1.ref", "table-2.ref", "table-3.ref"),
+        UTF_8);
+
+    HashMap<GitRepoMetric, Long> metrics = collector.reftableMetrics(reftableDirectory, NOW_MS);
+
+    assertThat(metrics.get(ReftableMetricsCollector.numberOfReftables)).isEqualTo(3L);
+    assertThat(metrics.get(ReftableMetricsCollector.sizeOfReftables)).isEqualTo(1500L);
+    assertThat(metrics.get(ReftableMetricsCollector.reftableSizeRatio)).isEqualTo(5L);
+    assertThat(metrics.get(ReftableMetricsCollector.ageOfOldestReftable)).isEqualTo(60L);
+    // 300 is not twice 200
+    assertThat(metrics.get(ReftableMetricsCollector.numberOfPendingReftableCompactions))
+        .isEqualTo(1L);
+    assertThat(metrics.get(ReftableMetricsCollector.numberOfUncompactedRefUpdates))
+        .isEqualTo(8L);
+  }
+
+  @Test
+  public void shouldCountPendingCompactionsInStackOrder() throws Exception {
+    createTable("table-1.ref", 100, 1, 10, NOW_MS);
+    createTable("table-2.ref", 1000, 11, 15, NOW_MS);
+    createTable("table-3.ref", 10, 16, 18, NOW_MS);
+    Files.write(
+        reftableDirectory.resolve("tables.list"),
+        List.of("table-1.ref", "table-2.ref", "table-3.ref"),
+        UTF_8);
+
+    HashMap<GitRepoMetric, Long> metrics = collector.reftableMetrics(reftableDirectory, NOW_MS);
+
+    // 100 is not twice 1000, though the sorted sizes would be geometric
+    assertThat(metrics.get(ReftableMetricsCollector.numberOfPendingReftableCompactions))
+        .isEqualTo(1L);
+  }
+
+  @Test(expected = NoSuchFileException.class)
+  public void shouldFailWhenListedTableKeepsMissing() throws Exception {
+    createTable("table-1.ref", 100, 1, 10, NOW_MS);
+    Files.write(
+        reftableDirectory.resolve("tables.list"), List.of("table-1.ref", "table-2.ref"), UTF_8);
+
+    collector.reftableMetrics(reftableDirectory, NOW_MS);
+  }
+
+  @Test
+  public void shouldNotCollectRepositoryWithoutReftable() throws Exception {
+    assertThat(collector.reftableMetrics(reftableDirectory, NOW_MS)).isEmpty();
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectInvalidTableHeader() throws Exception {
+    Files.write(reftableDirectory.resolve("table-1.ref"), new byte[100]);
+    Files.write(reftableDirectory.resolve("tables.list"), List.of("table-1.ref"), UTF_8);
+
+    collector.reftableMetrics(reftableDirectory, NOW_MS);
+  }
+
+  private void createTable(
+      String tableName, int size, long minUpdateIndex, long maxUpdateIndex, long modifiedMs)
+      throws Exception {
+    ByteBuffer table = ByteBuffer.allocate(size);
+    table.put("REFT".getBytes(UTF_8)).put((byte) 1).put(new byte[3]);
+    table.putLong(minUpdateIndex).putLong(maxUpdateIndex);
+    Path tablePath = reftableDirectory.resolve(tableName);
+    Files.write(tablePath, table.array());
+    Files.setLastModifiedTime(tablePath, FileTime.fromMillis(modifiedMs));
+  }
+}